@@ -0,0 +1,18 @@
+package com.markedline.xml_parser.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// The JMH command line, with the GC profiler always on: every result comes with its allocation rate
+// (gc.alloc.rate.norm is bytes per operation)
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().
+                parent(new CommandLineOptions(args)).
+                addProfiler(GCProfiler.class).
+                build()).run();
+    }
+}
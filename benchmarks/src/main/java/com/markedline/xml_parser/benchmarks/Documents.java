@@ -0,0 +1,61 @@
+package com.markedline.xml_parser.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// The input of every benchmark: bigXML.xml from the parser resources, or a synthetic document whose shape is
+// set with -p depth=..,fanOut=..,attributes=..,textSize=.. (the shape parameters do not change bigXML).
+// The document is written to a temporary file for the engines that read files.
+@State(Scope.Benchmark)
+public class Documents {
+
+    @Param({"bigXML", "synthetic"})
+    public String document;
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"8"})
+    public int fanOut;
+
+    @Param({"3"})
+    public int attributes;
+
+    @Param({"64"})
+    public int textSize;
+
+    byte[] bytes;
+    // the bytes decoded, for the engines that scan chars in memory
+    char[] chars;
+    Path file;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        if (this.document.equals("bigXML")) {
+            try (InputStream input = Documents.class.getClassLoader().getResourceAsStream("bigXML.xml")) {
+                this.bytes = input.readAllBytes();
+            }
+        } else {
+            this.bytes = SyntheticDocument.generate(this.depth, this.fanOut, this.attributes, this.textSize).
+                    getBytes(StandardCharsets.UTF_8);
+        }
+        this.chars = new String(this.bytes, StandardCharsets.UTF_8).toCharArray();
+        this.file = Files.createTempFile("benchmark", ".xml");
+        Files.write(this.file, this.bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+}
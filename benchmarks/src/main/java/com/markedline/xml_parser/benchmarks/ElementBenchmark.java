@@ -0,0 +1,97 @@
+package com.markedline.xml_parser.benchmarks;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.ParserFactory;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Navigation and attribute lookup over a tree parsed once: a walk of the whole tree through getChildren and
+// getChild, and a lookup of a present and a missing attribute on every element
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElementBenchmark {
+
+    private Element root;
+    private List<Element> elements;
+
+    @Setup
+    public void parse(Documents documents) throws IOException, XMLException {
+        this.root = ParserFactory.createParser().parse(documents.file);
+        this.elements = new ArrayList<>();
+        Deque<Element> stack = new ArrayDeque<>();
+        stack.push(this.root);
+        while (!stack.isEmpty()) {
+            Element element = stack.pop();
+            if (element.getTagName() != null) {
+                this.elements.add(element);
+            }
+            if (element.hasChildren()) {
+                element.getChildren().forEach(stack::push);
+            }
+        }
+    }
+
+    @Benchmark
+    public int walkChildren() {
+        int count = 0;
+        Deque<Element> stack = new ArrayDeque<>();
+        stack.push(this.root);
+        while (!stack.isEmpty()) {
+            Element element = stack.pop();
+            count++;
+            if (element.hasChildren()) {
+                for (Element child : element.getChildren()) {
+                    stack.push(child);
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int walkByIndex() {
+        return count(this.root);
+    }
+
+    private static int count(Element element) {
+        int count = 1;
+        if (element.hasChildren()) {
+            int children = element.getChildren().size();
+            for (int i = 0; i < children; i++) {
+                count += count(element.getChild(i));
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public void attributeLookup(Blackhole blackhole) {
+        for (Element element : this.elements) {
+            if (element.hasAttributes()) {
+                blackhole.consume(element.getAttributeValue("id"));
+                blackhole.consume(element.getAttributeValue("missing"));
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.markedline.xml_parser.benchmarks;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.Parser;
+import com.markedline.xml_parser.util.parser.ParserConfig;
+import com.markedline.xml_parser.util.parser.ParserFactory;
+import com.markedline.xml_parser.util.tokenizer.TokenizerMode;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Builds the whole tree from the file, end to end
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"reader", "buffered", "mapped", "session", "lazy", "parallel"})
+    public String parser;
+
+    private Parser engine;
+
+    @Setup
+    public void create() {
+        this.engine = switch (this.parser) {
+            case "session" -> ParserFactory.createSessionParser(ParserConfig.DEFAULT);
+            case "lazy" -> ParserFactory.createLazyParser();
+            case "parallel" -> ParserFactory.createParallelParser();
+            default -> ParserFactory.createParser(TokenizerMode.valueOf(this.parser.toUpperCase()));
+        };
+    }
+
+    @Benchmark
+    public Element parse(Documents documents) throws IOException, XMLException {
+        return this.engine.parse(documents.file);
+    }
+}
@@ -0,0 +1,68 @@
+package com.markedline.xml_parser.benchmarks;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.ParserFactory;
+import com.markedline.xml_parser.util.printer.BufferedPrinterImpl;
+import com.markedline.xml_parser.util.printer.Printer;
+import com.markedline.xml_parser.util.printer.PrinterImpl;
+import com.markedline.xml_parser.util.printer.XmlPrinterImpl;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+// Prints a tree parsed once into output that is thrown away. PrinterImpl only prints to System.out, which is
+// replaced for the trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrinterBenchmark {
+
+    @Param({"PrinterImpl", "BufferedPrinterImpl", "XmlPrinterImpl"})
+    public String printer;
+
+    private Printer engine;
+    private Element root;
+    private PrintStream out;
+
+    @Setup
+    public void create(Documents documents) throws IOException, XMLException {
+        this.root = ParserFactory.createParser().parse(documents.file);
+        this.out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        this.engine = switch (this.printer) {
+            case "PrinterImpl" -> new PrinterImpl();
+            case "BufferedPrinterImpl" -> new BufferedPrinterImpl(Writer.nullWriter());
+            case "XmlPrinterImpl" -> new XmlPrinterImpl(Writer.nullWriter());
+            default -> throw new IllegalArgumentException(this.printer);
+        };
+    }
+
+    @TearDown
+    public void restore() {
+        System.setOut(this.out);
+    }
+
+    @Benchmark
+    public void print() {
+        this.engine.print(this.root);
+    }
+}
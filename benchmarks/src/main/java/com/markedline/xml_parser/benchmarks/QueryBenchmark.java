@@ -0,0 +1,62 @@
+package com.markedline.xml_parser.benchmarks;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.ParserFactory;
+import com.markedline.xml_parser.util.query.PathIndex;
+import com.markedline.xml_parser.util.query.PathQuery;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Path queries over a tree parsed once, answered by walking the tree or from a PathIndex built up front: a path of
+// child steps, a descendant step with an attribute predicate, and a descendant step alone
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"path", "predicate", "descendant"})
+    public String query;
+
+    private Element root;
+    private PathIndex index;
+    private PathQuery path;
+
+    @Setup
+    public void parse(Documents documents) throws IOException, XMLException {
+        this.root = ParserFactory.createParser().parse(documents.file);
+        this.index = new PathIndex(this.root);
+        boolean bigXML = documents.document.equals("bigXML");
+        this.path = PathQuery.compile(switch (this.query) {
+            case "path" -> bigXML ? "/breakfast-menu/food/price" : "/level-0/level-1/level-2";
+            case "predicate" -> bigXML ? "//food[@id='2']/name" : "//level-2[@a1='waffles']";
+            default -> bigXML ? "//price" : "//level-" + documents.depth;
+        });
+    }
+
+    @Benchmark
+    public List<Element> unindexed() {
+        return this.path.select(this.root);
+    }
+
+    @Benchmark
+    public List<Element> indexed() {
+        return this.path.select(this.index);
+    }
+}
@@ -0,0 +1,58 @@
+package com.markedline.xml_parser.benchmarks;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.node.Snapshot;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Reloads the tree from a snapshot of the document, to compare with ParserBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void write(Documents documents) throws IOException, XMLException {
+        this.snapshot = Files.createTempFile("benchmark", ".snapshot");
+        Snapshot.write(new ParserImpl().parse(documents.file), this.snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(this.snapshot);
+    }
+
+    // the whole tree
+    @Benchmark
+    public Element load() throws IOException {
+        return Snapshot.open(this.snapshot).toElement();
+    }
+
+    // the root and its children only
+    @Benchmark
+    public int open() throws IOException {
+        return Snapshot.open(this.snapshot).asElement().getChildren().size();
+    }
+}
@@ -0,0 +1,60 @@
+package com.markedline.xml_parser.benchmarks;
+
+import java.util.Random;
+
+// Deterministic document of a given shape: every element above the depth has fanOut children, every element has
+// the given number of attributes (id, a1, a2, ...) and every leaf holds textSize chars of text. Elements are
+// indented like hand-written documents, so whitespace between tags is part of the load too.
+public final class SyntheticDocument {
+    private static final String[] WORDS = {
+            "belgian", "waffles", "strawberry", "berry", "french", "toast", "homestyle", "breakfast", "two", "eggs",
+            "bacon", "sausage", "fresh", "syrup", "whipped", "cream", "light", "served", "with", "and"
+    };
+
+    private SyntheticDocument() {
+    }
+
+    public static String generate(int depth, int fanOut, int attributes, int textSize) {
+        StringBuilder doc = new StringBuilder();
+        element(doc, new Random(depth * 31L + fanOut * 7L + attributes), 0, depth, fanOut, attributes, textSize);
+        return doc.toString();
+    }
+
+    private static void element(StringBuilder doc, Random random, int level, int depth, int fanOut, int attributes,
+                                int textSize) {
+        indent(doc, level);
+        String tagName = "level-" + level;
+        doc.append('<').append(tagName);
+        for (int i = 0; i < attributes; i++) {
+            doc.append(' ').append(i == 0 ? "id" : "a" + i).append("=\"");
+            doc.append(i == 0 ? Integer.toString(random.nextInt(1 << 20)) : WORDS[random.nextInt(WORDS.length)]);
+            doc.append('"');
+        }
+        doc.append('>');
+
+        if (level == depth) {
+            text(doc, random, textSize);
+        } else {
+            doc.append('\n');
+            for (int i = 0; i < fanOut; i++) {
+                element(doc, random, level + 1, depth, fanOut, attributes, textSize);
+            }
+            indent(doc, level);
+        }
+        doc.append("</").append(tagName).append(">\n");
+    }
+
+    private static void text(StringBuilder doc, Random random, int textSize) {
+        int end = doc.length() + textSize;
+        while (doc.length() < end) {
+            doc.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        doc.setLength(end);
+    }
+
+    private static void indent(StringBuilder doc, int level) {
+        for (int i = 0; i < level; i++) {
+            doc.append("    ");
+        }
+    }
+}
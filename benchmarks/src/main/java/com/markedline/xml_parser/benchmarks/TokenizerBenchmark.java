@@ -0,0 +1,80 @@
+package com.markedline.xml_parser.benchmarks;
+
+import com.markedline.xml_parser.util.tokenizer.BufferedTokenizerImpl;
+import com.markedline.xml_parser.util.tokenizer.TokenCursor;
+import com.markedline.xml_parser.util.tokenizer.TokenType;
+import com.markedline.xml_parser.util.tokenizer.TokenizerFactory;
+import com.markedline.xml_parser.util.tokenizer.TokenizerMode;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Reads the whole document token by token from its file, once only scanning and once asking every token for its
+// name or text the way the parser does. The chars benchmark scans the decoded document in memory with the buffered
+// tokenizer, as in-memory parses and sessions do, so that it measures scanning alone.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({"READER", "BUFFERED", "MAPPED"})
+    public TokenizerMode mode;
+
+    @Benchmark
+    public int nextToken(Documents documents) throws IOException, XMLException {
+        try (FileInputStream input = new FileInputStream(documents.file.toFile())) {
+            TokenCursor cursor = TokenizerFactory.createTokenizer(input, this.mode);
+            int tokens = 0;
+            while (cursor.nextToken() != TokenType.EOF) {
+                tokens++;
+            }
+            return tokens;
+        }
+    }
+
+    @Benchmark
+    public int nextTokenInChars(Documents documents) throws IOException, XMLException {
+        TokenCursor cursor = new BufferedTokenizerImpl(documents.chars, 0, documents.chars.length);
+        int tokens = 0;
+        while (cursor.nextToken() != TokenType.EOF) {
+            tokens++;
+        }
+        return tokens;
+    }
+
+    @Benchmark
+    public void nextTokenWithValues(Documents documents, Blackhole blackhole) throws IOException, XMLException {
+        try (FileInputStream input = new FileInputStream(documents.file.toFile())) {
+            TokenCursor cursor = TokenizerFactory.createTokenizer(input, this.mode);
+            TokenType tokenType;
+            while ((tokenType = cursor.nextToken()) != TokenType.EOF) {
+                if (tokenType == TokenType.TEXT) {
+                    blackhole.consume(cursor.getText());
+                } else {
+                    blackhole.consume(cursor.getLocalName());
+                    if (tokenType == TokenType.START_TAG) {
+                        for (int i = 0; i < cursor.getAttributeCount(); i++) {
+                            blackhole.consume(cursor.getAttributeValue(i));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
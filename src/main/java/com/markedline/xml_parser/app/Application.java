@@ -1,28 +1,90 @@
-package com.markedline.xml_parser.app;
-
-import com.markedline.xml_parser.node.Element;
-import com.markedline.xml_parser.util.parser.Parser;
-import com.markedline.xml_parser.util.parser.ParserFactory;
-import com.markedline.xml_parser.util.printer.Printer;
-import com.markedline.xml_parser.util.printer.PrinterImpl;
-
-import java.io.File;
-import java.io.FileInputStream;
-
-public class Application {
-
-    public static void main(String[] args) throws Exception {
-        Parser parser = ParserFactory.createParser();
-
-        long startTime = System.currentTimeMillis();
-
-        ClassLoader classLoader = Application.class.getClassLoader();
-
-        Element root = parser.parse(new FileInputStream(new File(classLoader.getResource(args[0]).getFile())));
-
-        long endTime = System.currentTimeMillis() - startTime;
-        System.out.println("it took: " + (float) endTime / 1000 + "sec");
-        Printer printer = new PrinterImpl();
-        printer.print(root);
-    }
-}
+package com.markedline.xml_parser.app;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.batch.BatchParser;
+import com.markedline.xml_parser.util.batch.BatchReport;
+import com.markedline.xml_parser.util.batch.FilePatterns;
+import com.markedline.xml_parser.util.metrics.MetricsRegistry;
+import com.markedline.xml_parser.util.parser.Parser;
+import com.markedline.xml_parser.util.parser.ParserConfig;
+import com.markedline.xml_parser.util.parser.ParserFactory;
+import com.markedline.xml_parser.util.printer.Printer;
+import com.markedline.xml_parser.util.printer.PrintingHandler;
+import com.markedline.xml_parser.util.printer.BufferedPrinterImpl;
+import com.markedline.xml_parser.util.tokenizer.TokenizerMode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.List;
+
+public class Application {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equalsIgnoreCase("batch")) {
+            batch(args);
+            return;
+        }
+
+        // optional last argument "metrics" prints what the parse measured at the end,
+        // optional second argument picks the tokenizer engine: reader, buffered or mapped,
+        // optional third argument "stream" prints while parsing instead of building the tree first
+        int options = args.length;
+        boolean metrics = options > 1 && args[options - 1].equalsIgnoreCase("metrics");
+        if (metrics) {
+            options--;
+        }
+        MetricsRegistry registry = new MetricsRegistry();
+        ParserConfig.Builder config = new ParserConfig.Builder().
+                withListener(metrics ? registry : null);
+        if (options > 1) {
+            config.withTokenizerMode(TokenizerMode.valueOf(args[1].toUpperCase()));
+        }
+        Parser parser = ParserFactory.createParser(config.build());
+        boolean stream = options > 2 && args[2].equalsIgnoreCase("stream");
+
+        long startTime = System.currentTimeMillis();
+
+        ClassLoader classLoader = Application.class.getClassLoader();
+        FileInputStream input = new FileInputStream(new File(classLoader.getResource(args[0]).getFile()));
+
+        if (stream) {
+            // the output comes first, the time covers parsing and printing
+            parser.parse(input, new PrintingHandler());
+            long endTime = System.currentTimeMillis() - startTime;
+            System.out.println("it took: " + (float) endTime / 1000 + "sec");
+            if (metrics) {
+                System.out.print(registry.toText());
+            }
+            return;
+        }
+
+        Element root = parser.parse(input);
+
+        long endTime = System.currentTimeMillis() - startTime;
+        System.out.println("it took: " + (float) endTime / 1000 + "sec");
+        Printer printer = new BufferedPrinterImpl();
+        printer.print(root);
+        if (metrics) {
+            System.out.print(registry.toText());
+        }
+    }
+
+    // batch [parallelism] <directory or glob>... parses the files concurrently, prints a line per file as it
+    // completes and the totals at the end; the exit status is 1 if some file failed
+    private static void batch(String[] args) throws Exception {
+        BatchParser.Builder builder = new BatchParser.Builder();
+        int first = 1;
+        if (args.length > 1 && args[1].matches("\\d+")) {
+            builder.withParallelism(Integer.parseInt(args[1]));
+            first = 2;
+        }
+        List<String> patterns = Arrays.asList(args).subList(first, args.length);
+
+        BatchReport report = builder.build().parse(FilePatterns.expand(patterns), System.out::println);
+        System.out.println(report);
+        if (report.getFailed() > 0) {
+            System.exit(1);
+        }
+    }
+}
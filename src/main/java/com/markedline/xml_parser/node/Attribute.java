@@ -1,55 +1,94 @@
-package com.markedline.xml_parser.node;
-
-import java.util.Objects;
-
-public final class Attribute {
-
-    private String name;
-    private String value;
-
-    public Attribute() {
-    }
-
-    public Attribute(String name, String value) {
-        this.name = name;
-        this.value = value;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public String getValue() {
-        return value;
-    }
-
-    public void setValue(String value) {
-        this.value = value;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Attribute attribute = (Attribute) o;
-        return Objects.equals(name, attribute.name) &&
-                Objects.equals(value, attribute.value);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(name, value);
-    }
-
-    @Override
-    public String toString() {
-        return "Attribute{" +
-                "name='" + name + '\'' +
-                ", value='" + value + '\'' +
-                '}';
-    }
-}
+package com.markedline.xml_parser.node;
+
+import java.util.Objects;
+
+public final class Attribute {
+
+    private String name;
+    private String value;
+    // the value is made from these chars (see LazyText) on first request
+    private Object valueChars;
+    private int valueStart;
+    private int valueLength;
+    // the element that hashed the attribute last, told of changes so that it drops the hash
+    private Element owner;
+
+    public Attribute() {
+    }
+
+    public Attribute(String name, String value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    // the chars are kept, not copied, they must not change
+    public Attribute(String name, char[] valueChars, int valueStart, int valueLength) {
+        this.name = name;
+        this.valueChars = valueChars;
+        this.valueStart = valueStart;
+        this.valueLength = valueLength;
+    }
+
+    // same for a value that is all ISO-8859-1, one byte per char
+    public Attribute(String name, byte[] latin1, int valueStart, int valueLength) {
+        this.name = name;
+        this.valueChars = latin1;
+        this.valueStart = valueStart;
+        this.valueLength = valueLength;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.changing();
+        this.name = name;
+    }
+
+    public String getValue() {
+        if (this.value == null && this.valueChars != null) {
+            this.value = LazyText.toString(this.valueChars, this.valueStart, this.valueLength);
+        }
+        return this.value;
+    }
+
+    public void setValue(String value) {
+        this.changing();
+        this.value = value;
+        this.valueChars = null;
+    }
+
+    void setOwner(Element owner) {
+        this.owner = owner;
+    }
+
+    // an attribute of a frozen element throws before it changes
+    private void changing() {
+        if (this.owner != null) {
+            this.owner.attributeChanged();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Attribute attribute = (Attribute) o;
+        return Objects.equals(name, attribute.name) &&
+                Objects.equals(this.getValue(), attribute.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, this.getValue());
+    }
+
+    @Override
+    public String toString() {
+        return "Attribute{" +
+                "name='" + name + '\'' +
+                ", value='" + this.getValue() + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,342 @@
+package com.markedline.xml_parser.node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-only tree kept in parallel int arrays instead of Element objects. Nodes are numbered in document order, so
+// the first child of a node is the next node and its subtree ends where end[node] says. Element nodes point to a
+// name and a range of attributes, text nodes to a range of the shared char pool.
+public final class CompactDocument {
+    public static final int NONE = -1;
+
+    private final int root;
+    private final int nodeCount;
+    private final int[] parent;
+    // index after the last node of the subtree
+    private final int[] end;
+    // name id of element nodes, NONE for text nodes
+    private final int[] name;
+    // first attribute of element nodes, pool offset of text nodes
+    private final int[] offset;
+    // attribute count of element nodes, text length of text nodes
+    private final int[] length;
+
+    private final String[] names;
+    private final int[] attrName;
+    private final int[] attrOffset;
+    private final int[] attrLength;
+    private final char[] pool;
+
+    private CompactDocument(Builder builder) {
+        // the builder arrays are up to twice as long as needed
+        this.root = builder.stack[builder.depth - 1];
+        this.nodeCount = builder.nodeCount;
+        this.parent = Arrays.copyOf(builder.parent, this.nodeCount);
+        this.end = Arrays.copyOf(builder.end, this.nodeCount);
+        this.name = Arrays.copyOf(builder.name, this.nodeCount);
+        this.offset = Arrays.copyOf(builder.offset, this.nodeCount);
+        this.length = Arrays.copyOf(builder.length, this.nodeCount);
+        this.names = builder.names.toArray(new String[0]);
+        this.attrName = Arrays.copyOf(builder.attrName, builder.attrCount);
+        this.attrOffset = Arrays.copyOf(builder.attrOffset, builder.attrCount);
+        this.attrLength = Arrays.copyOf(builder.attrLength, builder.attrCount);
+        this.pool = Arrays.copyOf(builder.pool, builder.poolLength);
+    }
+
+    public int getRoot() {
+        return this.root;
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    public int getParent(int node) {
+        return node == this.root ? NONE : this.parent[node];
+    }
+
+    public int getFirstChild(int node) {
+        return node + 1 < this.end[node] ? node + 1 : NONE;
+    }
+
+    public int getNextSibling(int node) {
+        if (node == this.root) {
+            return NONE;
+        }
+        int next = this.end[node];
+        return next < this.end[this.parent[node]] ? next : NONE;
+    }
+
+    public boolean isText(int node) {
+        return this.name[node] == NONE;
+    }
+
+    // null for text nodes
+    public String getTagName(int node) {
+        return this.isText(node) ? null : this.names[this.name[node]];
+    }
+
+    // null for element nodes
+    public String getText(int node) {
+        return this.isText(node) ? new String(this.pool, this.offset[node], this.length[node]) : null;
+    }
+
+    // text nodes may be read straight from the pool without building a String
+    public char[] getTextCharacters() {
+        return this.pool;
+    }
+
+    public int getTextStart(int node) {
+        return this.offset[node];
+    }
+
+    public int getTextLength(int node) {
+        return this.length[node];
+    }
+
+    public int getAttributeCount(int node) {
+        return this.isText(node) ? 0 : this.length[node];
+    }
+
+    public String getAttributeName(int node, int i) {
+        return this.names[this.attrName[this.attribute(node, i)]];
+    }
+
+    public String getAttributeValue(int node, int i) {
+        int attribute = this.attribute(node, i);
+        return new String(this.pool, this.attrOffset[attribute], this.attrLength[attribute]);
+    }
+
+    public String getAttributeValue(int node, String name) {
+        for (int i = 0; i < this.getAttributeCount(node); i++) {
+            if (this.getAttributeName(node, i).equals(name)) {
+                return this.getAttributeValue(node, i);
+            }
+        }
+        return null;
+    }
+
+    private int attribute(int node, int i) {
+        if (i < 0 || i >= this.getAttributeCount(node)) {
+            throw new IllegalArgumentException();
+        }
+        return this.offset[node] + i;
+    }
+
+    // Element tree of the document, children are created one level at a time as they are first visited.
+    // The Elements are copies, changing them does not change the document.
+    public Element asElement() {
+        return this.asElement(this.root);
+    }
+
+    public Element asElement(int node) {
+        return this.element(node, null);
+    }
+
+    private Element element(int node, Element parent) {
+        if (this.isText(node)) {
+            return new Element.Builder().withText(this.getText(node)).withParent(parent).build();
+        }
+
+        int count = this.getAttributeCount(node);
+        List<Attribute> attributes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            attributes.add(new Attribute(this.getAttributeName(node, i), this.getAttributeValue(node, i)));
+        }
+        Element.Builder builder = new Element.Builder().
+                withTagName(this.getTagName(node)).
+                withAttributes(attributes).
+                withParent(parent);
+        if (this.getFirstChild(node) != NONE) {
+            builder.withSource(this::children, node);
+        }
+        return builder.build();
+    }
+
+    private List<Element> children(int node, Element parent) {
+        List<Element> children = new ArrayList<>();
+        for (int child = this.getFirstChild(node); child != NONE; child = this.getNextSibling(child)) {
+            children.add(this.element(child, parent));
+        }
+        return children;
+    }
+
+    // Appends nodes in document order, with the nesting ParserImpl gives: end tags never close the outermost element
+    // and the document is the innermost element left open at the end
+    public static final class Builder {
+        // short texts repeat a lot (indentation, enumerated values), they are stored in the pool once
+        private static final int SHARED_TEXT_LENGTH = 32;
+
+        private int nodeCount;
+        private int[] parent = new int[64];
+        private int[] end = new int[64];
+        private int[] name = new int[64];
+        private int[] offset = new int[64];
+        private int[] length = new int[64];
+
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> nameIds = new HashMap<>();
+
+        private int attrCount;
+        private int[] attrName = new int[16];
+        private int[] attrOffset = new int[16];
+        private int[] attrLength = new int[16];
+
+        private char[] pool = new char[1024];
+        private int poolLength;
+        // pool offsets of short texts, open addressing on the text hash
+        private int[] shared = new int[256];
+        private int[] sharedLength = new int[256];
+        private int sharedCount;
+
+        private int[] stack = new int[16];
+        private int depth;
+
+        public void startElement(String tagName) {
+            int node = this.addNode(this.nameId(tagName));
+            this.offset[node] = this.attrCount;
+            if (this.depth == this.stack.length) {
+                this.stack = Arrays.copyOf(this.stack, this.depth * 2);
+            }
+            this.stack[this.depth++] = node;
+        }
+
+        // adds an attribute to the element started last
+        public void addAttribute(String name, String value) {
+            if (this.attrCount == this.attrName.length) {
+                int capacity = this.attrCount * 2;
+                this.attrName = Arrays.copyOf(this.attrName, capacity);
+                this.attrOffset = Arrays.copyOf(this.attrOffset, capacity);
+                this.attrLength = Arrays.copyOf(this.attrLength, capacity);
+            }
+            int valueLength = value.length();
+            this.ensurePool(valueLength);
+            value.getChars(0, valueLength, this.pool, this.poolLength);
+            this.attrName[this.attrCount] = this.nameId(name);
+            this.attrOffset[this.attrCount] = this.store(valueLength);
+            this.attrLength[this.attrCount] = valueLength;
+            this.attrCount++;
+            this.length[this.nodeCount - 1]++;
+        }
+
+        public void endElement() {
+            if (this.depth > 1) {
+                this.end[this.stack[--this.depth]] = this.nodeCount;
+            }
+        }
+
+        public void text(char[] ch, int start, int length) {
+            if (this.depth == 0) {
+                throw new EmptyStackException();
+            }
+            this.ensurePool(length);
+            System.arraycopy(ch, start, this.pool, this.poolLength, length);
+            int node = this.addNode(NONE);
+            this.offset[node] = this.store(length);
+            this.length[node] = length;
+            this.end[node] = node + 1;
+        }
+
+        // null if no element was started
+        public CompactDocument build() {
+            if (this.depth == 0) {
+                return null;
+            }
+            for (int i = 0; i < this.depth; i++) {
+                this.end[this.stack[i]] = this.nodeCount;
+            }
+            return new CompactDocument(this);
+        }
+
+        private int addNode(int nameId) {
+            if (this.nodeCount == this.parent.length) {
+                int capacity = this.nodeCount * 2;
+                this.parent = Arrays.copyOf(this.parent, capacity);
+                this.end = Arrays.copyOf(this.end, capacity);
+                this.name = Arrays.copyOf(this.name, capacity);
+                this.offset = Arrays.copyOf(this.offset, capacity);
+                this.length = Arrays.copyOf(this.length, capacity);
+            }
+            int node = this.nodeCount++;
+            this.parent[node] = this.depth > 0 ? this.stack[this.depth - 1] : NONE;
+            this.name[node] = nameId;
+            this.length[node] = 0;
+            return node;
+        }
+
+        private int nameId(String name) {
+            Integer id = this.nameIds.get(name);
+            if (id == null) {
+                id = this.names.size();
+                this.names.add(name);
+                this.nameIds.put(name, id);
+            }
+            return id;
+        }
+
+        private void ensurePool(int length) {
+            if (this.poolLength + length > this.pool.length) {
+                this.pool = Arrays.copyOf(this.pool, Math.max(this.pool.length * 2, this.poolLength + length));
+            }
+        }
+
+        // Keeps the chars copied to the end of the pool and returns their offset,
+        // or drops them and returns the offset of the same text stored before
+        private int store(int length) {
+            int start = this.poolLength;
+            if (length > SHARED_TEXT_LENGTH) {
+                this.poolLength += length;
+                return start;
+            }
+
+            int hash = 0;
+            for (int i = start; i < start + length; i++) {
+                hash = 31 * hash + this.pool[i];
+            }
+            int mask = this.shared.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            for (; this.sharedLength[slot] != 0; slot = (slot + 1) & mask) {
+                int other = this.shared[slot];
+                if (this.sharedLength[slot] == length + 1 &&
+                        Arrays.equals(this.pool, other, other + length, this.pool, start, start + length)) {
+                    return other;
+                }
+            }
+
+            // lengths are stored plus one so that empty slots are told apart
+            this.shared[slot] = start;
+            this.sharedLength[slot] = length + 1;
+            this.poolLength += length;
+            if (++this.sharedCount * 2 > this.shared.length) {
+                this.rehash();
+            }
+            return start;
+        }
+
+        private void rehash() {
+            int[] oldShared = this.shared;
+            int[] oldLength = this.sharedLength;
+            this.shared = new int[oldShared.length * 2];
+            this.sharedLength = new int[oldShared.length * 2];
+            int mask = this.shared.length - 1;
+            for (int i = 0; i < oldShared.length; i++) {
+                if (oldLength[i] != 0) {
+                    int hash = 0;
+                    for (int j = oldShared[i]; j < oldShared[i] + oldLength[i] - 1; j++) {
+                        hash = 31 * hash + this.pool[j];
+                    }
+                    int slot = (hash ^ (hash >>> 16)) & mask;
+                    while (this.sharedLength[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    this.shared[slot] = oldShared[i];
+                    this.sharedLength[slot] = oldLength[i];
+                }
+            }
+        }
+    }
+}
@@ -1,238 +1,659 @@
-package com.markedline.xml_parser.node;
-
-import java.util.*;
-
-public final class Element {
-
-    private String tagName;
-    private List<Attribute> attributes;
-    private Element parent;
-    private List<Element> children;
-    private String text;
-
-
-    public Element(Builder builder) {
-        this.tagName = builder.tagName;
-        this.attributes = builder.attributes;
-        this.parent = builder.parent;
-        this.children = builder.children;
-        this.text = builder.text;
-    }
-
-    public Element() {
-    }
-
-    public String getTagName() {
-        return this.tagName;
-    }
-
-    public void setTagName(String tagName) {
-        this.tagName = tagName;
-    }
-
-    public String getText() {
-        return this.text;
-    }
-
-    public void setText(String text) {
-        this.text = text;
-    }
-
-    public String getAttributeValue(String name) {
-        if (this.attributes == null) {
-            throw new IllegalStateException();
-        } else if (name == null) {
-            throw new IllegalArgumentException();
-        } else {
-            int idx = this.getAttrIdx(name);
-            return idx >= 0 ? this.attributes.get(idx).getValue() : null;
-        }
-    }
-
-    private int getAttrIdx(String name) {
-        if (this.attributes != null) {
-            for (int i = 0; i < this.attributes.size(); ++i) {
-                if (this.attributes.get(i).getName().equals(name)) {
-                    return i;
-                }
-            }
-        }
-
-        return -1;
-    }
-
-    public int getAttributeCount() {
-        return this.attributes.size();
-    }
-
-    public String getAttributeName(int i) {
-        if (this.attributes == null) {
-            throw new IllegalStateException();
-        } else if (i >= 0 && i < this.getAttributeCount()) {
-            return this.attributes.get(i).getName();
-        } else {
-            throw new IllegalArgumentException();
-        }
-    }
-
-    public String getAttributeValue(int i) {
-        if (this.attributes == null) {
-            throw new IllegalStateException();
-        } else if (i >= 0 && i < this.getAttributeCount()) {
-            return this.attributes.get(i).getValue();
-        } else {
-            throw new IllegalArgumentException();
-        }
-    }
-
-    public void setAttribute(String name, String value) {
-        if (this.attributes == null) {
-            throw new IllegalStateException();
-        } else if (name == null || value == null) {
-            throw new IllegalArgumentException();
-        } else {
-            for (Attribute attribute : attributes) {
-                if (attribute.getName().equals(name))
-                    attribute.setValue(value);
-            }
-        }
-    }
-
-
-    public Element getParent() {
-        return parent;
-    }
-
-    public void setParent(Element parent) {
-        this.parent = parent;
-    }
-
-    public Element getChild(int idx) {
-        if (idx >= 0 && idx < children.size())
-            return children.get(idx);
-        else throw new NoSuchElementException();
-    }
-
-    public int getDepth() {
-        if (this.parent == null)
-            return 0;
-        else
-            return 1 + parent.getDepth();
-    }
-
-    //    public Element getNextSibling() {
-//        if (this.parent != null) {
-//            Element parent = this.getParent();
-//            int currentIdx = parent.getChildren().indexOf(this);
-//            if (++currentIdx - 1 < parent.getChildren().size())
-//                return parent.getChild(currentIdx);
-//            else
-//                throw new NoSuchElementException();
-//        } else throw new NoSuchElementException();
-//    }
-//
-//    public Node getPreviousSibling() {
-//        return null;
-//    }
-//
-//    public void insertChildBefore(Node newChild, Node child) {
-//
-//    }
-//
-    public void addChild(Element newChild) {
-        if (this.children == null)
-            children = new ArrayList<>();
-        children.add(newChild);
-    }
-
-    public void removeChild(Element child) {
-        this.children.remove(child);
-    }
-
-    public void replaceChild(Element newChild, Element oldChild) {
-        Collections.replaceAll(this.children, oldChild, newChild);
-    }
-
-    public boolean hasChildren() {
-        return children != null;
-    }
-
-    public List<Element> getChildren() {
-        return children;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Element element = (Element) o;
-        return Objects.equals(tagName, element.tagName) &&
-                Objects.equals(attributes, element.attributes) &&
-                Objects.equals(parent, element.parent) &&
-                Objects.equals(children, element.children) &&
-                Objects.equals(text, element.text);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(tagName, attributes, children, text);
-    }
-
-    @Override
-    public String toString() {
-        return "Element{" +
-                "tagName='" + tagName + '\'' +
-                ", attributes=" + attributes +
-                ", children=" + children +
-                ", text='" + text + '\'' +
-                '}';
-    }
-
-    public static class Builder {
-        private String tagName;
-        private List<Attribute> attributes;
-        private Element parent;
-        private List<Element> children;
-        private String text;
-
-        public Builder(String tagName, List<Attribute> attributes, Element parent, List<Element> children, String text) {
-            this.tagName = tagName;
-            this.attributes = attributes;
-            this.parent = parent;
-            this.children = children;
-            this.text = text;
-        }
-
-        public Builder() {
-        }
-
-        public Builder withTagName(String tagName) {
-            this.tagName = tagName;
-            return this;
-        }
-
-        public Builder withAttributes(List<Attribute> attributes) {
-            this.attributes = attributes;
-            return this;
-        }
-
-        public Builder withParent(Element parent) {
-            this.parent = parent;
-            return this;
-        }
-
-        public Builder withChildren(List<Element> children) {
-            this.children = children;
-            return this;
-        }
-
-        public Builder withText(String text) {
-            this.text = text;
-            return this;
-        }
-
-        public Element build() {
-            return new Element(this);
-        }
-    }
-}
+package com.markedline.xml_parser.node;
+
+import java.util.*;
+
+public final class Element {
+    // lookups by name go through a hash table above this many attributes
+    private static final int HASHED_ATTRIBUTES = 8;
+    private static final long HASH_SEED = 0x9E3779B97F4A7C15L;
+    // kept in the lazy slot of a frozen element, whose lazy state is all resolved
+    private static final Object FROZEN = new Object();
+
+    private String tagName;
+    private List<Attribute> attributes;
+    private Element parent;
+    private List<Element> children;
+    private String text;
+    // state resolved on first request, one slot keeps elements small: the chars of the text (see LazyText)
+    // at lazyStart and lazyLength, or the ElementSource of the children of node lazyStart; FROZEN once frozen
+    private Object lazy;
+    private int lazyStart;
+    private int lazyLength;
+    // indices plus one of the attributes by name hash, open addressing, built for attributeSlotsSize attributes
+    private int[] attributeSlots;
+    private int attributeSlotsSize;
+    // index of the document, referred to by each of its elements so that finding it costs no climb to the top
+    private IdIndex idIndex;
+    // where the element was last seen among its siblings, the index starts looking for it there
+    private int siblingHint;
+    // content hash of the subtree, 0 until computed; an element without one has no ancestor with one
+    private long subtreeHash;
+
+
+    public Element(Builder builder) {
+        this.tagName = builder.tagName;
+        this.attributes = builder.attributes;
+        this.parent = builder.parent;
+        this.children = builder.children != null ? new ChildList(this, builder.children) : null;
+        this.text = builder.text;
+        if (builder.source != null) {
+            this.lazy = builder.source;
+            this.lazyStart = builder.sourceNode;
+        } else if (builder.textChars != null) {
+            this.lazy = builder.textChars;
+            this.lazyStart = builder.textStart;
+            this.lazyLength = builder.textLength;
+        }
+    }
+
+    public Element() {
+    }
+
+    public String getTagName() {
+        return this.tagName;
+    }
+
+    public void setTagName(String tagName) {
+        this.checkMutable();
+        this.tagName = tagName;
+        this.invalidateHash();
+    }
+
+    public String getText() {
+        if (this.text == null && this.lazy != null && this.lazy != FROZEN && !(this.lazy instanceof ElementSource)) {
+            this.text = LazyText.toString(this.lazy, this.lazyStart, this.lazyLength);
+        }
+        return this.text;
+    }
+
+    public void setText(String text) {
+        this.checkMutable();
+        this.text = text;
+        if (!(this.lazy instanceof ElementSource)) {
+            this.lazy = null;
+        }
+        this.invalidateHash();
+    }
+
+    public String getAttributeValue(String name) {
+        if (this.attributes == null) {
+            throw new IllegalStateException();
+        } else if (name == null) {
+            throw new IllegalArgumentException();
+        } else {
+            int idx = this.getAttrIdx(name);
+            return idx >= 0 ? this.attributes.get(idx).getValue() : null;
+        }
+    }
+
+    private int getAttrIdx(String name) {
+        if (this.attributes != null) {
+            if (this.attributes.size() > HASHED_ATTRIBUTES) {
+                int[] slots = this.attributeSlots();
+                int mask = slots.length - 1;
+                for (int slot = spread(name.hashCode()) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                    if (this.attributes.get(slots[slot] - 1).getName().equals(name)) {
+                        return slots[slot] - 1;
+                    }
+                }
+                return -1;
+            }
+            for (int i = 0; i < this.attributes.size(); ++i) {
+                if (this.attributes.get(i).getName().equals(name)) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    // rebuilt when attributes were added to or removed from the list, names must not be changed in place
+    private int[] attributeSlots() {
+        int size = this.attributes.size();
+        if (this.attributeSlots == null || this.attributeSlotsSize != size) {
+            int[] slots = new int[Integer.highestOneBit(size) * 4];
+            int mask = slots.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = spread(this.attributes.get(i).getName().hashCode()) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = i + 1;
+            }
+            this.attributeSlots = slots;
+            this.attributeSlotsSize = size;
+        }
+        return this.attributeSlots;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // the list itself, null when the element was built without one, for formats that keep the tree as it is
+    List<Attribute> attributeList() {
+        return this.attributes;
+    }
+
+    public boolean hasAttributes() {
+        return this.attributes != null && !this.attributes.isEmpty();
+    }
+
+    public int getAttributeCount() {
+        return this.attributes.size();
+    }
+
+    public String getAttributeName(int i) {
+        if (this.attributes == null) {
+            throw new IllegalStateException();
+        } else if (i >= 0 && i < this.getAttributeCount()) {
+            return this.attributes.get(i).getName();
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public String getAttributeValue(int i) {
+        if (this.attributes == null) {
+            throw new IllegalStateException();
+        } else if (i >= 0 && i < this.getAttributeCount()) {
+            return this.attributes.get(i).getValue();
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    public void setAttribute(String name, String value) {
+        this.checkMutable();
+        if (this.attributes == null) {
+            throw new IllegalStateException();
+        } else if (name == null || value == null) {
+            throw new IllegalArgumentException();
+        } else {
+            int idx = this.getAttrIdx(name);
+            if (idx >= 0) {
+                String oldValue = this.attributes.get(idx).getValue();
+                // a repeated name is set everywhere, it can only follow the first one
+                for (int i = idx; i < this.attributes.size(); i++) {
+                    Attribute attribute = this.attributes.get(i);
+                    if (attribute.getName().equals(name))
+                        attribute.setValue(value);
+                }
+                this.invalidateHash();
+                IdIndex index = this.getIdIndex();
+                if (index != null && name.equals(index.getAttributeName())) {
+                    index.update(this, oldValue, value);
+                }
+            }
+        }
+    }
+
+
+    public Element getParent() {
+        return parent;
+    }
+
+    public void setParent(Element parent) {
+        this.checkMutable();
+        this.parent = parent;
+    }
+
+    public Element getChild(int idx) {
+        List<Element> children = this.children();
+        if (children != null && idx >= 0 && idx < children.size())
+            return children.get(idx);
+        else throw new NoSuchElementException();
+    }
+
+    public int getDepth() {
+        if (this.parent == null)
+            return 0;
+        else
+            return 1 + parent.getDepth();
+    }
+
+    //    public Element getNextSibling() {
+//        if (this.parent != null) {
+//            Element parent = this.getParent();
+//            int currentIdx = parent.getChildren().indexOf(this);
+//            if (++currentIdx - 1 < parent.getChildren().size())
+//                return parent.getChild(currentIdx);
+//            else
+//                throw new NoSuchElementException();
+//        } else throw new NoSuchElementException();
+//    }
+//
+//    public Node getPreviousSibling() {
+//        return null;
+//    }
+//
+//    public void insertChildBefore(Node newChild, Node child) {
+//
+//    }
+//
+    // the child gets this element as parent, its elements join the ID index of the document
+    public void addChild(Element newChild) {
+        this.checkMutable();
+        newChild.checkMutable();
+        if (this.children() == null)
+            children = new ChildList(this, new ArrayList<>());
+        children.add(newChild);
+        newChild.siblingHint = children.size() - 1;
+        this.attach(newChild);
+        this.invalidateHash();
+    }
+
+    // the child itself is removed, not one equal to it; it is left without a parent
+    public void removeChild(Element child) {
+        this.checkMutable();
+        child.checkMutable();
+        List<Element> children = this.children();
+        for (int i = 0; children != null && i < children.size(); i++) {
+            if (children.get(i) == child) {
+                this.detach(child);
+                children.remove(i);
+                this.invalidateHash();
+                return;
+            }
+        }
+    }
+
+    public void replaceChild(Element newChild, Element oldChild) {
+        this.checkMutable();
+        newChild.checkMutable();
+        oldChild.checkMutable();
+        List<Element> children = this.children();
+        for (int i = 0; children != null && i < children.size(); i++) {
+            if (children.get(i) == oldChild) {
+                this.detach(oldChild);
+                children.set(i, newChild);
+                newChild.siblingHint = i;
+                this.attach(newChild);
+                this.invalidateHash();
+            }
+        }
+    }
+
+    // only a document with an index pays for walking the subtree; the index the child kept as a top is dropped
+    private void attach(Element child) {
+        child.parent = this;
+        if (this.idIndex != null) {
+            this.idIndex.addSubtree(child);
+        } else if (child.idIndex != null) {
+            IdIndex.clearSubtree(child);
+        }
+    }
+
+    // called while the child is still in place, the index finds its elements by their document order
+    private void detach(Element child) {
+        if (this.idIndex != null) {
+            this.idIndex.removeSubtree(child);
+        }
+        if (child.parent == this) {
+            child.parent = null;
+        }
+    }
+
+    // element with the given value of the indexed attribute anywhere in the document, null if there is none
+    public Element getById(String id) {
+        IdIndex index = this.getIdIndex();
+        if (index == null) {
+            throw new IllegalStateException();
+        }
+        return index.get(id);
+    }
+
+    public IdIndex getIdIndex() {
+        return this.idIndex;
+    }
+
+    void setIdIndex(IdIndex idIndex) {
+        this.checkMutable();
+        this.idIndex = idIndex;
+    }
+
+    int getSiblingHint() {
+        return this.siblingHint;
+    }
+
+    void setSiblingHint(int siblingHint) {
+        this.siblingHint = siblingHint;
+    }
+
+    // Makes the subtree read-only: the setters, addChild, removeChild and replaceChild throw
+    // UnsupportedOperationException, the lists of getChildren() cannot be changed, and so cannot the ID index
+    // of a frozen topmost element. Lazy text, attribute values, children and hashes are resolved first, so that
+    // reading the tree writes nothing and threads may share it once it has been safely published.
+    public void freeze() {
+        Deque<Element> elements = new ArrayDeque<>();
+        List<Element> resolved = new ArrayList<>();
+        elements.push(this);
+        while (!elements.isEmpty()) {
+            Element element = elements.pop();
+            if (element.lazy == FROZEN) {
+                continue;
+            }
+            List<Element> children = element.children();
+            element.getText();
+            if (element.attributes != null) {
+                for (Attribute attribute : element.attributes) {
+                    // drops the reference to the input the value was made from
+                    attribute.setValue(attribute.getValue());
+                }
+                if (element.attributes.size() > HASHED_ATTRIBUTES) {
+                    element.attributeSlots();
+                }
+            }
+            if (children != null) {
+                element.children = Collections.unmodifiableList(children);
+                for (Element child : children) {
+                    elements.push(child);
+                }
+            }
+            resolved.add(element);
+        }
+        this.getSubtreeHash();
+        for (Element element : resolved) {
+            element.lazy = FROZEN;
+            if (element.idIndex != null) {
+                element.idIndex.freeze();
+            }
+        }
+    }
+
+    public boolean isFrozen() {
+        return this.lazy == FROZEN;
+    }
+
+    private void checkMutable() {
+        if (this.lazy == FROZEN) {
+            throw new UnsupportedOperationException("element is frozen");
+        }
+    }
+
+    public boolean hasChildren() {
+        return this.lazy instanceof ElementSource || children != null;
+    }
+
+    public List<Element> getChildren() {
+        return this.children();
+    }
+
+    private List<Element> children() {
+        if (this.lazy instanceof ElementSource) {
+            ElementSource source = (ElementSource) this.lazy;
+            this.lazy = null;
+            List<Element> loaded = source.loadChildren(this.lazyStart, this);
+            this.children = loaded != null ? new ChildList(this, loaded) : null;
+            if (this.idIndex != null && this.children != null) {
+                for (Element child : this.children) {
+                    child.idIndex = this.idIndex;
+                }
+            }
+        }
+        return this.children;
+    }
+
+    // Hash of the tag name, attributes, text and children of the whole subtree, not of the parent, for comparing
+    // trees quickly as TreeDiff, equals and hashCode do. It is computed once and kept until the element or one of
+    // its descendants is changed through its own methods, the lists of getChildren() or its Attributes; changes
+    // made through the attribute list or a list given to the Builder are not noticed. Keeping it writes to the
+    // tree, threads sharing an unfrozen tree must not call it concurrently; freeze() computes it up front.
+    public long getSubtreeHash() {
+        if (this.subtreeHash != 0) {
+            return this.subtreeHash;
+        }
+        // an element is hashed once all of its children have hashes, it stays on the stack until then
+        Deque<Element> elements = new ArrayDeque<>();
+        elements.push(this);
+        while (!elements.isEmpty()) {
+            Element element = elements.peek();
+            List<Element> children = element.children();
+            int pending = elements.size();
+            for (int i = children != null ? children.size() - 1 : -1; i >= 0; i--) {
+                if (children.get(i).subtreeHash == 0) {
+                    elements.push(children.get(i));
+                }
+            }
+            if (elements.size() == pending) {
+                elements.pop();
+                element.subtreeHash = element.contentHash(children);
+            }
+        }
+        return this.subtreeHash;
+    }
+
+    // of the element and the hashes of its children; the attributes are told to report changes from now on
+    private long contentHash(List<Element> children) {
+        long hash = mix(HASH_SEED, hash(this.tagName));
+        if (this.attributes != null) {
+            hash = mix(hash, this.attributes.size());
+            for (Attribute attribute : this.attributes) {
+                attribute.setOwner(this);
+                hash = mix(mix(hash, hash(attribute.getName())), hash(attribute.getValue()));
+            }
+        }
+        hash = mix(hash, hash(this.getText()));
+        if (children != null) {
+            hash = mix(hash, children.size());
+            for (Element child : children) {
+                hash = mix(hash, child.subtreeHash);
+            }
+        }
+        return hash != 0 ? hash : 1;
+    }
+
+    // an element without a hash has no ancestor with one, so the walk up stops at the first
+    private void invalidateHash() {
+        for (Element element = this; element != null && element.subtreeHash != 0; element = element.parent) {
+            element.subtreeHash = 0;
+        }
+    }
+
+    // called by an Attribute of the element before its name or value changes
+    void attributeChanged() {
+        this.checkMutable();
+        this.invalidateHash();
+    }
+
+    private static long hash(String s) {
+        if (s == null) {
+            return HASH_SEED;
+        }
+        long hash = s.length();
+        for (int i = 0; i < s.length(); i++) {
+            hash = (hash ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * HASH_SEED;
+        return hash ^ (hash >>> 32);
+    }
+
+    // content equality of the subtrees, the parents are not compared; both subtrees are walked, with no recursion
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Deque<Element> elements = new ArrayDeque<>();
+        elements.push(this);
+        elements.push((Element) o);
+        while (!elements.isEmpty()) {
+            Element other = elements.pop();
+            Element element = elements.pop();
+            if (element == other) {
+                continue;
+            }
+            if (element.subtreeHash != 0 && other.subtreeHash != 0 && element.subtreeHash != other.subtreeHash) {
+                return false;
+            }
+            if (!Objects.equals(element.tagName, other.tagName) ||
+                    !Objects.equals(element.attributes, other.attributes) ||
+                    !Objects.equals(element.getText(), other.getText())) {
+                return false;
+            }
+            List<Element> children = element.children();
+            List<Element> otherChildren = other.children();
+            if (children == null || otherChildren == null) {
+                if (children != otherChildren) {
+                    return false;
+                }
+            } else if (children.size() != otherChildren.size()) {
+                return false;
+            } else {
+                for (int i = 0; i < children.size(); i++) {
+                    elements.push(children.get(i));
+                    elements.push(otherChildren.get(i));
+                }
+            }
+        }
+        return true;
+    }
+
+    // of the content of the subtree, kept as getSubtreeHash() keeps it
+    @Override
+    public int hashCode() {
+        long hash = this.getSubtreeHash();
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "Element{" +
+                "tagName='" + tagName + '\'' +
+                ", attributes=" + attributes +
+                ", children=" + this.children() +
+                ", text='" + this.getText() + '\'' +
+                '}';
+    }
+
+    public static class Builder {
+        private String tagName;
+        private List<Attribute> attributes;
+        private Element parent;
+        private List<Element> children;
+        private String text;
+        private Object textChars;
+        private int textStart;
+        private int textLength;
+        private ElementSource source;
+        private int sourceNode;
+
+        public Builder(String tagName, List<Attribute> attributes, Element parent, List<Element> children, String text) {
+            this.tagName = tagName;
+            this.attributes = attributes;
+            this.parent = parent;
+            this.children = children;
+            this.text = text;
+        }
+
+        public Builder() {
+        }
+
+        public Builder withTagName(String tagName) {
+            this.tagName = tagName;
+            return this;
+        }
+
+        public Builder withAttributes(List<Attribute> attributes) {
+            this.attributes = attributes;
+            return this;
+        }
+
+        public Builder withParent(Element parent) {
+            this.parent = parent;
+            return this;
+        }
+
+        public Builder withChildren(List<Element> children) {
+            this.children = children;
+            return this;
+        }
+
+        public Builder withText(String text) {
+            this.text = text;
+            return this;
+        }
+
+        // the chars are kept, not copied, they must not change
+        public Builder withText(char[] chars, int start, int length) {
+            this.textChars = chars;
+            this.textStart = start;
+            this.textLength = length;
+            return this;
+        }
+
+        // same for text that is all ISO-8859-1, one byte per char
+        public Builder withText(byte[] latin1, int start, int length) {
+            this.textChars = latin1;
+            this.textStart = start;
+            this.textLength = length;
+            return this;
+        }
+
+        // the children of the node are loaded from the source on first access, the source must report
+        // at least one child for the node
+        public Builder withSource(ElementSource source, int node) {
+            this.source = source;
+            this.sourceNode = node;
+            return this;
+        }
+
+        public Element build() {
+            return new Element(this);
+        }
+    }
+
+    // the children as getChildren() hands them out, changes made through it drop the cached hashes
+    private static final class ChildList extends AbstractList<Element> implements RandomAccess {
+        private final Element owner;
+        private final List<Element> elements;
+
+        ChildList(Element owner, List<Element> elements) {
+            this.owner = owner;
+            this.elements = elements;
+        }
+
+        @Override
+        public Element get(int index) {
+            return this.elements.get(index);
+        }
+
+        @Override
+        public int size() {
+            return this.elements.size();
+        }
+
+        @Override
+        public Element set(int index, Element element) {
+            Element old = this.elements.set(index, element);
+            this.owner.invalidateHash();
+            return old;
+        }
+
+        @Override
+        public void add(int index, Element element) {
+            this.elements.add(index, element);
+            this.modCount++;
+            this.owner.invalidateHash();
+        }
+
+        @Override
+        public Element remove(int index) {
+            Element old = this.elements.remove(index);
+            this.modCount++;
+            this.owner.invalidateHash();
+            return old;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            this.elements.subList(fromIndex, toIndex).clear();
+            this.modCount++;
+            this.owner.invalidateHash();
+        }
+    }
+}
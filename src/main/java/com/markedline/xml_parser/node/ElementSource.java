@@ -0,0 +1,10 @@
+package com.markedline.xml_parser.node;
+
+import java.util.List;
+
+// Supplies the children of an Element on first access, for trees kept in another representation
+public interface ElementSource {
+
+    // children of the given node created under the given parent, null if the node has none
+    List<Element> loadChildren(int node, Element parent);
+}
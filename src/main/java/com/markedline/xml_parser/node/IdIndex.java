@@ -0,0 +1,254 @@
+package com.markedline.xml_parser.node;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Elements of a document by the value of one attribute, such as "id". Every element of the document refers to
+// the index, and setAttribute, addChild, removeChild and replaceChild keep it up to date. Changing an Attribute
+// directly bypasses it. A value may repeat, its elements are kept in document order.
+// The index of a frozen tree is frozen with it.
+public final class IdIndex {
+    private final String attributeName;
+    private final Map<String, List<Element>> elements = new HashMap<>();
+    private boolean frozen;
+
+    public IdIndex(String attributeName) {
+        this.attributeName = attributeName;
+    }
+
+    // index of the elements of the tree, referred to by the whole document of the tree
+    public static IdIndex build(Element root, String attributeName) {
+        IdIndex index = new IdIndex(attributeName);
+        // walked in document order, each element goes to the end of its list
+        Deque<Element> elements = new ArrayDeque<>();
+        elements.push(root);
+        while (!elements.isEmpty()) {
+            Element element = elements.pop();
+            index.add(element);
+            if (element.hasChildren()) {
+                List<Element> children = element.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    elements.push(children.get(i));
+                }
+            }
+        }
+        index.attach(root);
+        return index;
+    }
+
+    public String getAttributeName() {
+        return this.attributeName;
+    }
+
+    // the earliest indexed element with the value, null if there is none
+    public Element get(String value) {
+        List<Element> list = this.elements.get(value);
+        return list != null ? list.get(0) : null;
+    }
+
+    public List<Element> getAll(String value) {
+        return Collections.unmodifiableList(this.elements.getOrDefault(value, Collections.emptyList()));
+    }
+
+    // indexes the element alone, for trees that are built top down
+    public void add(Element element) {
+        this.checkMutable();
+        String value = this.valueOf(element);
+        if (value != null) {
+            this.elements.computeIfAbsent(value, key -> new ArrayList<>(1)).add(element);
+        }
+    }
+
+    // makes every element of the document of the element refer to this index, once the document is built
+    public void attach(Element element) {
+        this.checkMutable();
+        Element top = element;
+        while (top.getParent() != null) {
+            top = top.getParent();
+        }
+        Deque<Element> elements = new ArrayDeque<>();
+        elements.push(top);
+        while (!elements.isEmpty()) {
+            Element next = elements.pop();
+            next.setIdIndex(this);
+            if (next.hasChildren()) {
+                for (Element child : next.getChildren()) {
+                    elements.push(child);
+                }
+            }
+        }
+    }
+
+    void freeze() {
+        this.frozen = true;
+    }
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("index is frozen");
+        }
+    }
+
+    // the subtree is walked in document order, its elements are placed among the ones already indexed
+    void addSubtree(Element root) {
+        this.checkMutable();
+        Deque<Element> elements = new ArrayDeque<>();
+        elements.push(root);
+        while (!elements.isEmpty()) {
+            Element element = elements.pop();
+            String value = this.valueOf(element);
+            if (value != null) {
+                this.insert(element, value);
+            }
+            element.setIdIndex(this);
+            if (element.hasChildren()) {
+                List<Element> children = element.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    elements.push(children.get(i));
+                }
+            }
+        }
+    }
+
+    void removeSubtree(Element root) {
+        Deque<Element> elements = new ArrayDeque<>();
+        elements.push(root);
+        while (!elements.isEmpty()) {
+            Element element = elements.pop();
+            String value = this.valueOf(element);
+            if (value != null) {
+                this.remove(element, value);
+            }
+            element.setIdIndex(null);
+            if (element.hasChildren()) {
+                for (Element child : element.getChildren()) {
+                    elements.push(child);
+                }
+            }
+        }
+    }
+
+    // drops the references to an index from a subtree that leaves its document
+    static void clearSubtree(Element root) {
+        Deque<Element> elements = new ArrayDeque<>();
+        elements.push(root);
+        while (!elements.isEmpty()) {
+            Element element = elements.pop();
+            element.setIdIndex(null);
+            if (element.hasChildren()) {
+                for (Element child : element.getChildren()) {
+                    elements.push(child);
+                }
+            }
+        }
+    }
+
+    void update(Element element, String oldValue, String newValue) {
+        this.remove(element, oldValue);
+        this.insert(element, newValue);
+    }
+
+    // keeps the elements with the value in document order
+    private void insert(Element element, String value) {
+        List<Element> list = this.elements.computeIfAbsent(value, key -> new ArrayList<>(1));
+        int i = search(list, element);
+        list.add(i < 0 ? -i - 1 : i, element);
+    }
+
+    // position of the element in the list, or -(insertion point) - 1 if it is not there
+    private static int search(List<Element> list, Element element) {
+        int low = 0;
+        int high = list.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Element other = list.get(mid);
+            if (other == element) {
+                return mid;
+            } else if (precedes(other, element)) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -low - 1;
+    }
+
+    // whether a comes before b in document order, an ancestor coming before its descendants
+    private static boolean precedes(Element a, Element b) {
+        int depthA = depth(a);
+        int depthB = depth(b);
+        Element x = a;
+        Element y = b;
+        for (; depthA > depthB; depthA--) {
+            x = x.getParent();
+        }
+        for (; depthB > depthA; depthB--) {
+            y = y.getParent();
+        }
+        if (x == y) {
+            return x == a && a != b;
+        }
+        while (x.getParent() != y.getParent()) {
+            x = x.getParent();
+            y = y.getParent();
+        }
+        Element parent = x.getParent();
+        return parent != null && precedesSibling(parent.getChildren(), x, y);
+    }
+
+    private static int depth(Element element) {
+        int depth = 0;
+        for (Element e = element.getParent(); e != null; e = e.getParent()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static boolean precedesSibling(List<Element> children, Element x, Element y) {
+        return position(children, x) < position(children, y);
+    }
+
+    // looks outward from where the element was last seen, so a lookup costs how far edits have shifted it
+    private static int position(List<Element> children, Element element) {
+        int size = children.size();
+        int hint = Math.min(element.getSiblingHint(), size - 1);
+        for (int d = 0; hint - d >= 0 || hint + d < size; d++) {
+            int i = hint + d;
+            if (i >= size || children.get(i) != element) {
+                i = hint - d;
+                if (i < 0 || children.get(i) != element) {
+                    continue;
+                }
+            }
+            element.setSiblingHint(i);
+            return i;
+        }
+        return size;
+    }
+
+    // the list is out of document order if the tree was changed past the mutators, then it is scanned
+    private void remove(Element element, String value) {
+        List<Element> list = this.elements.get(value);
+        if (list != null) {
+            int i = search(list, element);
+            if (i < 0) {
+                i = list.indexOf(element);
+            }
+            if (i >= 0) {
+                list.remove(i);
+            }
+            if (list.isEmpty()) {
+                this.elements.remove(value);
+            }
+        }
+    }
+
+    private String valueOf(Element element) {
+        return element.hasAttributes() ? element.getAttributeValue(this.attributeName) : null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.markedline.xml_parser.node;
+
+import java.nio.charset.StandardCharsets;
+
+// Texts and attribute values of a retained input, kept as a char[] or, when the input is all ISO-8859-1, as a byte[]
+// that takes half the memory
+final class LazyText {
+
+    private LazyText() {
+    }
+
+    static String toString(Object chars, int start, int length) {
+        if (chars instanceof byte[]) {
+            return new String((byte[]) chars, start, length, StandardCharsets.ISO_8859_1);
+        }
+        return new String((char[]) chars, start, length);
+    }
+}
@@ -0,0 +1,526 @@
+package com.markedline.xml_parser.node;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Element tree in a binary file that is mapped instead of parsed. After a fixed header the nodes follow in document
+// order, then the string table, then the string pool:
+//   header   magic "XMLS", version u16, reserved u16, node count, table size, table offset, pool offset,
+//            file length, root offset (all ints, big endian)
+//   node     flags byte; with CHILDREN a varint child count and the int offset after the subtree; with TAG the
+//            tag name; with TEXT the text; with ATTRIBUTES a varint count and a name and value per attribute.
+//            The children follow their parent. Strings are varints: table index times 2, or pool offset times 2
+//            plus 1.
+//   table    an int pool offset per string
+//   pool     varint char count, varint byte count, the chars one by one in 1 to 3 bytes (UTF-8, but surrogates
+//            are written alone so that any String comes back as it was)
+// Names and short strings go in the table, once each; they are decoded once per snapshot and shared by the trees
+// read from it. Nodes keep whether their attribute and child lists were null, so the trees read back are equal to
+// the ones written. Nodes are numbered by their offset in the file; a snapshot may be navigated through them
+// without creating Elements, and threads may share it.
+public final class Snapshot {
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x584D4C53;
+    private static final int HEADER_LENGTH = 32;
+    private static final int TAG = 1;
+    private static final int TEXT = 2;
+    private static final int ATTRIBUTES = 4;
+    private static final int CHILDREN = 8;
+    // strings up to this length go in the table
+    private static final int SHARED_STRING_LENGTH = 32;
+
+    private final ByteBuffer buffer;
+    private final int root;
+    private final int nodeCount;
+    private final int tableOffset;
+    private final int poolOffset;
+    // strings of the table decoded so far; racing threads may both decode one, Strings are safe to publish
+    private final String[] table;
+
+    private Snapshot(ByteBuffer buffer) throws SnapshotFormatException {
+        if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC) {
+            throw new SnapshotFormatException("not a snapshot");
+        }
+        int version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new SnapshotFormatException("unsupported snapshot version " + version + ", expected " + VERSION);
+        }
+        if (buffer.getInt(24) != buffer.limit()) {
+            throw new SnapshotFormatException("snapshot of " + buffer.getInt(24) + " bytes has " + buffer.limit());
+        }
+        this.buffer = buffer;
+        this.nodeCount = buffer.getInt(8);
+        int tableSize = buffer.getInt(12);
+        this.tableOffset = buffer.getInt(16);
+        this.poolOffset = buffer.getInt(20);
+        this.root = buffer.getInt(28);
+        if (this.root < HEADER_LENGTH || this.tableOffset < this.root || tableSize < 0 ||
+                this.tableOffset + 4L * tableSize != this.poolOffset || this.poolOffset > buffer.limit()) {
+            throw new SnapshotFormatException("snapshot sections out of bounds");
+        }
+        this.table = new String[tableSize];
+    }
+
+    // maps the file, which must not change while the snapshot is used
+    public static Snapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new SnapshotFormatException("snapshot of " + channel.size() + " bytes");
+            }
+            return new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // the bytes from index 0 up to the limit of the buffer
+    public static Snapshot wrap(ByteBuffer buffer) throws SnapshotFormatException {
+        return new Snapshot(buffer.duplicate().order(ByteOrder.BIG_ENDIAN));
+    }
+
+    public static void write(Element root, Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(root, out);
+        }
+    }
+
+    public static void write(Element root, OutputStream out) throws IOException {
+        new Writer().write(root, out);
+    }
+
+    public int getRoot() {
+        return this.root;
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    // null for text nodes
+    public String getTagName(int node) {
+        int flags = this.buffer.get(node);
+        return (flags & TAG) != 0 ? this.string(this.varint(this.tagPosition(node, flags))) : null;
+    }
+
+    // null for element nodes
+    public String getText(int node) {
+        int flags = this.buffer.get(node);
+        if ((flags & TEXT) == 0) {
+            return null;
+        }
+        int position = this.tagPosition(node, flags);
+        if ((flags & TAG) != 0) {
+            position = this.skip(position);
+        }
+        return this.string(this.varint(position));
+    }
+
+    public int getAttributeCount(int node) {
+        int position = this.attributesPosition(node);
+        return position != 0 ? this.varint(position) : 0;
+    }
+
+    public String getAttributeName(int node, int i) {
+        return this.string(this.varint(this.attributePosition(node, i)));
+    }
+
+    public String getAttributeValue(int node, int i) {
+        return this.string(this.varint(this.skip(this.attributePosition(node, i))));
+    }
+
+    public String getAttributeValue(int node, String name) {
+        for (int i = 0; i < this.getAttributeCount(node); i++) {
+            if (this.getAttributeName(node, i).equals(name)) {
+                return this.getAttributeValue(node, i);
+            }
+        }
+        return null;
+    }
+
+    public int getChildCount(int node) {
+        return (this.buffer.get(node) & CHILDREN) != 0 ? this.varint(node + 1) : 0;
+    }
+
+    public int[] getChildren(int node) {
+        int[] children = new int[this.getChildCount(node)];
+        int child = this.contentEnd(node);
+        for (int i = 0; i < children.length; i++) {
+            children[i] = child;
+            child = this.end(child);
+        }
+        return children;
+    }
+
+    // Element tree of the snapshot, children are created one level at a time as they are first visited
+    public Element asElement() {
+        return this.element(this.root, null, true);
+    }
+
+    // the whole Element tree at once, in one pass over the nodes
+    public Element toElement() {
+        // where the fields of the node last read end and how many children it has
+        int[] content = new int[2];
+        Element root = this.element(this.root, null, false, content);
+        Deque<Element> parents = new ArrayDeque<>();
+        Deque<int[]> remaining = new ArrayDeque<>();
+        if (content[1] > 0) {
+            parents.push(root);
+            remaining.push(new int[]{content[1]});
+        }
+        while (!parents.isEmpty()) {
+            Element parent = parents.peek();
+            Element element = this.element(content[0], parent, false, content);
+            parent.getChildren().add(element);
+            if (--remaining.peek()[0] == 0) {
+                parents.pop();
+                remaining.pop();
+            }
+            if (content[1] > 0) {
+                parents.push(element);
+                remaining.push(new int[]{content[1]});
+            }
+        }
+        return root;
+    }
+
+    private Element element(int node, Element parent, boolean lazy) {
+        return this.element(node, parent, lazy, null);
+    }
+
+    // the node with its attributes and text; its children come from the snapshot when lazy, else the list is
+    // left empty for the caller to fill
+    private Element element(int node, Element parent, boolean lazy, int[] content) {
+        int flags = this.buffer.get(node);
+        Element.Builder builder = new Element.Builder().withParent(parent);
+        int children = 0;
+        int position = node + 1;
+        if ((flags & CHILDREN) != 0) {
+            children = this.varint(position);
+            position = this.skip(position) + 4;
+        }
+        if ((flags & TAG) != 0) {
+            builder.withTagName(this.string(this.varint(position)));
+            position = this.skip(position);
+        }
+        if ((flags & TEXT) != 0) {
+            builder.withText(this.string(this.varint(position)));
+            position = this.skip(position);
+        }
+        if ((flags & ATTRIBUTES) != 0) {
+            int count = this.varint(position);
+            position = this.skip(position);
+            List<Attribute> attributes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = this.string(this.varint(position));
+                position = this.skip(position);
+                attributes.add(new Attribute(name, this.string(this.varint(position))));
+                position = this.skip(position);
+            }
+            builder.withAttributes(attributes);
+        }
+        if ((flags & CHILDREN) != 0) {
+            if (lazy && children > 0) {
+                builder.withSource(this::children, node);
+            } else {
+                builder.withChildren(new ArrayList<>(children));
+            }
+        }
+        if (content != null) {
+            content[0] = position;
+            content[1] = children;
+        }
+        return builder.build();
+    }
+
+    private List<Element> children(int node, Element parent) {
+        int[] children = this.getChildren(node);
+        List<Element> elements = new ArrayList<>(children.length);
+        for (int child : children) {
+            elements.add(this.element(child, parent, true));
+        }
+        return elements;
+    }
+
+    // position of the tag name, or of what follows when there is none
+    private int tagPosition(int node, int flags) {
+        return (flags & CHILDREN) != 0 ? this.skip(node + 1) + 4 : node + 1;
+    }
+
+    // position of the attribute count, 0 when the node has no attribute list
+    private int attributesPosition(int node) {
+        int flags = this.buffer.get(node);
+        if ((flags & ATTRIBUTES) == 0) {
+            return 0;
+        }
+        int position = this.tagPosition(node, flags);
+        if ((flags & TAG) != 0) {
+            position = this.skip(position);
+        }
+        if ((flags & TEXT) != 0) {
+            position = this.skip(position);
+        }
+        return position;
+    }
+
+    private int attributePosition(int node, int i) {
+        int position = this.attributesPosition(node);
+        if (position == 0 || i < 0 || i >= this.varint(position)) {
+            throw new IllegalArgumentException();
+        }
+        position = this.skip(position);
+        for (int j = 0; j < 2 * i; j++) {
+            position = this.skip(position);
+        }
+        return position;
+    }
+
+    // position after the fields of the node, where its first child is
+    private int contentEnd(int node) {
+        int position = this.attributesPosition(node);
+        if (position != 0) {
+            int count = this.varint(position);
+            position = this.skip(position);
+            for (int j = 0; j < 2 * count; j++) {
+                position = this.skip(position);
+            }
+            return position;
+        }
+        int flags = this.buffer.get(node);
+        position = this.tagPosition(node, flags);
+        if ((flags & TAG) != 0) {
+            position = this.skip(position);
+        }
+        if ((flags & TEXT) != 0) {
+            position = this.skip(position);
+        }
+        return position;
+    }
+
+    // position after the subtree of the node
+    private int end(int node) {
+        return (this.buffer.get(node) & CHILDREN) != 0
+                ? this.buffer.getInt(this.skip(node + 1))
+                : this.contentEnd(node);
+    }
+
+    private int varint(int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = this.buffer.get(position++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    // position after the varint at the position
+    private int skip(int position) {
+        while (this.buffer.get(position++) < 0) {
+        }
+        return position;
+    }
+
+    private String string(int ref) {
+        if ((ref & 1) != 0) {
+            return this.decode(ref >>> 1);
+        }
+        String s = this.table[ref >>> 1];
+        if (s == null) {
+            s = this.decode(this.buffer.getInt(this.tableOffset + 4 * (ref >>> 1)));
+            this.table[ref >>> 1] = s;
+        }
+        return s;
+    }
+
+    private String decode(int offset) {
+        int position = this.poolOffset + offset;
+        int length = this.varint(position);
+        position = this.skip(position);
+        int byteLength = this.varint(position);
+        position = this.skip(position);
+        byte[] bytes = new byte[byteLength];
+        this.buffer.get(position, bytes);
+        if (byteLength == length) {
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[length];
+        for (int i = 0, j = 0; i < length; i++) {
+            int b = bytes[j++];
+            if (b >= 0) {
+                chars[i] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[i] = (char) ((b & 0x1F) << 6 | bytes[j++] & 0x3F);
+            } else {
+                chars[i] = (char) ((b & 0x0F) << 12 | (bytes[j++] & 0x3F) << 6 | bytes[j++] & 0x3F);
+            }
+        }
+        return new String(chars);
+    }
+
+    // Lays the nodes out in one buffer and the strings in another while walking the tree once,
+    // the offset after a subtree is filled in when the walk leaves it
+    private static final class Writer {
+        private final Bytes nodes = new Bytes();
+        private final Bytes pool = new Bytes();
+        // pool offsets of the table strings, by index
+        private final List<Integer> table = new ArrayList<>();
+        private final Map<String, Integer> tableIndex = new HashMap<>();
+        private int nodeCount;
+
+        void write(Element root, OutputStream out) throws IOException {
+            Deque<Element> parents = new ArrayDeque<>();
+            Deque<int[]> state = new ArrayDeque<>();
+            this.node(root, parents, state);
+            while (!parents.isEmpty()) {
+                // the next child to write and where the end of the parent goes
+                int[] next = state.peek();
+                List<Element> children = parents.peek().getChildren();
+                if (next[0] < children.size()) {
+                    this.node(children.get(next[0]++), parents, state);
+                } else {
+                    this.nodes.setInt(next[1], HEADER_LENGTH + this.nodes.length);
+                    parents.pop();
+                    state.pop();
+                }
+            }
+
+            long tableOffset = HEADER_LENGTH + (long) this.nodes.length;
+            long poolOffset = tableOffset + 4L * this.table.size();
+            long length = poolOffset + this.pool.length;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("tree too large for a snapshot: " + length + " bytes");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0).
+                    putInt(this.nodeCount).putInt(this.table.size()).
+                    putInt((int) tableOffset).putInt((int) poolOffset).putInt((int) length).
+                    putInt(HEADER_LENGTH);
+            out.write(header.array());
+            out.write(this.nodes.bytes, 0, this.nodes.length);
+            ByteBuffer table = ByteBuffer.allocate(4 * this.table.size());
+            for (int offset : this.table) {
+                table.putInt(offset);
+            }
+            out.write(table.array());
+            out.write(this.pool.bytes, 0, this.pool.length);
+        }
+
+        private void node(Element element, Deque<Element> parents, Deque<int[]> state) {
+            String tagName = element.getTagName();
+            String text = element.getText();
+            List<Attribute> attributes = element.attributeList();
+            List<Element> children = element.getChildren();
+            this.nodes.put((tagName != null ? TAG : 0) | (text != null ? TEXT : 0) |
+                    (attributes != null ? ATTRIBUTES : 0) | (children != null ? CHILDREN : 0));
+            if (children != null) {
+                this.nodes.putVarint(children.size());
+                parents.push(element);
+                state.push(new int[]{0, this.nodes.length});
+                this.nodes.putInt(0);
+            }
+            if (tagName != null) {
+                this.nodes.putVarint(this.name(tagName));
+            }
+            if (text != null) {
+                this.nodes.putVarint(this.string(text));
+            }
+            if (attributes != null) {
+                this.nodes.putVarint(attributes.size());
+                for (Attribute attribute : attributes) {
+                    this.nodes.putVarint(this.name(attribute.getName()));
+                    this.nodes.putVarint(this.string(attribute.getValue()));
+                }
+            }
+            this.nodeCount++;
+        }
+
+        // reference to the string in the table
+        private int name(String s) {
+            Integer index = this.tableIndex.get(s);
+            if (index == null) {
+                index = this.table.size();
+                this.table.add(this.append(s));
+                this.tableIndex.put(s, index);
+            }
+            return index << 1;
+        }
+
+        private int string(String s) {
+            return s.length() <= SHARED_STRING_LENGTH ? this.name(s) : this.append(s) << 1 | 1;
+        }
+
+        // pool offset of the string
+        private int append(String s) {
+            int offset = this.pool.length;
+            int length = s.length();
+            int byteLength = 0;
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                byteLength += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            }
+            this.pool.putVarint(length);
+            this.pool.putVarint(byteLength);
+            for (int i = 0; i < length; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    this.pool.put(c);
+                } else if (c < 0x800) {
+                    this.pool.put(0xC0 | c >> 6);
+                    this.pool.put(0x80 | c & 0x3F);
+                } else {
+                    this.pool.put(0xE0 | c >> 12);
+                    this.pool.put(0x80 | c >> 6 & 0x3F);
+                    this.pool.put(0x80 | c & 0x3F);
+                }
+            }
+            return offset;
+        }
+    }
+
+    private static final class Bytes {
+        private byte[] bytes = new byte[8192];
+        private int length;
+
+        void put(int b) {
+            if (this.length == this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, this.length * 2);
+            }
+            this.bytes[this.length++] = (byte) b;
+        }
+
+        void putVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                this.put(value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            this.put(value);
+        }
+
+        void putInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                this.put(value >>> shift);
+            }
+        }
+
+        void setInt(int position, int value) {
+            for (int i = 0; i < 4; i++) {
+                this.bytes[position + i] = (byte) (value >>> 24 - 8 * i);
+            }
+        }
+    }
+}
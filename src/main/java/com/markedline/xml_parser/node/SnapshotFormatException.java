@@ -0,0 +1,11 @@
+package com.markedline.xml_parser.node;
+
+import java.io.IOException;
+
+// The bytes are not a Snapshot this version can read
+public class SnapshotFormatException extends IOException {
+
+    public SnapshotFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,185 @@
+package com.markedline.xml_parser.util.batch;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.Parser;
+import com.markedline.xml_parser.util.parser.ParserConfig;
+import com.markedline.xml_parser.util.parser.ParserFactory;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+// Parses many files concurrently, never more than the parallelism at a time, so only that many trees and files are
+// held however long the batch is. Results reach the consumer on the calling thread as the files complete. A file
+// that cannot be read or parsed becomes a failed result and the batch goes on; a file still running after the
+// timeout is cancelled and fails with a TimeoutException, its slot goes to the next file.
+public final class BatchParser {
+    private final Parser parser;
+    private final int parallelism;
+    private final Duration timeout;
+    private final boolean virtualThreads;
+
+    private BatchParser(Builder builder) {
+        this.parser = builder.parser;
+        this.parallelism = builder.parallelism;
+        this.timeout = builder.timeout;
+        this.virtualThreads = builder.virtualThreads;
+    }
+
+    public BatchReport parse(Iterable<Path> files, Consumer<FileResult> results) throws InterruptedException {
+        BatchReport report = new BatchReport();
+        long start = System.nanoTime();
+        ExecutorService executor = this.createExecutor();
+        CompletionService<FileResult> completion = new ExecutorCompletionService<>(executor);
+        // files in flight in the order they started, so the first one is the next to time out
+        Map<Future<FileResult>, Running> running = new LinkedHashMap<>();
+        Iterator<Path> next = files.iterator();
+        try {
+            while (true) {
+                while (running.size() < this.parallelism && next.hasNext()) {
+                    Path file = next.next();
+                    running.put(completion.submit(() -> this.parseFile(file)), new Running(file, System.nanoTime()));
+                }
+                if (running.isEmpty()) {
+                    break;
+                }
+
+                FileResult result = this.nextResult(completion, running);
+                if (result != null) {
+                    report.add(result);
+                    results.accept(result);
+                }
+            }
+        } finally {
+            // threads stuck in cancelled files are daemons and do not hold the JVM
+            executor.shutdownNow();
+        }
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+
+    // the next file to complete or time out, null for a file that completed after it was cancelled
+    private FileResult nextResult(CompletionService<FileResult> completion, Map<Future<FileResult>, Running> running)
+            throws InterruptedException {
+        Future<FileResult> done;
+        if (this.timeout == null) {
+            done = completion.take();
+        } else {
+            Map.Entry<Future<FileResult>, Running> oldest = running.entrySet().iterator().next();
+            long elapsed = System.nanoTime() - oldest.getValue().start;
+            done = completion.poll(this.timeout.toNanos() - elapsed, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                oldest.getKey().cancel(true);
+                running.remove(oldest.getKey());
+                return FileResult.failed(oldest.getValue().file,
+                        new TimeoutException("not parsed in " + this.timeout.toMillis() + "ms"),
+                        System.nanoTime() - oldest.getValue().start);
+            }
+        }
+
+        Running file = running.remove(done);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            return FileResult.failed(file.file, e.getCause(), System.nanoTime() - file.start);
+        }
+    }
+
+    private FileResult parseFile(Path file) {
+        long start = System.nanoTime();
+        try {
+            long bytes = Files.size(file);
+            Element root = this.parser.parse(file);
+            return FileResult.parsed(file, root, bytes, System.nanoTime() - start);
+        } catch (IOException | XMLException | RuntimeException | StackOverflowError e) {
+            return FileResult.failed(file, e, System.nanoTime() - start);
+        }
+    }
+
+    // The parallelism is kept by the batch, not by the executor: a thread stuck in a cancelled file must not take a
+    // slot from the files after it. Virtual threads are used when the JDK has them (21 and later).
+    private ExecutorService createExecutor() {
+        if (this.virtualThreads) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // platform threads below
+            }
+        }
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "batch-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Running {
+        private final Path file;
+        private final long start;
+
+        private Running(Path file, long start) {
+            this.file = file;
+            this.start = start;
+        }
+    }
+
+    public static class Builder {
+        private Parser parser;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private Duration timeout;
+        private boolean virtualThreads = true;
+
+        // must be safe to share by threads, a session parser by default
+        public Builder withParser(Parser parser) {
+            this.parser = parser;
+            return this;
+        }
+
+        // most files parsed at a time
+        public Builder withParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        // longest time a file may take, none by default
+        public Builder withTimeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        // platform threads are used when false or when the JDK has no virtual threads
+        public Builder withVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public BatchParser build() {
+            if (this.parser == null) {
+                this.parser = ParserFactory.createSessionParser(ParserConfig.DEFAULT);
+            }
+            return new BatchParser(this);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.markedline.xml_parser.util.batch;
+
+// Totals of a batch, throughput is measured over the wall-clock time of the whole batch
+public final class BatchReport {
+    private int files;
+    private int failed;
+    private long bytes;
+    private long elapsedNanos;
+
+    void add(FileResult result) {
+        this.files++;
+        if (result.isFailed()) {
+            this.failed++;
+        }
+        this.bytes += result.getBytes();
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getFiles() {
+        return this.files;
+    }
+
+    public int getFailed() {
+        return this.failed;
+    }
+
+    // bytes of the parsed files
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    public double getFilesPerSecond() {
+        return this.elapsedNanos > 0 ? this.files * 1e9 / this.elapsedNanos : 0;
+    }
+
+    public double getMegabytesPerSecond() {
+        return this.elapsedNanos > 0 ? this.bytes * 1e9 / this.elapsedNanos / (1 << 20) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d files (%d failed), %.1f MB in %.3fsec: %.1f files/sec, %.1f MB/sec",
+                this.files, this.failed, this.bytes / (double) (1 << 20), this.elapsedNanos / 1e9,
+                this.getFilesPerSecond(), this.getMegabytesPerSecond());
+    }
+}
@@ -0,0 +1,61 @@
+package com.markedline.xml_parser.util.batch;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Expands the arguments of a batch into files: a directory stands for the .xml files anywhere below it, a glob
+// pattern (data/**/*.xml) for the files it matches below its first part without wildcards, anything else for
+// itself. Files of one argument come sorted, a file named twice is kept once.
+public final class FilePatterns {
+    private static final String GLOB_CHARS = "*?[{";
+
+    private FilePatterns() {
+    }
+
+    public static List<Path> expand(List<String> patterns) throws IOException {
+        Set<Path> files = new LinkedHashSet<>();
+        for (String pattern : patterns) {
+            int wildcard = firstWildcard(pattern);
+            if (wildcard >= 0) {
+                int separator = Math.max(pattern.lastIndexOf('/', wildcard), pattern.lastIndexOf('\\', wildcard));
+                Path base = Paths.get(separator >= 0 ? pattern.substring(0, separator + 1) : "");
+                files.addAll(walk(base, FileSystems.getDefault().getPathMatcher("glob:" + pattern)));
+            } else if (Files.isDirectory(Paths.get(pattern))) {
+                files.addAll(walk(Paths.get(pattern), path -> path.toString().endsWith(".xml")));
+            } else {
+                files.add(Paths.get(pattern));
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static int firstWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (GLOB_CHARS.indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Path> walk(Path base, PathMatcher matcher) throws IOException {
+        if (!Files.isDirectory(base)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(base)) {
+            return paths.filter(path -> Files.isRegularFile(path) && matcher.matches(path)).
+                    sorted().
+                    collect(Collectors.toList());
+        }
+    }
+}
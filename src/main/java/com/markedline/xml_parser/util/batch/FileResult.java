@@ -0,0 +1,66 @@
+package com.markedline.xml_parser.util.batch;
+
+import com.markedline.xml_parser.node.Element;
+
+import java.nio.file.Path;
+
+// Outcome of one file of a batch: its tree, or the error that stopped reading or parsing it
+public final class FileResult {
+    private final Path path;
+    private final Element root;
+    private final Throwable error;
+    private final long bytes;
+    private final long nanos;
+
+    private FileResult(Path path, Element root, Throwable error, long bytes, long nanos) {
+        this.path = path;
+        this.root = root;
+        this.error = error;
+        this.bytes = bytes;
+        this.nanos = nanos;
+    }
+
+    static FileResult parsed(Path path, Element root, long bytes, long nanos) {
+        return new FileResult(path, root, null, bytes, nanos);
+    }
+
+    static FileResult failed(Path path, Throwable error, long nanos) {
+        return new FileResult(path, null, error, 0, nanos);
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    // null if the file failed
+    public Element getRoot() {
+        return this.root;
+    }
+
+    // null if the file was parsed
+    public Throwable getError() {
+        return this.error;
+    }
+
+    public boolean isFailed() {
+        return this.error != null;
+    }
+
+    // size of a parsed file, 0 for a failed one
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    @Override
+    public String toString() {
+        String time = String.format("%.3fms", this.nanos / 1e6);
+        if (this.isFailed()) {
+            return "FAILED " + this.path + " " + time + ": " + this.error;
+        }
+        return "OK " + this.path + " " + this.bytes + " bytes " + time;
+    }
+}
@@ -0,0 +1,43 @@
+package com.markedline.xml_parser.util.diff;
+
+import com.markedline.xml_parser.node.Element;
+
+// One change between two versions of a tree. Elements that are only in the new tree are INSERTED, those only in
+// the old one DELETED. UPDATED pairs elements whose own tag name is the same but whose attributes or text are not,
+// changes further down are reported separately. MOVED pairs equal subtrees found in another order.
+public final class Difference {
+    public enum Type {
+        INSERTED, DELETED, UPDATED, MOVED
+    }
+
+    private final Type type;
+    private final Element oldElement;
+    private final Element newElement;
+
+    Difference(Type type, Element oldElement, Element newElement) {
+        this.type = type;
+        this.oldElement = oldElement;
+        this.newElement = newElement;
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    // null for INSERTED
+    public Element getOldElement() {
+        return this.oldElement;
+    }
+
+    // null for DELETED
+    public Element getNewElement() {
+        return this.newElement;
+    }
+
+    @Override
+    public String toString() {
+        Element element = this.newElement != null ? this.newElement : this.oldElement;
+        return this.type + " " + (element.getTagName() != null ? "<" + element.getTagName() + ">" :
+                "'" + element.getText() + "'");
+    }
+}
@@ -0,0 +1,146 @@
+package com.markedline.xml_parser.util.diff;
+
+import com.markedline.xml_parser.node.Element;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Structural diff of two Element trees. Subtrees with the same Element.getSubtreeHash() are taken as equal without
+// being walked, so after the first diff only the changed paths of a tree are visited again. Children are aligned
+// by cutting the equal ones off both ends, then matching the rest by hash; what is left is paired in order by tag
+// name, preferring the same attributes, and compared further down.
+public final class TreeDiff {
+
+    private TreeDiff() {
+    }
+
+    // the differences found top down, empty when the trees are equal
+    public static List<Difference> diff(Element oldRoot, Element newRoot) {
+        List<Difference> differences = new ArrayList<>();
+        if (oldRoot.getSubtreeHash() == newRoot.getSubtreeHash()) {
+            return differences;
+        }
+        if (sameKind(oldRoot, newRoot)) {
+            compare(oldRoot, newRoot, differences);
+        } else {
+            differences.add(new Difference(Difference.Type.DELETED, oldRoot, null));
+            differences.add(new Difference(Difference.Type.INSERTED, null, newRoot));
+        }
+        return differences;
+    }
+
+    // elements of the same kind and tag name whose subtrees differ
+    private static void compare(Element oldElement, Element newElement, List<Difference> differences) {
+        if (!sameAttributes(oldElement, newElement) || !Objects.equals(oldElement.getText(), newElement.getText())) {
+            differences.add(new Difference(Difference.Type.UPDATED, oldElement, newElement));
+        }
+
+        List<Element> oldChildren = childrenOf(oldElement);
+        List<Element> newChildren = childrenOf(newElement);
+        int start = 0;
+        int oldEnd = oldChildren.size();
+        int newEnd = newChildren.size();
+        while (start < oldEnd && start < newEnd && sameHash(oldChildren.get(start), newChildren.get(start))) {
+            start++;
+        }
+        while (oldEnd > start && newEnd > start && sameHash(oldChildren.get(oldEnd - 1), newChildren.get(newEnd - 1))) {
+            oldEnd--;
+            newEnd--;
+        }
+
+        // equal subtrees in the middle, a match before the last one found means the subtree was moved
+        Map<Long, ArrayDeque<Integer>> oldByHash = new HashMap<>();
+        for (int i = start; i < oldEnd; i++) {
+            oldByHash.computeIfAbsent(oldChildren.get(i).getSubtreeHash(), hash -> new ArrayDeque<>()).add(i);
+        }
+        boolean[] oldMatched = new boolean[oldEnd - start];
+        List<Element> newLeft = new ArrayList<>();
+        int lastMatch = -1;
+        for (int i = start; i < newEnd; i++) {
+            Element newChild = newChildren.get(i);
+            ArrayDeque<Integer> candidates = oldByHash.get(newChild.getSubtreeHash());
+            Integer match = candidates != null ? candidates.poll() : null;
+            if (match == null) {
+                newLeft.add(newChild);
+                continue;
+            }
+            oldMatched[match - start] = true;
+            if (match < lastMatch) {
+                differences.add(new Difference(Difference.Type.MOVED, oldChildren.get(match), newChild));
+            } else {
+                lastMatch = match;
+            }
+        }
+        List<Element> oldLeft = new ArrayList<>();
+        for (int i = start; i < oldEnd; i++) {
+            if (!oldMatched[i - start]) {
+                oldLeft.add(oldChildren.get(i));
+            }
+        }
+
+        int next = 0;
+        for (Element newChild : newLeft) {
+            int pair = pairOf(newChild, oldLeft, next);
+            if (pair < 0) {
+                differences.add(new Difference(Difference.Type.INSERTED, null, newChild));
+                continue;
+            }
+            for (; next < pair; next++) {
+                differences.add(new Difference(Difference.Type.DELETED, oldLeft.get(next), null));
+            }
+            compare(oldLeft.get(next++), newChild, differences);
+        }
+        for (; next < oldLeft.size(); next++) {
+            differences.add(new Difference(Difference.Type.DELETED, oldLeft.get(next), null));
+        }
+    }
+
+    // the first element from the given one on with the same tag name and attributes, which usually include a key,
+    // or else with the same tag name; -1 if there is none
+    private static int pairOf(Element newChild, List<Element> oldLeft, int from) {
+        int sameKind = -1;
+        for (int i = from; i < oldLeft.size(); i++) {
+            if (sameKind(oldLeft.get(i), newChild)) {
+                if (sameAttributes(oldLeft.get(i), newChild)) {
+                    return i;
+                }
+                if (sameKind < 0) {
+                    sameKind = i;
+                }
+            }
+        }
+        return sameKind;
+    }
+
+    private static boolean sameHash(Element a, Element b) {
+        return a.getSubtreeHash() == b.getSubtreeHash();
+    }
+
+    // both text, or elements with the same tag name
+    private static boolean sameKind(Element a, Element b) {
+        return Objects.equals(a.getTagName(), b.getTagName());
+    }
+
+    private static boolean sameAttributes(Element a, Element b) {
+        int count = a.hasAttributes() ? a.getAttributeCount() : 0;
+        if (count != (b.hasAttributes() ? b.getAttributeCount() : 0)) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!a.getAttributeName(i).equals(b.getAttributeName(i)) ||
+                    !Objects.equals(a.getAttributeValue(i), b.getAttributeValue(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Element> childrenOf(Element element) {
+        return element.hasChildren() ? element.getChildren() : Collections.emptyList();
+    }
+}
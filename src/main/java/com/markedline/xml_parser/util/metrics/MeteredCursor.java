@@ -0,0 +1,85 @@
+package com.markedline.xml_parser.util.metrics;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.TokenCursor;
+import com.markedline.xml_parser.util.tokenizer.TokenType;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.IOException;
+
+// Cursor over another cursor that counts its tokens and times them: the time inside nextToken() is the
+// tokenizer's, the time between its calls belongs to the consumer. Costs two clock reads per token.
+public final class MeteredCursor implements TokenCursor {
+    private final TokenCursor cursor;
+    private final ParseMetrics metrics;
+    // when the last token was handed out, 0 before the first
+    private long returned;
+
+    public MeteredCursor(TokenCursor cursor, ParseMetrics metrics) {
+        this.cursor = cursor;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public TokenType nextToken() throws IOException, XMLException {
+        long start = System.nanoTime();
+        if (this.returned != 0) {
+            this.metrics.addBuildNanos(start - this.returned);
+        }
+        TokenType tokenType = this.cursor.nextToken();
+        this.returned = System.nanoTime();
+        this.metrics.addCursorNanos(this.returned - start);
+        this.metrics.token(tokenType, tokenType == TokenType.START_TAG ? this.cursor.getAttributeCount() : 0);
+        return tokenType;
+    }
+
+    @Override
+    public Element getCurrentToken() {
+        return this.cursor.getCurrentToken();
+    }
+
+    @Override
+    public TokenType getTokenType() {
+        return this.cursor.getTokenType();
+    }
+
+    @Override
+    public String getLocalName() {
+        return this.cursor.getLocalName();
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return this.cursor.getAttributeCount();
+    }
+
+    @Override
+    public String getAttributeName(int i) {
+        return this.cursor.getAttributeName(i);
+    }
+
+    @Override
+    public String getAttributeValue(int i) {
+        return this.cursor.getAttributeValue(i);
+    }
+
+    @Override
+    public String getText() {
+        return this.cursor.getText();
+    }
+
+    @Override
+    public char[] getTextCharacters() {
+        return this.cursor.getTextCharacters();
+    }
+
+    @Override
+    public int getTextStart() {
+        return this.cursor.getTextStart();
+    }
+
+    @Override
+    public int getTextLength() {
+        return this.cursor.getTextLength();
+    }
+}
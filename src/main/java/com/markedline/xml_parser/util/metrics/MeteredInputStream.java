@@ -0,0 +1,40 @@
+package com.markedline.xml_parser.util.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Counts the bytes read through it
+public final class MeteredInputStream extends FilterInputStream {
+    private final ParseMetrics metrics;
+
+    public MeteredInputStream(InputStream in, ParseMetrics metrics) {
+        super(in);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = this.in.read();
+        if (b >= 0) {
+            this.metrics.addBytes(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = this.in.read(b, off, len);
+        if (n > 0) {
+            this.metrics.addBytes(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = this.in.skip(n);
+        this.metrics.addBytes(skipped);
+        return skipped;
+    }
+}
@@ -0,0 +1,37 @@
+package com.markedline.xml_parser.util.metrics;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// Counts the chars read through it and times the reads, which covers reading and decoding the bytes below
+public final class MeteredReader extends FilterReader {
+    private final ParseMetrics metrics;
+
+    public MeteredReader(Reader in, ParseMetrics metrics) {
+        super(in);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int c = this.in.read();
+        this.metrics.addIoNanos(System.nanoTime() - start);
+        if (c >= 0) {
+            this.metrics.addChars(1);
+        }
+        return c;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int n = this.in.read(cbuf, off, len);
+        this.metrics.addIoNanos(System.nanoTime() - start);
+        if (n > 0) {
+            this.metrics.addChars(n);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,47 @@
+package com.markedline.xml_parser.util.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+// Serves the text of a MetricsRegistry at /metrics for scrapers, on a thread of its own
+public final class MetricsEndpoint implements AutoCloseable {
+    private final HttpServer server;
+
+    // on the loopback interface, reachable from this host only
+    public MetricsEndpoint(MetricsRegistry registry, int port) throws IOException {
+        this(registry, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    // on the given address, such as new InetSocketAddress(port) for every interface
+    public MetricsEndpoint(MetricsRegistry registry, InetSocketAddress address) throws IOException {
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext("/metrics", exchange -> {
+            byte[] body = registry.toText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        this.server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return this.server.getAddress();
+    }
+
+    // the bound port, useful when 0 was asked for
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+}
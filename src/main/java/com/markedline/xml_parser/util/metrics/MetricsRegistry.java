@@ -0,0 +1,212 @@
+package com.markedline.xml_parser.util.metrics;
+
+import com.markedline.xml_parser.util.tokenizer.TokenType;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Listener adding up the metrics of all parses, failed ones included, from any number of threads. The totals are
+// exported through JMX once registered, and as plain text in the Prometheus exposition format.
+public final class MetricsRegistry implements ParseListener, ParserMetricsMXBean {
+    public static final String OBJECT_NAME = "com.markedline.xml_parser:type=ParserMetrics";
+
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder chars = new LongAdder();
+    private final LongAdder[] tokens = new LongAdder[TokenType.values().length];
+    private final LongAdder attributes = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder ioNanos = new LongAdder();
+    private final LongAdder scanNanos = new LongAdder();
+    private final LongAdder buildNanos = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public MetricsRegistry() {
+        for (int i = 0; i < this.tokens.length; i++) {
+            this.tokens[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void parsed(ParseMetrics metrics) {
+        this.parses.increment();
+        this.add(metrics);
+    }
+
+    @Override
+    public void failed(ParseMetrics metrics, Exception error) {
+        this.failures.increment();
+        this.add(metrics);
+    }
+
+    private void add(ParseMetrics metrics) {
+        this.bytes.add(metrics.getBytes());
+        this.chars.add(metrics.getChars());
+        for (TokenType tokenType : TokenType.values()) {
+            this.tokens[tokenType.ordinal()].add(metrics.getTokens(tokenType));
+        }
+        this.attributes.add(metrics.getAttributes());
+        this.maxDepth.accumulate(metrics.getMaxDepth());
+        this.ioNanos.add(metrics.getIoNanos());
+        this.scanNanos.add(metrics.getScanNanos());
+        this.buildNanos.add(metrics.getBuildNanos());
+        this.totalNanos.add(metrics.getTotalNanos());
+    }
+
+    // makes the totals visible to JMX clients under OBJECT_NAME, replacing a registry registered before
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+    }
+
+    public void unregister() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Override
+    public long getParses() {
+        return this.parses.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return this.failures.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    @Override
+    public long getChars() {
+        return this.chars.sum();
+    }
+
+    public long getTokens(TokenType tokenType) {
+        return this.tokens[tokenType.ordinal()].sum();
+    }
+
+    @Override
+    public long getElements() {
+        return this.getTokens(TokenType.START_TAG);
+    }
+
+    @Override
+    public long getAttributes() {
+        return this.attributes.sum();
+    }
+
+    @Override
+    public long getTextTokens() {
+        return this.getTokens(TokenType.TEXT);
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) this.maxDepth.get();
+    }
+
+    @Override
+    public long getIoNanos() {
+        return this.ioNanos.sum();
+    }
+
+    @Override
+    public long getScanNanos() {
+        return this.scanNanos.sum();
+    }
+
+    @Override
+    public long getBuildNanos() {
+        return this.buildNanos.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    @Override
+    public double getThroughput() {
+        long total = this.getTotalNanos();
+        return total > 0 ? this.getBytes() * 1e9 / total : 0;
+    }
+
+    @Override
+    public void reset() {
+        this.parses.reset();
+        this.failures.reset();
+        this.bytes.reset();
+        this.chars.reset();
+        for (LongAdder adder : this.tokens) {
+            adder.reset();
+        }
+        this.attributes.reset();
+        this.maxDepth.reset();
+        this.ioNanos.reset();
+        this.scanNanos.reset();
+        this.buildNanos.reset();
+        this.totalNanos.reset();
+    }
+
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        try {
+            this.writeText(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
+
+    // Prometheus text format, times in seconds
+    public void writeText(Appendable out) throws IOException {
+        counter(out, "xml_parser_parses_total", "Parses completed", this.getParses());
+        counter(out, "xml_parser_failures_total", "Parses failed", this.getFailures());
+        counter(out, "xml_parser_bytes_total", "Input bytes read", this.getBytes());
+        counter(out, "xml_parser_chars_total", "Input chars read", this.getChars());
+        out.append("# HELP xml_parser_tokens_total Tokens read by type\n");
+        out.append("# TYPE xml_parser_tokens_total counter\n");
+        for (TokenType tokenType : TokenType.values()) {
+            out.append("xml_parser_tokens_total{type=\"").append(tokenType.name().toLowerCase()).append("\"} ").
+                    append(Long.toString(this.getTokens(tokenType))).append('\n');
+        }
+        counter(out, "xml_parser_attributes_total", "Attributes of start tags", this.getAttributes());
+        out.append("# HELP xml_parser_max_depth Deepest element nesting seen\n");
+        out.append("# TYPE xml_parser_max_depth gauge\n");
+        out.append("xml_parser_max_depth ").append(Integer.toString(this.getMaxDepth())).append('\n');
+        out.append("# HELP xml_parser_seconds_total Time spent parsing by phase\n");
+        out.append("# TYPE xml_parser_seconds_total counter\n");
+        seconds(out, "io", this.getIoNanos());
+        seconds(out, "scan", this.getScanNanos());
+        seconds(out, "build", this.getBuildNanos());
+        seconds(out, "total", this.getTotalNanos());
+    }
+
+    private static void counter(Appendable out, String name, String help, long value) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(Long.toString(value)).append('\n');
+    }
+
+    private static void seconds(Appendable out, String phase, long nanos) throws IOException {
+        out.append("xml_parser_seconds_total{phase=\"").append(phase).append("\"} ").
+                append(Double.toString(nanos / 1e9)).append('\n');
+    }
+}
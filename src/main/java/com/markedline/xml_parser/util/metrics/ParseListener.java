@@ -0,0 +1,11 @@
+package com.markedline.xml_parser.util.metrics;
+
+// Receives the metrics of every parse on the thread that parsed, once the parse is over
+public interface ParseListener {
+
+    void parsed(ParseMetrics metrics);
+
+    // the error is rethrown to the caller of the parse after this
+    default void failed(ParseMetrics metrics, Exception error) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.markedline.xml_parser.util.metrics;
+
+import com.markedline.xml_parser.util.tokenizer.TokenType;
+
+// Measurements of one parse. Time is split three ways: io is spent reading and decoding the input, scan in the
+// tokenizer, build in whatever consumes the tokens (the tree builder or a ContentHandler). Chars are counted where
+// the input is decoded up front or read through a Reader; the mapped tokenizer decodes lazily and counts none.
+public final class ParseMetrics {
+    private final long start = System.nanoTime();
+    private final long[] tokens = new long[TokenType.values().length];
+    private long bytes;
+    private long chars;
+    private long attributes;
+    private int depth;
+    private int maxDepth;
+    private long ioNanos;
+    // time in the tokenizer, reading included
+    private long cursorNanos;
+    private long buildNanos;
+    private long totalNanos;
+
+    public void addBytes(long bytes) {
+        this.bytes += bytes;
+    }
+
+    public void addChars(long chars) {
+        this.chars += chars;
+    }
+
+    // Adds the counts and times of a part of the parse measured on its own, such as a chunk parsed by another
+    // thread, whose tokens start depth levels down. Times of parts run in parallel add up and may exceed the total.
+    public void add(ParseMetrics part, int depth) {
+        for (int i = 0; i < this.tokens.length; i++) {
+            this.tokens[i] += part.tokens[i];
+        }
+        this.bytes += part.bytes;
+        this.chars += part.chars;
+        this.attributes += part.attributes;
+        this.maxDepth = Math.max(this.maxDepth, depth + part.maxDepth);
+        this.ioNanos += part.ioNanos;
+        this.cursorNanos += part.cursorNanos;
+        this.buildNanos += part.buildNanos;
+    }
+
+    // stops the clock of the whole parse
+    public void finish() {
+        this.totalNanos = System.nanoTime() - this.start;
+    }
+
+    void addIoNanos(long nanos) {
+        this.ioNanos += nanos;
+    }
+
+    void addCursorNanos(long nanos) {
+        this.cursorNanos += nanos;
+    }
+
+    void addBuildNanos(long nanos) {
+        this.buildNanos += nanos;
+    }
+
+    void token(TokenType tokenType, int attributes) {
+        this.tokens[tokenType.ordinal()]++;
+        if (tokenType == TokenType.START_TAG) {
+            this.attributes += attributes;
+            this.maxDepth = Math.max(this.maxDepth, ++this.depth);
+        } else if (tokenType == TokenType.END_TAG && this.depth > 0) {
+            this.depth--;
+        }
+    }
+
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    public long getChars() {
+        return this.chars;
+    }
+
+    public long getTokens(TokenType tokenType) {
+        return this.tokens[tokenType.ordinal()];
+    }
+
+    // one per start tag
+    public long getElements() {
+        return this.getTokens(TokenType.START_TAG);
+    }
+
+    public long getAttributes() {
+        return this.attributes;
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public long getIoNanos() {
+        return this.ioNanos;
+    }
+
+    public long getScanNanos() {
+        return Math.max(0, this.cursorNanos - this.ioNanos);
+    }
+
+    public long getBuildNanos() {
+        return this.buildNanos;
+    }
+
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    // input bytes per second of the whole parse, chars when the input was not bytes
+    public double getThroughput() {
+        long input = this.bytes > 0 ? this.bytes : this.chars;
+        return this.totalNanos > 0 ? input * 1e9 / this.totalNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d bytes, %d chars, %d elements, %d attributes, %d texts, max depth %d; " +
+                        "io %.3fms, scan %.3fms, build %.3fms, total %.3fms (%.1f MB/sec)",
+                this.bytes, this.chars, this.getElements(), this.attributes, this.getTokens(TokenType.TEXT),
+                this.maxDepth, this.ioNanos / 1e6, this.getScanNanos() / 1e6, this.buildNanos / 1e6,
+                this.totalNanos / 1e6, this.getThroughput() / (1 << 20));
+    }
+}
@@ -0,0 +1,34 @@
+package com.markedline.xml_parser.util.metrics;
+
+// Totals of a MetricsRegistry as seen through JMX, times in nanoseconds
+public interface ParserMetricsMXBean {
+
+    long getParses();
+
+    long getFailures();
+
+    long getBytes();
+
+    long getChars();
+
+    long getElements();
+
+    long getAttributes();
+
+    long getTextTokens();
+
+    int getMaxDepth();
+
+    long getIoNanos();
+
+    long getScanNanos();
+
+    long getBuildNanos();
+
+    long getTotalNanos();
+
+    // input bytes per second over the time spent parsing
+    double getThroughput();
+
+    void reset();
+}
@@ -0,0 +1,10 @@
+package com.markedline.xml_parser.util.parser;
+
+public interface Attributes {
+
+    int getAttributeCount();
+
+    String getAttributeName(int i);
+
+    String getAttributeValue(int i);
+}
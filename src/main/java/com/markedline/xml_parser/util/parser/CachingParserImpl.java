@@ -0,0 +1,380 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Parser keeping the trees it built, frozen (see Element.freeze) so that every caller and thread can share them.
+// Files are looked up by path and reloaded when their modification time or size changed; other input is read
+// whole and looked up by the SHA-256 of its bytes or chars. Trees are evicted least recently used first once their
+// estimated sizes add up to more than the budget, a tree larger than the whole budget is not kept. Threads asking
+// for a document that is being parsed wait for that parse instead of starting their own. Pushing to a handler and
+// streaming records go straight to the underlying parser.
+public final class CachingParserImpl implements Parser {
+    private final Parser parser;
+    private final long maxBytes;
+    // access ordered, guarded by itself
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // estimated size of the loaded entries
+    private long bytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingParserImpl(long maxBytes) {
+        this(new SessionParserImpl(), maxBytes);
+    }
+
+    // the parser must be safe to call from several threads if the cache is
+    public CachingParserImpl(Parser parser, long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.parser = parser;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public Element parse(Path path) throws IOException, XMLException {
+        Path file = path.toAbsolutePath().normalize();
+        FileStamp stamp = FileStamp.of(file);
+        return this.get(file, stamp, () -> this.parser.parse(file));
+    }
+
+    @Override
+    public Element parse(byte[] input) throws IOException, XMLException {
+        MessageDigest digest = digest();
+        digest.update(input);
+        return this.get(new ContentKey(digest.digest(), false), null, () -> this.parser.parse(input));
+    }
+
+    @Override
+    public Element parse(ByteBuffer input) throws IOException, XMLException {
+        MessageDigest digest = digest();
+        digest.update(input.duplicate());
+        ByteBuffer bytes = input.duplicate();
+        Element root = this.get(new ContentKey(digest.digest(), false), null, () -> this.parser.parse(bytes));
+        input.position(input.limit());
+        return root;
+    }
+
+    @Override
+    public Element parse(CharBuffer input) throws IOException, XMLException {
+        MessageDigest digest = digest();
+        byte[] chunk = new byte[8192];
+        CharBuffer chars = input.duplicate();
+        while (chars.hasRemaining()) {
+            int n = Math.min(chars.remaining(), chunk.length / 2);
+            for (int i = 0; i < n; i++) {
+                char c = chars.get();
+                chunk[2 * i] = (byte) (c >> 8);
+                chunk[2 * i + 1] = (byte) c;
+            }
+            digest.update(chunk, 0, 2 * n);
+        }
+        return this.get(new ContentKey(digest.digest(), true), null, () -> this.parser.parse(input));
+    }
+
+    @Override
+    public Element parse(FileInputStream input) throws IOException, XMLException {
+        return this.parse(input.readAllBytes());
+    }
+
+    @Override
+    public Element parse(InputStream input) throws IOException, XMLException {
+        return this.parse(input.readAllBytes());
+    }
+
+    @Override
+    public Element parse(Reader input) throws IOException, XMLException {
+        return this.parse(ParserImpl.readFully(input));
+    }
+
+    @Override
+    public void parse(InputStream input, ContentHandler handler) throws IOException, XMLException {
+        this.parser.parse(input, handler);
+    }
+
+    @Override
+    public Stream<Element> stream(InputStream input, String tagName) throws IOException {
+        return this.parser.stream(input, tagName);
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    // estimated size of the trees kept
+    public long getBytes() {
+        synchronized (this.entries) {
+            return this.bytes;
+        }
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public void invalidate(Path path) {
+        synchronized (this.entries) {
+            Object key = path.toAbsolutePath().normalize();
+            Entry entry = this.entries.remove(key);
+            if (entry != null) {
+                this.bytes -= entry.size;
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+            this.bytes = 0;
+        }
+    }
+
+    private Element get(Object key, FileStamp stamp, Loader loader) throws IOException, XMLException {
+        Entry entry;
+        boolean load = false;
+        synchronized (this.entries) {
+            entry = this.entries.get(key);
+            if (entry == null || !Objects.equals(entry.stamp, stamp)) {
+                if (entry != null) {
+                    this.remove(key, entry);
+                }
+                entry = new Entry(stamp);
+                this.entries.put(key, entry);
+                load = true;
+            }
+        }
+        if (load) {
+            this.misses.increment();
+            return this.load(key, entry, loader);
+        }
+        this.hits.increment();
+        return await(entry);
+    }
+
+    // parses in the calling thread and completes the entry for the threads waiting on it
+    private Element load(Object key, Entry entry, Loader loader) throws IOException, XMLException {
+        Element root;
+        long size;
+        boolean kept;
+        try {
+            root = loader.load();
+            root.freeze();
+            size = estimateSize(root);
+            // a file changed while it was parsed is not kept, the next parse will see the change
+            kept = size <= this.maxBytes && (entry.stamp == null || entry.stamp.equals(FileStamp.of((Path) key)));
+        } catch (IOException | XMLException | RuntimeException | Error e) {
+            synchronized (this.entries) {
+                this.remove(key, entry);
+            }
+            entry.tree.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this.entries) {
+            if (this.entries.get(key) == entry) {
+                if (kept) {
+                    entry.size = size;
+                    this.bytes += size;
+                    this.evict(entry);
+                } else {
+                    this.entries.remove(key);
+                }
+            }
+        }
+        entry.tree.complete(root);
+        return root;
+    }
+
+    private static Element await(Entry entry) throws IOException, XMLException {
+        try {
+            return entry.tree.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof XMLException) {
+                throw (XMLException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    private void remove(Object key, Entry entry) {
+        if (this.entries.get(key) == entry) {
+            this.entries.remove(key);
+            this.bytes -= entry.size;
+        }
+    }
+
+    // drops the least recently used trees other than the one just kept until the rest fit, trees being loaded
+    // weigh nothing yet and stay
+    private void evict(Entry kept) {
+        Iterator<Entry> entries = this.entries.values().iterator();
+        while (this.bytes > this.maxBytes && entries.hasNext()) {
+            Entry entry = entries.next();
+            if (entry != kept && entry.size > 0) {
+                entries.remove();
+                this.bytes -= entry.size;
+            }
+        }
+    }
+
+    // Heap taken by the tree on a 64-bit VM with compressed references, on the high side: tag names are counted
+    // for every element though they are usually shared, and the ID index as if every element was in it
+    static long estimateSize(Element root) {
+        long size = 0;
+        long count = 0;
+        Deque<Element> elements = new ArrayDeque<>();
+        elements.push(root);
+        while (!elements.isEmpty()) {
+            Element element = elements.pop();
+            count++;
+            size += 72 + stringSize(element.getTagName()) + stringSize(element.getText());
+            if (element.hasAttributes()) {
+                int attributes = element.getAttributeCount();
+                // list, attributes and, for many of them, the hash slots
+                size += 40 + 4L * attributes + (attributes > 8 ? 16 + 16L * Integer.highestOneBit(attributes) : 0);
+                for (int i = 0; i < attributes; i++) {
+                    size += 32 + stringSize(element.getAttributeName(i)) + stringSize(element.getAttributeValue(i));
+                }
+            }
+            if (element.hasChildren()) {
+                List<Element> children = element.getChildren();
+                // the list and its unmodifiable view
+                size += 56 + 4L * children.size();
+                for (Element child : children) {
+                    elements.push(child);
+                }
+            }
+        }
+        if (root.getIdIndex() != null) {
+            size += 64 * count;
+        }
+        return size;
+    }
+
+    private static long stringSize(String s) {
+        if (s == null) {
+            return 0;
+        }
+        int bytesPerChar = 1;
+        for (int i = 0; i < s.length() && bytesPerChar == 1; i++) {
+            if (s.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+            }
+        }
+        return 40 + (long) s.length() * bytesPerChar;
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has it
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface Loader {
+
+        Element load() throws IOException, XMLException;
+    }
+
+    private static final class Entry {
+        private final FileStamp stamp;
+        private final CompletableFuture<Element> tree = new CompletableFuture<>();
+        // 0 until loaded
+        private long size;
+
+        Entry(FileStamp stamp) {
+            this.stamp = stamp;
+        }
+    }
+
+    private static final class FileStamp {
+        private final FileTime modified;
+        private final long size;
+
+        private FileStamp(FileTime modified, long size) {
+            this.modified = modified;
+            this.size = size;
+        }
+
+        static FileStamp of(Path file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new FileStamp(attributes.lastModifiedTime(), attributes.size());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FileStamp stamp = (FileStamp) o;
+            return this.size == stamp.size && this.modified.equals(stamp.modified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.modified, this.size);
+        }
+    }
+
+    private static final class ContentKey {
+        private final byte[] digest;
+        private final boolean chars;
+
+        ContentKey(byte[] digest, boolean chars) {
+            this.digest = digest;
+            this.chars = chars;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ContentKey key = (ContentKey) o;
+            return this.chars == key.chars && Arrays.equals(this.digest, key.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.digest);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.CompactDocument;
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.BufferedTokenizerImpl;
+import com.markedline.xml_parser.util.tokenizer.SymbolTable;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+// Parses into a CompactDocument, a tree held in a few arrays instead of objects per node. The Elements it returns
+// are views of the document (see CompactDocument.asElement), built one level at a time as they are visited; they
+// are not indexed by the ID attribute of the config. Streams and handlers are served by ParserImpl.
+public final class CompactParserImpl implements Parser {
+    private final ParserConfig config;
+    private final Parser sequential;
+
+    public CompactParserImpl() {
+        this(ParserConfig.DEFAULT);
+    }
+
+    public CompactParserImpl(ParserConfig config) {
+        this.config = config;
+        this.sequential = new ParserImpl(config);
+    }
+
+    public CompactDocument parseDocument(InputStream input) throws IOException, XMLException {
+        CompactTreeBuilder builder = new CompactTreeBuilder();
+        this.sequential.parse(input, builder);
+        return builder.getDocument();
+    }
+
+    public CompactDocument parseDocument(Path path) throws IOException, XMLException {
+        try (FileInputStream input = new FileInputStream(path.toFile())) {
+            return this.parseDocument(input);
+        }
+    }
+
+    public CompactDocument parseDocument(Reader input) throws IOException, XMLException {
+        return this.parseDocument(ParserImpl.readFully(input));
+    }
+
+    // the chars are scanned in place, the document copies what it keeps
+    public CompactDocument parseDocument(CharBuffer input) throws IOException, XMLException {
+        return ParserImpl.measured(this.config.getListener(), metrics -> {
+            CharBuffer doc = ParserImpl.inMemory(input);
+            if (metrics != null) {
+                metrics.addChars(doc.limit());
+            }
+            SymbolTable symbols = this.config.getSymbols() != null ? this.config.getSymbols() : new SymbolTable();
+            CompactTreeBuilder builder = new CompactTreeBuilder();
+            ParserImpl.push(ParserImpl.metered(ParserImpl.filter(
+                    new BufferedTokenizerImpl(doc.array(), 0, doc.limit(), symbols), this.config), metrics), builder);
+            return builder.getDocument();
+        });
+    }
+
+    @Override
+    public Element parse(FileInputStream input) throws IOException, XMLException {
+        return this.parseDocument(input).asElement();
+    }
+
+    @Override
+    public Element parse(InputStream input) throws IOException, XMLException {
+        return this.parseDocument(input).asElement();
+    }
+
+    @Override
+    public Element parse(Reader input) throws IOException, XMLException {
+        return this.parseDocument(input).asElement();
+    }
+
+    @Override
+    public Element parse(CharBuffer input) throws IOException, XMLException {
+        return this.parseDocument(input).asElement();
+    }
+
+    @Override
+    public void parse(InputStream input, ContentHandler handler) throws IOException, XMLException {
+        this.sequential.parse(input, handler);
+    }
+
+    @Override
+    public Stream<Element> stream(InputStream input, String tagName) throws IOException {
+        return this.sequential.stream(input, tagName);
+    }
+}
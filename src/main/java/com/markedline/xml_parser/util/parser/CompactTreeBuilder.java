@@ -0,0 +1,46 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.CompactDocument;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+// Builds a CompactDocument with the same nodes as the Element tree of TreeBuilder
+public final class CompactTreeBuilder implements ContentHandler {
+
+    private CompactDocument.Builder builder;
+
+    @Override
+    public void startDocument() {
+        this.builder = new CompactDocument.Builder();
+    }
+
+    @Override
+    public void startElement(String tagName, Attributes attributes) {
+        this.builder.startElement(tagName);
+        int count = attributes.getAttributeCount();
+        for (int i = 0; i < count; i++) {
+            this.builder.addAttribute(attributes.getAttributeName(i), attributes.getAttributeValue(i));
+        }
+    }
+
+    @Override
+    public void endElement(String tagName) {
+        this.builder.endElement();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        this.builder.text(ch, start, length);
+    }
+
+    @Override
+    public void endDocument() {
+    }
+
+    public CompactDocument getDocument() throws XMLException {
+        CompactDocument document = this.builder != null ? this.builder.build() : null;
+        if (document != null)
+            return document;
+        else
+            throw new XMLException("empty xml document");
+    }
+}
@@ -0,0 +1,20 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.IOException;
+
+// Receives the document as a sequence of callbacks, nothing is kept between them by the parser.
+// Attributes and characters are only valid for the duration of the call.
+public interface ContentHandler {
+
+    void startDocument() throws IOException, XMLException;
+
+    void startElement(String tagName, Attributes attributes) throws IOException, XMLException;
+
+    void endElement(String tagName) throws IOException, XMLException;
+
+    void characters(char[] ch, int start, int length) throws IOException, XMLException;
+
+    void endDocument() throws IOException, XMLException;
+}
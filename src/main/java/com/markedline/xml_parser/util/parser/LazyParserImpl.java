@@ -0,0 +1,126 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Attribute;
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.metrics.ParseMetrics;
+import com.markedline.xml_parser.util.tokenizer.BufferedTokenizerImpl;
+import com.markedline.xml_parser.util.tokenizer.SymbolTable;
+import com.markedline.xml_parser.util.tokenizer.TokenCursor;
+import com.markedline.xml_parser.util.tokenizer.TokenType;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Builds the same tree as ParserImpl, but keeps the whole decoded input: texts and attribute values point into it
+// and become Strings only when they are first read. Pays off when only a few values of a tree are read.
+// Input that is all ISO-8859-1 is kept as one byte per char. The tokenizer mode of the config is not used, the
+// input is always scanned in memory.
+public final class LazyParserImpl implements Parser {
+    private final ParserConfig config;
+    private final Parser sequential;
+
+    public LazyParserImpl() {
+        this(ParserConfig.DEFAULT);
+    }
+
+    public LazyParserImpl(ParserConfig config) {
+        this.config = config;
+        this.sequential = new ParserImpl(config);
+    }
+
+    @Override
+    public Element parse(FileInputStream input) throws IOException, XMLException {
+        return this.parse(ParserImpl.readFully(input));
+    }
+
+    @Override
+    public Element parse(InputStream input) throws IOException, XMLException {
+        return this.parse(ParserImpl.readFully(input));
+    }
+
+    @Override
+    public Element parse(Reader input) throws IOException, XMLException {
+        return this.parse(ParserImpl.readFully(input));
+    }
+
+    @Override
+    public Element parse(CharBuffer input) throws IOException, XMLException {
+        return ParserImpl.measured(this.config.getListener(), metrics -> this.parse(input, metrics));
+    }
+
+    private Element parse(CharBuffer input, ParseMetrics metrics) throws IOException, XMLException {
+        CharBuffer content = ParserImpl.inMemory(input);
+        char[] doc = content.array();
+        int length = content.limit();
+        if (metrics != null) {
+            metrics.addChars(length);
+        }
+        byte[] latin1 = latin1(doc, length);
+        SymbolTable symbols = this.config.getSymbols() != null ? this.config.getSymbols() : new SymbolTable();
+        BufferedTokenizerImpl tokenizer = new BufferedTokenizerImpl(doc, 0, length, symbols);
+        // the tokenizer stays on the start tags the cursor reports, the values are located through it
+        TokenCursor cursor = ParserImpl.metered(ParserImpl.filter(tokenizer, this.config), metrics);
+        TreeBuilder builder = new TreeBuilder(null, this.config.getIdAttribute());
+
+        builder.startDocument();
+        TokenType tokenType;
+        while ((tokenType = cursor.nextToken()) != TokenType.EOF) {
+            switch (tokenType) {
+                case START_TAG -> {
+                    int count = cursor.getAttributeCount();
+                    List<Attribute> attributes = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        String name = cursor.getAttributeName(i);
+                        int start = tokenizer.getAttributeValueStart(i);
+                        int valueLength = tokenizer.getAttributeValueLength(i);
+                        attributes.add(latin1 != null ?
+                                new Attribute(name, latin1, start, valueLength) :
+                                new Attribute(name, doc, start, valueLength));
+                    }
+                    builder.startElement(new Element.Builder().
+                            withTagName(cursor.getLocalName()).
+                            withAttributes(attributes).build());
+                }
+                case END_TAG -> builder.endElement(cursor.getLocalName());
+                case TEXT -> {
+                    Element.Builder text = latin1 != null ?
+                            new Element.Builder().withText(latin1, cursor.getTextStart(), cursor.getTextLength()) :
+                            new Element.Builder().withText(doc, cursor.getTextStart(), cursor.getTextLength());
+                    builder.characters(text.build());
+                }
+            }
+        }
+        builder.endDocument();
+        return builder.getRoot();
+    }
+
+    // the chars as bytes, or null if some char does not fit in one
+    private static byte[] latin1(char[] doc, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = doc[i];
+            if (c > 0xFF) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    @Override
+    public void parse(InputStream input, ContentHandler handler) throws IOException, XMLException {
+        this.sequential.parse(input, handler);
+    }
+
+    @Override
+    public Stream<Element> stream(InputStream input, String tagName) throws IOException {
+        return this.sequential.stream(input, tagName);
+    }
+}
@@ -0,0 +1,261 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.node.IdIndex;
+import com.markedline.xml_parser.util.metrics.ParseMetrics;
+import com.markedline.xml_parser.util.tokenizer.BufferedTokenizerImpl;
+import com.markedline.xml_parser.util.tokenizer.RunScanner;
+import com.markedline.xml_parser.util.tokenizer.SymbolTable;
+import com.markedline.xml_parser.util.tokenizer.UncheckedXMLException;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+// Builds the same tree as ParserImpl, but splits the content of the root element at the boundaries of its children
+// and builds the chunks on a ForkJoinPool. Anything the split scan does not understand is parsed sequentially.
+// The tokenizer mode of the config is not used, and its symbol table only for the part parsed on the calling
+// thread: chunks get a table each, as tables are not thread-safe. The ID index is built once the chunks are joined.
+public final class ParallelParserImpl implements Parser {
+    // smaller chunks cost more in task overhead than they win
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+    private final int minChunkSize;
+    private final ParserConfig config;
+    private final Parser sequential;
+
+    public ParallelParserImpl() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelParserImpl(ForkJoinPool pool) {
+        this(pool, ParserConfig.DEFAULT);
+    }
+
+    public ParallelParserImpl(ParserConfig config) {
+        this(ForkJoinPool.commonPool(), config);
+    }
+
+    public ParallelParserImpl(ForkJoinPool pool, ParserConfig config) {
+        this(pool, MIN_CHUNK_SIZE, config);
+    }
+
+    ParallelParserImpl(ForkJoinPool pool, int minChunkSize) {
+        this(pool, minChunkSize, ParserConfig.DEFAULT);
+    }
+
+    ParallelParserImpl(ForkJoinPool pool, int minChunkSize, ParserConfig config) {
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+        this.config = config;
+        this.sequential = new ParserImpl(config);
+    }
+
+    @Override
+    public Element parse(FileInputStream input) throws IOException, XMLException {
+        return this.parse(ParserImpl.readFully(input));
+    }
+
+    @Override
+    public Element parse(InputStream input) throws IOException, XMLException {
+        return this.parse(ParserImpl.readFully(input));
+    }
+
+    @Override
+    public Element parse(Reader input) throws IOException, XMLException {
+        return this.parse(ParserImpl.readFully(input));
+    }
+
+    @Override
+    public Element parse(CharBuffer input) throws IOException, XMLException {
+        return ParserImpl.measured(this.config.getListener(), metrics -> this.parse(input, metrics));
+    }
+
+    private Element parse(CharBuffer input, ParseMetrics metrics) throws IOException, XMLException {
+        CharBuffer content = ParserImpl.inMemory(input);
+        char[] doc = content.array();
+        int length = content.limit();
+        if (metrics != null) {
+            metrics.addChars(length);
+        }
+        SymbolTable symbols = this.config.getSymbols() != null ? this.config.getSymbols() : new SymbolTable();
+
+        int chunkSize = Math.max(this.minChunkSize, length / (this.pool.getParallelism() * CHUNKS_PER_WORKER));
+        int[] starts = split(doc, length, chunkSize);
+        if (starts == null) {
+            return this.build(new BufferedTokenizerImpl(doc, 0, length, symbols), metrics,
+                    this.config.getIdAttribute());
+        }
+
+        // everything up to the end of the root start tag gives the root itself
+        Element root = this.build(new BufferedTokenizerImpl(doc, 0, starts[0], symbols), metrics, null);
+
+        List<ChunkTask> tasks = new ArrayList<>(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            int end = i + 1 < starts.length ? starts[i + 1] : length;
+            tasks.add(new ChunkTask(doc, starts[i], end - starts[i], this.config,
+                    metrics != null ? new ParseMetrics() : null));
+        }
+        for (ChunkTask task : tasks) {
+            this.pool.execute(task);
+        }
+
+        // the first failing chunk in document order holds the error a sequential parse would report
+        Element innermost = null;
+        for (ChunkTask task : tasks) {
+            try {
+                innermost = task.join();
+            } catch (UncheckedXMLException e) {
+                for (ChunkTask rest : tasks) {
+                    rest.cancel(false);
+                }
+                throw e.getCause();
+            }
+            if (metrics != null) {
+                metrics.add(task.metrics, 1);
+            }
+            if (task.parent.hasChildren()) {
+                for (Element child : task.parent.getChildren()) {
+                    root.addChild(child);
+                }
+            }
+        }
+        if (this.config.getIdAttribute() != null) {
+            IdIndex.build(root, this.config.getIdAttribute());
+        }
+        // like ParserImpl, an unclosed document gives its innermost open element, all in the last chunk
+        return innermost == tasks.get(tasks.size() - 1).parent ? root : innermost;
+    }
+
+    @Override
+    public void parse(InputStream input, ContentHandler handler) throws IOException, XMLException {
+        this.sequential.parse(input, handler);
+    }
+
+    @Override
+    public Stream<Element> stream(InputStream input, String tagName) throws IOException {
+        return this.sequential.stream(input, tagName);
+    }
+
+    private Element build(BufferedTokenizerImpl tokenizer, ParseMetrics metrics, String idAttribute)
+            throws IOException, XMLException {
+        TreeBuilder builder = new TreeBuilder(null, idAttribute);
+        ParserImpl.push(ParserImpl.metered(ParserImpl.filter(tokenizer, this.config), metrics), builder);
+        return builder.getRoot();
+    }
+
+    // Returns the start offsets of the chunks: the first one right after the root start tag, the others right after
+    // a child of the root ends, at least chunkSize chars apart. Tag ends are found the way the tokenizer would find
+    // them in well-formed input, so a malformed part fails in the chunk it starts in, with the sequential message.
+    // Returns null when the document should not be split.
+    static int[] split(char[] doc, int length, int chunkSize) {
+        int open = indexOf(doc, length, '<', 0);
+        if (open < 0 || open + 1 == length || doc[open + 1] == '/') {
+            return null;
+        }
+        int close = tagEnd(doc, length, open + 1);
+        if (close < 0 || doc[close - 1] == '/') {
+            return null;
+        }
+
+        int[] starts = new int[16];
+        int count = 0;
+        starts[count++] = close + 1;
+
+        // the element stack size ParserImpl would have: end tags never pop the root
+        int depth = 1;
+        int pos = close + 1;
+        while ((open = indexOf(doc, length, '<', pos)) >= 0 && open + 1 < length) {
+            boolean isEndTag = doc[open + 1] == '/';
+            close = tagEnd(doc, length, open + 1);
+            if (close < 0) {
+                break;
+            }
+            pos = close + 1;
+
+            if (isEndTag) {
+                if (depth > 1) {
+                    depth--;
+                }
+            } else if (doc[close - 1] != '/') {
+                depth++;
+            }
+
+            if (depth == 1 && pos - starts[count - 1] >= chunkSize && pos < length) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = pos;
+            }
+        }
+
+        return count > 1 ? Arrays.copyOf(starts, count) : null;
+    }
+
+    private static int indexOf(char[] doc, int length, char c, int from) {
+        return RunScanner.indexOf(doc, from, length, c);
+    }
+
+    // index of the '>' closing the tag, attribute values are quoted and may contain '>'
+    private static int tagEnd(char[] doc, int length, int from) {
+        int i = from;
+        while ((i = RunScanner.indexOfAny(doc, i, length, '"', '\'', '>')) >= 0) {
+            if (doc[i] == '>') {
+                return i;
+            }
+            i = RunScanner.indexOf(doc, i + 1, length, doc[i]);
+            if (i < 0) {
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    // builds the children of the root found in one chunk under a placeholder parent,
+    // the result is the innermost element left open at the end of the chunk
+    private static final class ChunkTask extends RecursiveTask<Element> {
+        private final Element parent = new Element();
+        private final char[] doc;
+        private final int offset;
+        private final int length;
+        private final ParserConfig config;
+        // of this chunk alone, null when the parse is not measured
+        private final ParseMetrics metrics;
+
+        private ChunkTask(char[] doc, int offset, int length, ParserConfig config, ParseMetrics metrics) {
+            this.doc = doc;
+            this.offset = offset;
+            this.length = length;
+            this.config = config;
+            this.metrics = metrics;
+        }
+
+        @Override
+        protected Element compute() {
+            TreeBuilder builder = new TreeBuilder(this.parent);
+            try {
+                ParserImpl.push(ParserImpl.metered(ParserImpl.filter(
+                        BufferedTokenizerImpl.fragment(this.doc, this.offset, this.length), this.config),
+                        this.metrics), builder);
+                return builder.getRoot();
+            } catch (XMLException e) {
+                throw new UncheckedXMLException(e);
+            } catch (IOException e) {
+                // the chunk is scanned from memory
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -1,13 +1,51 @@
-package com.markedline.xml_parser.util.parser;
-
-import com.markedline.xml_parser.node.Element;
-import com.markedline.xml_parser.util.tokenizer.XMLException;
-
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-
-public interface Parser {
-
-    Element parse(FileInputStream input) throws IOException, XMLException;
-}
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.InputDecoder;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+public interface Parser {
+
+    // Byte input is decoded in the encoding of its byte order mark or XML declaration, UTF-8 if it has neither;
+    // both are dropped, from char input as well
+    Element parse(FileInputStream input) throws IOException, XMLException;
+
+    Element parse(InputStream input) throws IOException, XMLException;
+
+    Element parse(Reader input) throws IOException, XMLException;
+
+    // the chars are parsed in place and must not change while the tree is used
+    Element parse(CharBuffer input) throws IOException, XMLException;
+
+    default Element parse(Path path) throws IOException, XMLException {
+        try (FileInputStream input = new FileInputStream(path.toFile())) {
+            return this.parse(input);
+        }
+    }
+
+    default Element parse(byte[] input) throws IOException, XMLException {
+        return this.parse(InputDecoder.decode(input, 0, input.length));
+    }
+
+    // consumes the remaining bytes of the buffer
+    default Element parse(ByteBuffer input) throws IOException, XMLException {
+        return this.parse(InputDecoder.decode(input));
+    }
+
+    // pushes the document to the handler without building a tree
+    void parse(InputStream input, ContentHandler handler) throws IOException, XMLException;
+
+    // lazily reads one element with the given tag name at a time, nested matches stay inside their record;
+    // errors surface as UncheckedIOException or UncheckedXMLException. The listener of the config gets the metrics
+    // once the stream has been read to its end or has failed.
+    Stream<Element> stream(InputStream input, String tagName) throws IOException;
+}
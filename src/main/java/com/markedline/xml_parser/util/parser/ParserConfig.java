@@ -0,0 +1,101 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.util.metrics.ParseListener;
+import com.markedline.xml_parser.util.tokenizer.SymbolTable;
+import com.markedline.xml_parser.util.tokenizer.TokenizerMode;
+
+// Features of a ParserImpl. Whitespace-only text and trimming are handled on the tokens, before any String or
+// Element is built. An ID attribute makes the parsed tree keep an IdIndex of its elements by that attribute.
+// A listener gets the ParseMetrics of every parse; without one nothing is measured.
+public final class ParserConfig {
+    public static final ParserConfig DEFAULT = new Builder().build();
+
+    private final TokenizerMode tokenizerMode;
+    private final SymbolTable symbols;
+    private final boolean whitespaceDropped;
+    private final boolean textTrimmed;
+    private final String idAttribute;
+    private final ParseListener listener;
+
+    private ParserConfig(Builder builder) {
+        this.tokenizerMode = builder.tokenizerMode;
+        this.symbols = builder.symbols;
+        this.whitespaceDropped = builder.whitespaceDropped;
+        this.textTrimmed = builder.textTrimmed;
+        this.idAttribute = builder.idAttribute;
+        this.listener = builder.listener;
+    }
+
+    public TokenizerMode getTokenizerMode() {
+        return this.tokenizerMode;
+    }
+
+    // shared by all parses, null for a fresh table per parse
+    public SymbolTable getSymbols() {
+        return this.symbols;
+    }
+
+    public boolean isWhitespaceDropped() {
+        return this.whitespaceDropped;
+    }
+
+    public boolean isTextTrimmed() {
+        return this.textTrimmed;
+    }
+
+    // null when no index is built
+    public String getIdAttribute() {
+        return this.idAttribute;
+    }
+
+    // null when parses are not measured
+    public ParseListener getListener() {
+        return this.listener;
+    }
+
+    public static class Builder {
+        private TokenizerMode tokenizerMode = TokenizerMode.BUFFERED;
+        private SymbolTable symbols;
+        private boolean whitespaceDropped;
+        private boolean textTrimmed;
+        private String idAttribute;
+        private ParseListener listener;
+
+        public Builder withTokenizerMode(TokenizerMode tokenizerMode) {
+            this.tokenizerMode = tokenizerMode;
+            return this;
+        }
+
+        public Builder withSymbols(SymbolTable symbols) {
+            this.symbols = symbols;
+            return this;
+        }
+
+        // text of whitespace only produces no Element
+        public Builder withWhitespaceDropped(boolean whitespaceDropped) {
+            this.whitespaceDropped = whitespaceDropped;
+            return this;
+        }
+
+        // leading and trailing whitespace is cut off text, text left empty produces no Element
+        public Builder withTextTrimmed(boolean textTrimmed) {
+            this.textTrimmed = textTrimmed;
+            return this;
+        }
+
+        // elements are indexed by the value of this attribute, see Element.getById
+        public Builder withIdAttribute(String idAttribute) {
+            this.idAttribute = idAttribute;
+            return this;
+        }
+
+        public Builder withListener(ParseListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public ParserConfig build() {
+            return new ParserConfig(this);
+        }
+    }
+}
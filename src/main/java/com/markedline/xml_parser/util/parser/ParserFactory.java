@@ -1,8 +1,60 @@
 package com.markedline.xml_parser.util.parser;
 
+import com.markedline.xml_parser.util.tokenizer.TokenizerMode;
+
 public class ParserFactory {
 
     public static Parser createParser() {
         return new ParserImpl();
     }
+
+    public static Parser createParser(TokenizerMode mode) {
+        return new ParserImpl(mode);
+    }
+
+    public static Parser createParser(ParserConfig config) {
+        return new ParserImpl(config);
+    }
+
+    public static Parser createParallelParser() {
+        return new ParallelParserImpl();
+    }
+
+    public static Parser createParallelParser(ParserConfig config) {
+        return new ParallelParserImpl(config);
+    }
+
+    public static Parser createLazyParser() {
+        return new LazyParserImpl();
+    }
+
+    public static Parser createLazyParser(ParserConfig config) {
+        return new LazyParserImpl(config);
+    }
+
+    // trees held in arrays, see CompactParserImpl
+    public static CompactParserImpl createCompactParser() {
+        return new CompactParserImpl();
+    }
+
+    public static CompactParserImpl createCompactParser(ParserConfig config) {
+        return new CompactParserImpl(config);
+    }
+
+    public static Parser createSessionParser(ParserConfig config) {
+        return new SessionParserImpl(config);
+    }
+
+    // trees are shared by all callers and read-only, see CachingParserImpl
+    public static Parser createCachingParser(long maxBytes) {
+        return new CachingParserImpl(maxBytes);
+    }
+
+    public static Parser createCachingParser(Parser parser, long maxBytes) {
+        return new CachingParserImpl(parser, maxBytes);
+    }
+
+    public static PushParser createPushParser(ContentHandler handler) {
+        return new PushParser(handler);
+    }
 }
@@ -1,47 +1,254 @@
-package com.markedline.xml_parser.util.parser;
-
-import com.markedline.xml_parser.node.Element;
-import com.markedline.xml_parser.util.tokenizer.TokenType;
-import com.markedline.xml_parser.util.tokenizer.Tokenizer;
-import com.markedline.xml_parser.util.tokenizer.TokenizerImpl;
-import com.markedline.xml_parser.util.tokenizer.XMLException;
-
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.util.Stack;
-
-public final class ParserImpl implements Parser {
-    @Override
-    public Element parse(FileInputStream input) throws IOException, XMLException {
-
-        Tokenizer tokenizer = new TokenizerImpl(input);
-
-        Stack<Element> elementStack = new Stack<>();
-
-        while (tokenizer.nextToken() != TokenType.EOF) {
-            Element element = tokenizer.getCurrentToken();
-            switch (tokenizer.getTokenType()) {
-                case START_TAG -> {
-                    if (!elementStack.isEmpty()) {
-                        elementStack.peek().addChild(element);
-                        element.setParent(elementStack.peek());
-                    }
-                    elementStack.push(element);
-                }
-                case END_TAG -> {
-                    if (elementStack.size() > 1)
-                        elementStack.pop();
-                }
-                case TEXT -> {
-                    elementStack.peek().addChild(element);
-                    element.setParent(elementStack.peek());
-                }
-            }
-        }
-
-        if (!elementStack.isEmpty())
-            return elementStack.pop();
-        else
-            throw new XMLException("empty xml document");
-    }
-}
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.metrics.MeteredCursor;
+import com.markedline.xml_parser.util.metrics.MeteredInputStream;
+import com.markedline.xml_parser.util.metrics.MeteredReader;
+import com.markedline.xml_parser.util.metrics.ParseListener;
+import com.markedline.xml_parser.util.metrics.ParseMetrics;
+import com.markedline.xml_parser.util.tokenizer.BufferedTokenizerImpl;
+import com.markedline.xml_parser.util.tokenizer.InputDecoder;
+import com.markedline.xml_parser.util.tokenizer.SymbolTable;
+import com.markedline.xml_parser.util.tokenizer.TextFilter;
+import com.markedline.xml_parser.util.tokenizer.TokenCursor;
+import com.markedline.xml_parser.util.tokenizer.TokenType;
+import com.markedline.xml_parser.util.tokenizer.TokenizerFactory;
+import com.markedline.xml_parser.util.tokenizer.TokenizerMode;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public final class ParserImpl implements Parser {
+    private final ParserConfig config;
+
+    public ParserImpl() {
+        this(ParserConfig.DEFAULT);
+    }
+
+    public ParserImpl(TokenizerMode mode) {
+        this(mode, null);
+    }
+
+    public ParserImpl(TokenizerMode mode, SymbolTable symbols) {
+        this(new ParserConfig.Builder().withTokenizerMode(mode).withSymbols(symbols).build());
+    }
+
+    public ParserImpl(ParserConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public Element parse(FileInputStream input) throws IOException, XMLException {
+        return this.measured(metrics -> this.build(this.createTokenizer(input, metrics), metrics));
+    }
+
+    @Override
+    public Element parse(InputStream input) throws IOException, XMLException {
+        return this.measured(metrics -> this.build(this.createTokenizer(input, metrics), metrics));
+    }
+
+    @Override
+    public Element parse(Reader input) throws IOException, XMLException {
+        return this.measured(metrics -> {
+            Reader reader = InputDecoder.reader(input);
+            return this.build(filter(TokenizerFactory.createTokenizer(
+                    metrics != null ? new MeteredReader(reader, metrics) : reader, this.config.getTokenizerMode(),
+                    this.symbols()), this.config), metrics);
+        });
+    }
+
+    // whatever the tokenizer mode, chars in memory are scanned in place
+    @Override
+    public Element parse(CharBuffer input) throws IOException, XMLException {
+        return this.measured(metrics -> {
+            CharBuffer doc = inMemory(input);
+            if (metrics != null) {
+                metrics.addChars(doc.limit());
+            }
+            return this.build(filter(new BufferedTokenizerImpl(doc.array(), 0, doc.limit(), this.symbols()),
+                    this.config), metrics);
+        });
+    }
+
+    private Element build(TokenCursor cursor, ParseMetrics metrics) throws IOException, XMLException {
+        TreeBuilder builder = new TreeBuilder(null, this.config.getIdAttribute());
+        push(metered(cursor, metrics), builder);
+        return builder.getRoot();
+    }
+
+    @Override
+    public void parse(InputStream input, ContentHandler handler) throws IOException, XMLException {
+        this.measured(metrics -> {
+            push(metered(this.createTokenizer(input, metrics), metrics), handler);
+            return null;
+        });
+    }
+
+    private <T> T measured(Measured<T> parse) throws IOException, XMLException {
+        return measured(this.config.getListener(), parse);
+    }
+
+    // runs the parse with fresh metrics and hands them to the listener; without a listener the parse gets null
+    // and measures nothing
+    static <T> T measured(ParseListener listener, Measured<T> parse) throws IOException, XMLException {
+        if (listener == null) {
+            return parse.run(null);
+        }
+        ParseMetrics metrics = new ParseMetrics();
+        T result;
+        try {
+            result = parse.run(metrics);
+        } catch (IOException | XMLException | RuntimeException e) {
+            metrics.finish();
+            listener.failed(metrics, e);
+            throw e;
+        }
+        metrics.finish();
+        listener.parsed(metrics);
+        return result;
+    }
+
+    interface Measured<T> {
+
+        T run(ParseMetrics metrics) throws IOException, XMLException;
+    }
+
+    static TokenCursor metered(TokenCursor cursor, ParseMetrics metrics) {
+        return metrics != null ? new MeteredCursor(cursor, metrics) : cursor;
+    }
+
+    static void push(TokenCursor cursor, ContentHandler handler) throws IOException, XMLException {
+        handler.startDocument();
+        pushTokens(cursor, handler, new CursorAttributes(cursor));
+        handler.endDocument();
+    }
+
+    // hands the tokens to the handler up to EOF, or up to the end of the input pushed so far (INCOMPLETE)
+    static TokenType pushTokens(TokenCursor cursor, ContentHandler handler, Attributes attributes)
+            throws IOException, XMLException {
+        TokenType tokenType;
+        while ((tokenType = cursor.nextToken()) != TokenType.EOF && tokenType != TokenType.INCOMPLETE) {
+            switch (tokenType) {
+                case START_TAG -> handler.startElement(cursor.getLocalName(), attributes);
+                case END_TAG -> handler.endElement(cursor.getLocalName());
+                case TEXT -> handler.characters(cursor.getTextCharacters(), cursor.getTextStart(), cursor.getTextLength());
+            }
+        }
+        return tokenType;
+    }
+
+    // the whole input decoded into the array of the returned buffer, from index 0 up to its limit
+    static CharBuffer readFully(InputStream input) throws IOException {
+        byte[] bytes = input.readAllBytes();
+        return InputDecoder.decode(bytes, 0, bytes.length);
+    }
+
+    static CharBuffer readFully(Reader reader) throws IOException {
+        char[] doc = new char[8192];
+        int length = 0;
+        int n;
+        while ((n = reader.read(doc, length, doc.length - length)) >= 0) {
+            length += n;
+            if (length == doc.length) {
+                doc = Arrays.copyOf(doc, doc.length * 2);
+            }
+        }
+        return CharBuffer.wrap(doc, 0, dropProlog(doc, length));
+    }
+
+    // moves the document past its byte order mark and XML declaration to the start of the array, returns its length
+    static int dropProlog(char[] doc, int length) {
+        int skip = InputDecoder.prologLength(doc, 0, length);
+        if (skip > 0) {
+            System.arraycopy(doc, skip, doc, 0, length - skip);
+        }
+        return length - skip;
+    }
+
+    // the chars from index 0 of the array of the returned buffer up to its limit, past the byte order mark and XML
+    // declaration the document may start with; copied only if they are not there already
+    static CharBuffer inMemory(CharBuffer input) {
+        boolean inPlace = input.hasArray() && input.arrayOffset() + input.position() == 0;
+        int skip = inPlace ? InputDecoder.prologLength(input.array(), 0, input.limit()) : 0;
+        if (inPlace && skip == 0) {
+            return input;
+        }
+        char[] doc = new char[input.remaining()];
+        input.duplicate().get(doc);
+        return CharBuffer.wrap(doc, 0, dropProlog(doc, doc.length));
+    }
+
+    @Override
+    public Stream<Element> stream(InputStream input, String tagName) throws IOException {
+        if (tagName == null) {
+            throw new IllegalArgumentException();
+        }
+        ParseListener listener = this.config.getListener();
+        ParseMetrics metrics = listener != null ? new ParseMetrics() : null;
+        RecordIterator records = new RecordIterator(metered(this.createTokenizer(input, metrics), metrics), tagName,
+                listener, metrics);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // with metrics the bytes and chars read are counted, mapped files are counted by their size
+    private TokenCursor createTokenizer(InputStream input, ParseMetrics metrics) throws IOException {
+        TokenizerMode mode = this.config.getTokenizerMode();
+        if (metrics == null) {
+            return filter(TokenizerFactory.createTokenizer(input, mode, this.symbols()), this.config);
+        }
+        if (mode == TokenizerMode.MAPPED && input instanceof FileInputStream) {
+            FileChannel channel = ((FileInputStream) input).getChannel();
+            metrics.addBytes(channel.size() - channel.position());
+            return filter(TokenizerFactory.createTokenizer(input, mode, this.symbols()), this.config);
+        }
+        Reader reader = new MeteredReader(InputDecoder.reader(new MeteredInputStream(input, metrics)), metrics);
+        return filter(TokenizerFactory.createTokenizer(reader, mode, this.symbols()), this.config);
+    }
+
+    private SymbolTable symbols() {
+        SymbolTable symbols = this.config.getSymbols();
+        return symbols != null ? symbols : new SymbolTable();
+    }
+
+    static TokenCursor filter(TokenCursor cursor, ParserConfig config) {
+        if (config.isWhitespaceDropped() || config.isTextTrimmed()) {
+            return new TextFilter(cursor, config.isWhitespaceDropped(), config.isTextTrimmed());
+        }
+        return cursor;
+    }
+
+    // exposes the attributes of the current start tag without copying them
+    static final class CursorAttributes implements Attributes {
+        private final TokenCursor cursor;
+
+        CursorAttributes(TokenCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public int getAttributeCount() {
+            return this.cursor.getAttributeCount();
+        }
+
+        @Override
+        public String getAttributeName(int i) {
+            return this.cursor.getAttributeName(i);
+        }
+
+        @Override
+        public String getAttributeValue(int i) {
+            return this.cursor.getAttributeValue(i);
+        }
+    }
+}
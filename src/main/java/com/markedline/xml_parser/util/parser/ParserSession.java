@@ -0,0 +1,249 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.metrics.ParseMetrics;
+import com.markedline.xml_parser.util.tokenizer.BufferedTokenizerImpl;
+import com.markedline.xml_parser.util.tokenizer.InputDecoder;
+import com.markedline.xml_parser.util.tokenizer.SymbolTable;
+import com.markedline.xml_parser.util.tokenizer.TokenCursor;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+// Builds the same trees as ParserImpl, one document after another, keeping what ParserImpl allocates anew for every
+// document: the byte and char buffers the input is read and decoded into, the tokenizer, the symbol table and the
+// tree builder. Trees share nothing with the session, they stay valid after the next parse. A listener of the config
+// gets metrics from the decoded chars on, reading and decoding are not measured. Not thread-safe, SessionParserImpl
+// pools sessions for threads to share.
+public final class ParserSession implements Parser {
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    // buffers grown past this by a large document are dropped after it
+    private static final int MAX_KEPT_BUFFER_SIZE = 1024 * 1024;
+    // a table filled by documents with ever new names is started over
+    private static final int MAX_SYMBOLS = 4096;
+
+    private final ParserConfig config;
+    private final TreeBuilder builder;
+    private SymbolTable symbols;
+    private BufferedTokenizerImpl tokenizer;
+    private TokenCursor cursor;
+    private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+    private char[] chars = new char[INITIAL_BUFFER_SIZE];
+    private boolean busy;
+
+    public ParserSession() {
+        this(ParserConfig.DEFAULT);
+    }
+
+    public ParserSession(ParserConfig config) {
+        this.config = config;
+        this.builder = new TreeBuilder(null, config.getIdAttribute());
+        this.symbols = config.getSymbols() != null ? config.getSymbols() : new SymbolTable();
+    }
+
+    // true while a document is parsed, a handler must not start another parse in the same session
+    public boolean isBusy() {
+        return this.busy;
+    }
+
+    @Override
+    public Element parse(FileInputStream input) throws IOException, XMLException {
+        return this.parse((InputStream) input);
+    }
+
+    @Override
+    public Element parse(InputStream input) throws IOException, XMLException {
+        this.start();
+        try {
+            return this.build(this.decode(this.read(input)));
+        } finally {
+            this.finish();
+        }
+    }
+
+    @Override
+    public Element parse(Reader input) throws IOException, XMLException {
+        this.start();
+        try {
+            int length = 0;
+            int n;
+            while ((n = input.read(this.chars, length, this.chars.length - length)) >= 0) {
+                length += n;
+                if (length == this.chars.length) {
+                    this.chars = Arrays.copyOf(this.chars, length * 2);
+                }
+            }
+            return this.build(CharBuffer.wrap(this.chars, 0, ParserImpl.dropProlog(this.chars, length)));
+        } finally {
+            this.finish();
+        }
+    }
+
+    // the chars are scanned in place like ParserImpl does
+    @Override
+    public Element parse(CharBuffer input) throws IOException, XMLException {
+        this.start();
+        try {
+            return this.build(ParserImpl.inMemory(input));
+        } finally {
+            this.finish();
+        }
+    }
+
+    @Override
+    public Element parse(byte[] input) throws IOException, XMLException {
+        this.start();
+        try {
+            return this.build(this.decode(input, input.length));
+        } finally {
+            this.finish();
+        }
+    }
+
+    @Override
+    public Element parse(ByteBuffer input) throws IOException, XMLException {
+        if (input.hasArray()) {
+            this.start();
+            try {
+                CharBuffer doc = InputDecoder.decode(input.array(), input.arrayOffset() + input.position(),
+                        input.remaining(), this.chars);
+                input.position(input.limit());
+                this.chars = doc.array();
+                return this.build(doc);
+            } finally {
+                this.finish();
+            }
+        }
+        return this.parse(new ByteBufferInputStream(input));
+    }
+
+    @Override
+    public void parse(InputStream input, ContentHandler handler) throws IOException, XMLException {
+        this.start();
+        try {
+            CharBuffer doc = this.decode(this.read(input));
+            ParserImpl.measured(this.config.getListener(), metrics -> {
+                ParserImpl.push(this.cursor(doc, metrics), handler);
+                return null;
+            });
+        } finally {
+            this.finish();
+        }
+    }
+
+    // records are read with a buffer of their own, as ParserImpl does
+    @Override
+    public Stream<Element> stream(InputStream input, String tagName) throws IOException {
+        return new ParserImpl(this.config).stream(input, tagName);
+    }
+
+    private Element build(CharBuffer doc) throws IOException, XMLException {
+        return ParserImpl.measured(this.config.getListener(), metrics -> {
+            ParserImpl.push(this.cursor(doc, metrics), this.builder);
+            return this.builder.getRoot();
+        });
+    }
+
+    private TokenCursor cursor(CharBuffer doc, ParseMetrics metrics) {
+        if (metrics != null) {
+            metrics.addChars(doc.limit());
+        }
+        return ParserImpl.metered(this.cursor(doc), metrics);
+    }
+
+    private TokenCursor cursor(CharBuffer doc) {
+        if (this.tokenizer == null || this.symbols.size() > MAX_SYMBOLS && this.config.getSymbols() == null) {
+            if (this.tokenizer != null) {
+                this.symbols = new SymbolTable();
+            }
+            this.tokenizer = new BufferedTokenizerImpl(doc.array(), 0, doc.limit(), this.symbols);
+            this.cursor = ParserImpl.filter(this.tokenizer, this.config);
+        } else {
+            this.tokenizer.reset(doc.array(), 0, doc.limit());
+        }
+        return this.cursor;
+    }
+
+    // number of bytes read into the byte buffer
+    private int read(InputStream input) throws IOException {
+        if (input instanceof FileInputStream) {
+            // the whole file fits without growing the buffer
+            FileChannel channel = ((FileInputStream) input).getChannel();
+            long remaining = channel.size() - channel.position();
+            if (remaining >= this.bytes.length && remaining < Integer.MAX_VALUE) {
+                this.bytes = new byte[(int) remaining + 1];
+            }
+        }
+        int length = 0;
+        int n;
+        while ((n = input.read(this.bytes, length, this.bytes.length - length)) >= 0) {
+            length += n;
+            if (length == this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, length * 2);
+            }
+        }
+        return length;
+    }
+
+    private CharBuffer decode(int length) throws IOException {
+        return this.decode(this.bytes, length);
+    }
+
+    private CharBuffer decode(byte[] bytes, int length) throws IOException {
+        CharBuffer doc = InputDecoder.decode(bytes, 0, length, this.chars);
+        this.chars = doc.array();
+        return doc;
+    }
+
+    private void start() {
+        if (this.busy) {
+            throw new IllegalStateException("session is already parsing");
+        }
+        this.busy = true;
+    }
+
+    // the tokenizer lets go of the input, buffers of a large document are dropped
+    private void finish() {
+        this.busy = false;
+        if (this.bytes.length > MAX_KEPT_BUFFER_SIZE) {
+            this.bytes = new byte[INITIAL_BUFFER_SIZE];
+        }
+        if (this.chars.length > MAX_KEPT_BUFFER_SIZE) {
+            this.chars = new char[INITIAL_BUFFER_SIZE];
+        }
+        if (this.tokenizer != null) {
+            this.tokenizer.reset(this.chars, 0, 0);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!this.buffer.hasRemaining()) {
+                return len == 0 ? 0 : -1;
+            }
+            int n = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.util.tokenizer.BufferedTokenizerImpl;
+import com.markedline.xml_parser.util.tokenizer.SymbolTable;
+import com.markedline.xml_parser.util.tokenizer.TokenCursor;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// Parses a document that is handed over in chunks as it arrives, e.g. from a non-blocking channel, so one thread
+// can serve many documents at a time. Chunks may end anywhere, also inside a tag or a multi-byte char; every token
+// that is complete goes to the handler before feed() returns, the rest waits for the next chunk. The handler sees
+// the same callbacks ParserImpl gives it for the whole input.
+public final class PushParser {
+    private static final int CHAR_BUFFER_SIZE = 1024;
+
+    private final ContentHandler handler;
+    private final CharsetDecoder decoder;
+    private final BufferedTokenizerImpl tokenizer;
+    private final TokenCursor cursor;
+    private final Attributes attributes;
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    // start of a char split between two chunks
+    private final ByteBuffer pending = ByteBuffer.allocate(16);
+    private boolean started;
+    private boolean ended;
+
+    public PushParser(ContentHandler handler) {
+        this(handler, StandardCharsets.UTF_8, ParserConfig.DEFAULT);
+    }
+
+    // the tokenizer mode of the config is not used
+    public PushParser(ContentHandler handler, Charset charset, ParserConfig config) {
+        this.handler = handler;
+        // same as InputStreamReader does for the other parsers
+        this.decoder = charset.newDecoder().
+                onMalformedInput(CodingErrorAction.REPLACE).
+                onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.tokenizer = BufferedTokenizerImpl.push(config.getSymbols() != null ?
+                config.getSymbols() : new SymbolTable());
+        this.cursor = ParserImpl.filter(this.tokenizer, config);
+        this.attributes = new ParserImpl.CursorAttributes(this.cursor);
+    }
+
+    // consumes all remaining bytes of the chunk
+    public void feed(ByteBuffer chunk) throws IOException, XMLException {
+        if (this.ended) {
+            throw new IllegalStateException();
+        }
+        while (this.pending.position() > 0 && chunk.hasRemaining()) {
+            this.pending.put(chunk.get());
+            this.pending.flip();
+            this.decode(this.pending, false);
+            this.pending.compact();
+        }
+        this.decode(chunk, false);
+        this.pending.put(chunk);
+        this.pushTokens();
+    }
+
+    // the input is complete, an unfinished token is an error like at the end of a stream
+    public void end() throws IOException, XMLException {
+        if (this.ended) {
+            throw new IllegalStateException();
+        }
+        this.ended = true;
+        this.pending.flip();
+        this.decode(this.pending, true);
+        this.decoder.flush(this.chars);
+        this.handChars();
+        this.tokenizer.endOfInput();
+        this.pushTokens();
+        this.handler.endDocument();
+    }
+
+    private void decode(ByteBuffer in, boolean endOfInput) {
+        CoderResult result;
+        do {
+            result = this.decoder.decode(in, this.chars, endOfInput);
+            this.handChars();
+        } while (result.isOverflow());
+    }
+
+    private void handChars() {
+        if (this.chars.position() > 0) {
+            this.tokenizer.feed(this.chars.array(), 0, this.chars.position());
+            this.chars.clear();
+        }
+    }
+
+    private void pushTokens() throws IOException, XMLException {
+        if (!this.started) {
+            this.started = true;
+            this.handler.startDocument();
+        }
+        ParserImpl.pushTokens(this.cursor, this.handler, this.attributes);
+    }
+}
@@ -0,0 +1,74 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Attribute;
+import com.markedline.xml_parser.node.Element;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Builds every element with the given tag name as a detached subtree and hands it over as soon as its end tag is
+// read, like Parser.stream() does for pulled input; nested matches stay inside their record. An unclosed record
+// is handed over as far as it got at the end of the document.
+public final class RecordHandler implements ContentHandler {
+    private final String tagName;
+    private final Consumer<Element> records;
+    private final Deque<Element> elementStack = new ArrayDeque<>();
+
+    public RecordHandler(String tagName, Consumer<Element> records) {
+        if (tagName == null) {
+            throw new IllegalArgumentException();
+        }
+        this.tagName = tagName;
+        this.records = records;
+    }
+
+    @Override
+    public void startDocument() {
+        this.elementStack.clear();
+    }
+
+    @Override
+    public void startElement(String tagName, Attributes attributes) {
+        if (this.elementStack.isEmpty() && !this.tagName.equals(tagName)) {
+            return;
+        }
+        int count = attributes.getAttributeCount();
+        List<Attribute> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new Attribute(attributes.getAttributeName(i), attributes.getAttributeValue(i)));
+        }
+        Element element = new Element.Builder().withTagName(tagName).withAttributes(list).build();
+        if (!this.elementStack.isEmpty()) {
+            this.elementStack.peek().addChild(element);
+        }
+        this.elementStack.push(element);
+    }
+
+    @Override
+    public void endElement(String tagName) {
+        if (!this.elementStack.isEmpty()) {
+            Element element = this.elementStack.pop();
+            if (this.elementStack.isEmpty()) {
+                this.records.accept(element);
+            }
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (!this.elementStack.isEmpty()) {
+            this.elementStack.peek().addChild(new Element.Builder().withText(new String(ch, start, length)).build());
+        }
+    }
+
+    @Override
+    public void endDocument() {
+        if (!this.elementStack.isEmpty()) {
+            this.records.accept(this.elementStack.getLast());
+            this.elementStack.clear();
+        }
+    }
+}
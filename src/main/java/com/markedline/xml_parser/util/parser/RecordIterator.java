@@ -0,0 +1,129 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Attribute;
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.metrics.ParseListener;
+import com.markedline.xml_parser.util.metrics.ParseMetrics;
+import com.markedline.xml_parser.util.tokenizer.TokenCursor;
+import com.markedline.xml_parser.util.tokenizer.TokenType;
+import com.markedline.xml_parser.util.tokenizer.UncheckedXMLException;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Pulls tokens only until the next element with the given tag name has been read and returns it as a detached
+// subtree; nothing outside of the matched elements is built or kept. With a listener the metrics are handed over
+// once the input has been read to its end or has failed; records left unread are never reported.
+final class RecordIterator implements Iterator<Element> {
+    private final TokenCursor cursor;
+    private final String tagName;
+    private final ParseMetrics metrics;
+    private final Deque<Element> elementStack = new ArrayDeque<>();
+    // dropped once the metrics have been reported
+    private ParseListener listener;
+    private Element next;
+    private boolean done;
+
+    RecordIterator(TokenCursor cursor, String tagName, ParseListener listener, ParseMetrics metrics) {
+        this.cursor = cursor;
+        this.tagName = tagName;
+        this.listener = listener;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next == null && !this.done) {
+            try {
+                this.next = this.readRecord();
+            } catch (IOException e) {
+                this.report(e);
+                throw new UncheckedIOException(e);
+            } catch (XMLException e) {
+                this.report(e);
+                throw new UncheckedXMLException(e);
+            } catch (RuntimeException e) {
+                this.report(e);
+                throw e;
+            }
+            this.done = this.next == null;
+            if (this.done) {
+                this.report(null);
+            }
+        }
+        return this.next != null;
+    }
+
+    // once, the end of the input or the first error ends the parse
+    private void report(Exception error) {
+        ParseListener listener = this.listener;
+        if (listener != null) {
+            this.listener = null;
+            this.metrics.finish();
+            if (error != null) {
+                listener.failed(this.metrics, error);
+            } else {
+                listener.parsed(this.metrics);
+            }
+        }
+    }
+
+    @Override
+    public Element next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Element record = this.next;
+        this.next = null;
+        return record;
+    }
+
+    private Element readRecord() throws IOException, XMLException {
+        TokenType tokenType;
+        // skip everything up to the next matching start tag
+        do {
+            tokenType = this.cursor.nextToken();
+            if (tokenType == TokenType.EOF) {
+                return null;
+            }
+        } while (tokenType != TokenType.START_TAG || !this.tagName.equals(this.cursor.getLocalName()));
+
+        Element record = this.startElement();
+        this.elementStack.push(record);
+        while (!this.elementStack.isEmpty()) {
+            switch (this.cursor.nextToken()) {
+                case START_TAG -> {
+                    Element element = this.startElement();
+                    this.elementStack.peek().addChild(element);
+                    this.elementStack.push(element);
+                }
+                case END_TAG -> this.elementStack.pop();
+                case TEXT -> {
+                    Element element = new Element.Builder().withText(this.cursor.getText()).build();
+                    this.elementStack.peek().addChild(element);
+                }
+                // an unclosed record is returned as far as it got, like ParserImpl does with unclosed documents
+                case EOF -> this.elementStack.clear();
+            }
+        }
+        return record;
+    }
+
+    private Element startElement() {
+        int count = this.cursor.getAttributeCount();
+        List<Attribute> attributes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            attributes.add(new Attribute(this.cursor.getAttributeName(i), this.cursor.getAttributeValue(i)));
+        }
+        return new Element.Builder().
+                withTagName(this.cursor.getLocalName()).
+                withAttributes(attributes).build();
+    }
+}
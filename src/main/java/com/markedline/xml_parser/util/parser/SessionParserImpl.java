@@ -0,0 +1,113 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Parser that threads may share: a parse takes an idle ParserSession from a pool, or starts a new one when none is
+// idle, and gives it back when it is done. Sessions are therefore reused whatever thread parses, threads that are
+// started per task and virtual threads included, and a parse started by a handler while a parse runs simply takes
+// another session. At most maxIdleSessions are kept between parses. A symbol table given in the config is used by
+// all the sessions, so it must be left out when several threads parse.
+public final class SessionParserImpl implements Parser {
+    private final ParserConfig config;
+    private final int maxIdleSessions;
+    // most recently given back first, its buffers are the likeliest to be in the cache
+    private final ConcurrentLinkedDeque<ParserSession> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    public SessionParserImpl() {
+        this(ParserConfig.DEFAULT);
+    }
+
+    public SessionParserImpl(ParserConfig config) {
+        this(config, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public SessionParserImpl(ParserConfig config, int maxIdleSessions) {
+        if (maxIdleSessions < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.config = config;
+        this.maxIdleSessions = maxIdleSessions;
+    }
+
+    @Override
+    public Element parse(FileInputStream input) throws IOException, XMLException {
+        return this.inSession(session -> session.parse(input));
+    }
+
+    @Override
+    public Element parse(InputStream input) throws IOException, XMLException {
+        return this.inSession(session -> session.parse(input));
+    }
+
+    @Override
+    public Element parse(Reader input) throws IOException, XMLException {
+        return this.inSession(session -> session.parse(input));
+    }
+
+    @Override
+    public Element parse(CharBuffer input) throws IOException, XMLException {
+        return this.inSession(session -> session.parse(input));
+    }
+
+    @Override
+    public Element parse(byte[] input) throws IOException, XMLException {
+        return this.inSession(session -> session.parse(input));
+    }
+
+    @Override
+    public Element parse(ByteBuffer input) throws IOException, XMLException {
+        return this.inSession(session -> session.parse(input));
+    }
+
+    @Override
+    public void parse(InputStream input, ContentHandler handler) throws IOException, XMLException {
+        this.inSession(session -> {
+            session.parse(input, handler);
+            return null;
+        });
+    }
+
+    @Override
+    public Stream<Element> stream(InputStream input, String tagName) throws IOException {
+        return new ParserImpl(this.config).stream(input, tagName);
+    }
+
+    int getIdleSessions() {
+        return this.idleCount.get();
+    }
+
+    private <T> T inSession(SessionParse<T> parse) throws IOException, XMLException {
+        ParserSession session = this.idle.pollFirst();
+        if (session != null) {
+            this.idleCount.decrementAndGet();
+        } else {
+            session = new ParserSession(this.config);
+        }
+        try {
+            return parse.run(session);
+        } finally {
+            if (this.idleCount.incrementAndGet() <= this.maxIdleSessions) {
+                this.idle.offerFirst(session);
+            } else {
+                this.idleCount.decrementAndGet();
+            }
+        }
+    }
+
+    private interface SessionParse<T> {
+
+        T run(ParserSession session) throws IOException, XMLException;
+    }
+}
@@ -0,0 +1,102 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Attribute;
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.node.IdIndex;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Builds the Element tree ParserImpl returns
+public final class TreeBuilder implements ContentHandler {
+
+    private final Deque<Element> elementStack = new ArrayDeque<>();
+    // parent for the content of a document fragment, null for whole documents
+    private final Element parent;
+    // elements are indexed by this attribute as they are started, null when no index is built
+    private final String idAttribute;
+    private IdIndex idIndex;
+
+    public TreeBuilder() {
+        this(null);
+    }
+
+    TreeBuilder(Element parent) {
+        this(parent, null);
+    }
+
+    TreeBuilder(Element parent, String idAttribute) {
+        this.parent = parent;
+        this.idAttribute = idAttribute;
+    }
+
+    @Override
+    public void startDocument() {
+        this.elementStack.clear();
+        this.idIndex = this.idAttribute != null ? new IdIndex(this.idAttribute) : null;
+        if (this.parent != null) {
+            this.elementStack.push(this.parent);
+        }
+    }
+
+    @Override
+    public void startElement(String tagName, Attributes attributes) {
+        this.startElement(new Element.Builder().
+                withTagName(tagName).
+                withAttributes(attributesOf(attributes)).build());
+    }
+
+    void startElement(Element element) {
+        if (this.idIndex != null) {
+            this.idIndex.add(element);
+        }
+        if (!this.elementStack.isEmpty()) {
+            this.elementStack.peek().addChild(element);
+        }
+        this.elementStack.push(element);
+    }
+
+    @Override
+    public void endElement(String tagName) {
+        if (this.elementStack.size() > 1)
+            this.elementStack.pop();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        this.characters(new Element.Builder().withText(new String(ch, start, length)).build());
+    }
+
+    void characters(Element element) {
+        this.elementStack.peek().addChild(element);
+    }
+
+    @Override
+    public void endDocument() {
+    }
+
+    public Element getRoot() throws XMLException {
+        if (!this.elementStack.isEmpty()) {
+            Element root = this.elementStack.pop();
+            // a builder that is used again must not keep the tree alive
+            this.elementStack.clear();
+            if (this.idIndex != null) {
+                this.idIndex.attach(root);
+            }
+            return root;
+        } else
+            throw new XMLException("empty xml document");
+    }
+
+    private static List<Attribute> attributesOf(Attributes attributes) {
+        int count = attributes.getAttributeCount();
+        List<Attribute> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new Attribute(attributes.getAttributeName(i), attributes.getAttributeValue(i)));
+        }
+        return list;
+    }
+}
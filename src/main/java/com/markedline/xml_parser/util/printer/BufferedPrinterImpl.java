@@ -0,0 +1,100 @@
+package com.markedline.xml_parser.util.printer;
+
+import com.markedline.xml_parser.node.Element;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+// Prints the same output as PrinterImpl, collected in a char buffer and handed to the target in large blocks.
+// The tree is walked with an explicit stack, so its depth is not limited by the thread stack.
+public final class BufferedPrinterImpl implements Printer {
+    static final String DELIMITER = "-";
+    static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final OutputBuffer out;
+
+    public BufferedPrinterImpl() {
+        this((OutputStream) System.out);
+    }
+
+    public BufferedPrinterImpl(OutputStream out) {
+        this(new OutputStreamWriter(out));
+    }
+
+    public BufferedPrinterImpl(Appendable out) {
+        this.out = new OutputBuffer(out);
+    }
+
+    // the output is flushed when the whole element is printed, IOExceptions of the target are rethrown unchecked
+    @Override
+    public void print(Element element) {
+        try {
+            if (element.hasChildren()) {
+                int i = 0;
+                for (Element elem : element.getChildren()) {
+                    if (elem.getText() == null || hasAlphanumeric(elem.getText())) {
+                        this.out.write(Integer.toString(++i));
+                        this.out.write(". ");
+                        this.printChildTree(elem);
+                        this.out.write(LINE_SEPARATOR);
+                    }
+                }
+            }
+            this.out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // texts of the leaves in document order
+    private void printChildTree(Element child) throws IOException {
+        Deque<Iterator<Element>> stack = new ArrayDeque<>();
+        Element element = child;
+        while (true) {
+            List<Element> children = element.hasChildren() ? element.getChildren() : null;
+            if (children != null) {
+                stack.push(children.iterator());
+            } else if (element.getText() != null && hasAlphanumeric(element.getText())) {
+                this.out.write(element.getText());
+                this.out.write(DELIMITER);
+            }
+
+            while (!stack.isEmpty() && !stack.peek().hasNext()) {
+                stack.pop();
+            }
+            if (stack.isEmpty()) {
+                return;
+            }
+            element = stack.peek().next();
+        }
+    }
+
+    // same as matching "(?s).*[a-zA-Z0-9].*"
+    static boolean hasAlphanumeric(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (isAlphanumeric(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean hasAlphanumeric(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (isAlphanumeric(chars[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,74 @@
+package com.markedline.xml_parser.util.printer;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+// Collects output in a char buffer and hands it to the target in large blocks
+final class OutputBuffer {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Appendable out;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private final CharBuffer view = CharBuffer.wrap(this.buf);
+    private int pos;
+
+    OutputBuffer(Appendable out) {
+        this.out = out;
+    }
+
+    void write(char c) throws IOException {
+        if (this.pos == this.buf.length) {
+            this.drain();
+        }
+        this.buf[this.pos++] = c;
+    }
+
+    void write(String s) throws IOException {
+        this.write(s, 0, s.length());
+    }
+
+    // the chars of s from start to end
+    void write(String s, int start, int end) throws IOException {
+        int written = start;
+        while (written < end) {
+            if (this.pos == this.buf.length) {
+                this.drain();
+            }
+            int n = Math.min(end - written, this.buf.length - this.pos);
+            s.getChars(written, written + n, this.buf, this.pos);
+            this.pos += n;
+            written += n;
+        }
+    }
+
+    void write(char[] chars, int offset, int length) throws IOException {
+        int written = 0;
+        while (written < length) {
+            if (this.pos == this.buf.length) {
+                this.drain();
+            }
+            int n = Math.min(length - written, this.buf.length - this.pos);
+            System.arraycopy(chars, offset + written, this.buf, this.pos, n);
+            this.pos += n;
+            written += n;
+        }
+    }
+
+    void flush() throws IOException {
+        this.drain();
+        if (this.out instanceof Flushable) {
+            ((Flushable) this.out).flush();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (this.out instanceof Writer) {
+            ((Writer) this.out).write(this.buf, 0, this.pos);
+        } else {
+            this.out.append(this.view, 0, this.pos);
+        }
+        this.pos = 0;
+    }
+}
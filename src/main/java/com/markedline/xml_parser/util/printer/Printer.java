@@ -1,8 +1,8 @@
-package com.markedline.xml_parser.util.printer;
-
-import com.markedline.xml_parser.node.Element;
-
-public interface Printer {
-
-    void print(Element element);
-}
+package com.markedline.xml_parser.util.printer;
+
+import com.markedline.xml_parser.node.Element;
+
+public interface Printer {
+
+    void print(Element element);
+}
@@ -0,0 +1,100 @@
+package com.markedline.xml_parser.util.printer;
+
+import com.markedline.xml_parser.util.parser.Attributes;
+import com.markedline.xml_parser.util.parser.ContentHandler;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.EmptyStackException;
+
+// Prints what BufferedPrinterImpl prints for the tree of a document straight from the parse events, so nothing but
+// the output buffer is kept. A child of the root is written out as soon as its end tag is seen.
+// Unlike the tree, the output starts before the whole document is read: a malformed document fails after
+// the children before the error are printed, and an unclosed one is printed from its root instead of from its
+// innermost open element.
+public final class PrintingHandler implements ContentHandler {
+    // flushing every child of the root costs a system call each, output is held back for at most this long
+    private static final long FLUSH_INTERVAL = 10_000_000L;
+
+    private final OutputBuffer out;
+    // the element stack size ParserImpl would have: end tags never pop the root
+    private int depth;
+    private int count;
+    private long lastFlush;
+
+    public PrintingHandler() {
+        this((OutputStream) System.out);
+    }
+
+    public PrintingHandler(OutputStream out) {
+        this(new OutputStreamWriter(out));
+    }
+
+    public PrintingHandler(Appendable out) {
+        this.out = new OutputBuffer(out);
+    }
+
+    @Override
+    public void startDocument() {
+        this.depth = 0;
+        this.count = 0;
+        this.lastFlush = System.nanoTime() - FLUSH_INTERVAL;
+    }
+
+    @Override
+    public void startElement(String tagName, Attributes attributes) throws IOException {
+        if (this.depth == 1) {
+            this.startChild();
+        }
+        this.depth++;
+    }
+
+    @Override
+    public void endElement(String tagName) throws IOException {
+        if (this.depth > 1 && --this.depth == 1) {
+            this.endChild();
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws IOException {
+        if (this.depth == 0) {
+            throw new EmptyStackException();
+        }
+        if (BufferedPrinterImpl.hasAlphanumeric(ch, start, length)) {
+            // text right in the root is a child of its own
+            if (this.depth == 1) {
+                this.startChild();
+            }
+            this.out.write(ch, start, length);
+            this.out.write(BufferedPrinterImpl.DELIMITER);
+            if (this.depth == 1) {
+                this.endChild();
+            }
+        }
+    }
+
+    @Override
+    public void endDocument() throws IOException, XMLException {
+        this.out.flush();
+        if (this.depth == 0) {
+            throw new XMLException("empty xml document");
+        }
+    }
+
+    private void startChild() throws IOException {
+        this.out.write(Integer.toString(++this.count));
+        this.out.write(". ");
+    }
+
+    private void endChild() throws IOException {
+        this.out.write(BufferedPrinterImpl.LINE_SEPARATOR);
+        long now = System.nanoTime();
+        if (now - this.lastFlush >= FLUSH_INTERVAL) {
+            this.out.flush();
+            this.lastFlush = now;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.markedline.xml_parser.util.printer;
+
+import com.markedline.xml_parser.node.Element;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+// Prints an Element tree back as XML through an XmlWriter, walking it with an explicit stack. Text and attribute
+// values are written as the parser keeps them, entity references unexpanded, so parsing the output of a tree
+// parsed from a well-formed document gives an equal tree.
+public final class XmlPrinterImpl implements Printer {
+
+    private final XmlWriter writer;
+
+    public XmlPrinterImpl() {
+        this((OutputStream) System.out);
+    }
+
+    public XmlPrinterImpl(OutputStream out) {
+        this.writer = new XmlWriter(out);
+    }
+
+    public XmlPrinterImpl(Appendable out) {
+        this.writer = new XmlWriter(out);
+    }
+
+    // the output is flushed when the whole element is printed, IOExceptions of the target are rethrown unchecked
+    @Override
+    public void print(Element element) {
+        try {
+            Deque<Iterator<Element>> stack = new ArrayDeque<>();
+            Element next = element;
+            while (true) {
+                if (next.getTagName() != null) {
+                    this.writer.writeStartElement(next.getTagName());
+                    if (next.hasAttributes()) {
+                        for (int i = 0; i < next.getAttributeCount(); i++) {
+                            this.writer.writeParsedAttribute(next.getAttributeName(i), next.getAttributeValue(i));
+                        }
+                    }
+                    if (next.hasChildren()) {
+                        stack.push(next.getChildren().iterator());
+                    } else {
+                        this.writer.writeEndElement();
+                    }
+                } else if (next.getText() != null) {
+                    this.writer.writeParsedCharacters(next.getText());
+                }
+
+                while (!stack.isEmpty() && !stack.peek().hasNext()) {
+                    stack.pop();
+                    this.writer.writeEndElement();
+                }
+                if (stack.isEmpty()) {
+                    break;
+                }
+                next = stack.peek().next();
+            }
+            this.writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.markedline.xml_parser.util.printer;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Writes XML as a sequence of calls, without a tree. Names are written as given, attribute values and text are
+// escaped, with runs of chars that need no escaping copied in one go. An element without content is written as
+// <name />, the form the parser reads back. The parser keeps entity references unexpanded, values taken from
+// parsed trees go through writeParsedAttribute and writeParsedCharacters so that they are not escaped twice.
+public final class XmlWriter implements Closeable, Flushable {
+    private final Appendable target;
+    private final OutputBuffer out;
+    private final Deque<String> openElements = new ArrayDeque<>();
+    // the start tag written last still takes attributes, its '>' is not written yet
+    private boolean startTagOpen;
+
+    public XmlWriter(OutputStream out) {
+        this(new OutputStreamWriter(out));
+    }
+
+    public XmlWriter(Appendable out) {
+        this.target = out;
+        this.out = new OutputBuffer(out);
+    }
+
+    public void writeStartElement(String tagName) throws IOException {
+        this.closeStartTag();
+        this.out.write('<');
+        this.out.write(tagName);
+        this.openElements.push(tagName);
+        this.startTagOpen = true;
+    }
+
+    public void writeAttribute(String name, String value) throws IOException {
+        if (!this.startTagOpen) {
+            throw new IllegalStateException();
+        }
+        this.out.write(' ');
+        this.out.write(name);
+        this.out.write("=\"");
+        this.writeEscaped(value, true);
+        this.out.write('"');
+    }
+
+    // the value as the parser keeps it, see writeParsed
+    public void writeParsedAttribute(String name, String value) throws IOException {
+        if (!this.startTagOpen) {
+            throw new IllegalStateException();
+        }
+        // a parsed value holds the other quote only if it was quoted with it
+        char quote = value.indexOf('"') >= 0 && value.indexOf('\'') < 0 ? '\'' : '"';
+        this.out.write(' ');
+        this.out.write(name);
+        this.out.write('=');
+        this.out.write(quote);
+        this.writeParsed(value, quote);
+        this.out.write(quote);
+    }
+
+    public void writeCharacters(String text) throws IOException {
+        this.closeStartTag();
+        this.writeEscaped(text, false);
+    }
+
+    // the text as the parser keeps it, see writeParsed
+    public void writeParsedCharacters(String text) throws IOException {
+        this.closeStartTag();
+        this.writeParsed(text, (char) 0);
+    }
+
+    public void writeCharacters(char[] chars, int offset, int length) throws IOException {
+        this.closeStartTag();
+        int run = offset;
+        for (int i = offset; i < offset + length; i++) {
+            String entity = entity(chars[i], false);
+            if (entity != null) {
+                this.out.write(chars, run, i - run);
+                this.out.write(entity);
+                run = i + 1;
+            }
+        }
+        this.out.write(chars, run, offset + length - run);
+    }
+
+    public void writeEndElement() throws IOException {
+        if (this.openElements.isEmpty()) {
+            throw new IllegalStateException();
+        }
+        String tagName = this.openElements.pop();
+        if (this.startTagOpen) {
+            this.out.write(" />");
+            this.startTagOpen = false;
+        } else {
+            this.out.write("</");
+            this.out.write(tagName);
+            this.out.write('>');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    // closes the target if it can be closed, elements left open are not closed
+    @Override
+    public void close() throws IOException {
+        this.flush();
+        if (this.target instanceof Closeable) {
+            ((Closeable) this.target).close();
+        }
+    }
+
+    private void closeStartTag() throws IOException {
+        if (this.startTagOpen) {
+            this.out.write('>');
+            this.startTagOpen = false;
+        }
+    }
+
+    private void writeEscaped(String s, boolean attribute) throws IOException {
+        int run = 0;
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            String entity = entity(s.charAt(i), attribute);
+            if (entity != null) {
+                this.out.write(s, run, i);
+                this.out.write(entity);
+                run = i + 1;
+            }
+        }
+        this.out.write(s, run, length);
+    }
+
+    // Escapes only what a well-formed document cannot hold there: '<', an '&' that starts no reference and the
+    // quote of an attribute value. A value parsed from a well-formed document is written back unchanged.
+    private void writeParsed(String s, char quote) throws IOException {
+        int run = 0;
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            String entity = null;
+            if (c == '<') {
+                entity = "&lt;";
+            } else if (c == '&' && !isReference(s, i)) {
+                entity = "&amp;";
+            } else if (c == quote) {
+                entity = c == '"' ? "&quot;" : "&apos;";
+            }
+            if (entity != null) {
+                this.out.write(s, run, i);
+                this.out.write(entity);
+                run = i + 1;
+            }
+        }
+        this.out.write(s, run, length);
+    }
+
+    // whether an entity or char reference such as &amp; or &#x26; starts at the '&' at i
+    private static boolean isReference(String s, int i) {
+        int length = s.length();
+        int j = i + 1;
+        int start;
+        if (j < length && s.charAt(j) == '#') {
+            boolean hex = ++j < length && s.charAt(j) == 'x';
+            if (hex) {
+                j++;
+            }
+            start = j;
+            while (j < length && Character.digit(s.charAt(j), hex ? 16 : 10) >= 0) {
+                j++;
+            }
+        } else {
+            start = j;
+            while (j < length && isNameChar(s.charAt(j), j == start)) {
+                j++;
+            }
+        }
+        return j > start && j < length && s.charAt(j) == ';';
+    }
+
+    private static boolean isNameChar(char c, boolean first) {
+        return Character.isLetter(c) || c == '_' || c == ':' ||
+                !first && (Character.isDigit(c) || c == '-' || c == '.');
+    }
+
+    private static String entity(char c, boolean attribute) {
+        // all chars to escape sort before letters, most chars leave here
+        if (c > '>') {
+            return null;
+        }
+        return switch (c) {
+            case '&' -> "&amp;";
+            case '<' -> "&lt;";
+            case '>' -> attribute ? null : "&gt;";
+            case '"' -> attribute ? "&quot;" : null;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.markedline.xml_parser.util.query;
+
+import com.markedline.xml_parser.node.Element;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Elements of a document by tag path ("/breakfast-menu/food/price") and by tag name, each list in document order.
+// Built in one walk of the tree, it describes the tree at that time: rebuild it after the tree is changed.
+public final class PathIndex {
+    private final Element root;
+    private final Map<String, List<Element>> byPath = new HashMap<>();
+    private final Map<String, List<Element>> byName = new HashMap<>();
+
+    public PathIndex(Element root) {
+        this.root = root;
+
+        // element and its path, depth first in document order
+        Deque<Element> elements = new ArrayDeque<>();
+        Deque<String> paths = new ArrayDeque<>();
+        elements.push(root);
+        paths.push("/" + root.getTagName());
+        while (!elements.isEmpty()) {
+            Element element = elements.pop();
+            String path = paths.pop();
+            this.byPath.computeIfAbsent(path, key -> new ArrayList<>()).add(element);
+            this.byName.computeIfAbsent(element.getTagName(), key -> new ArrayList<>()).add(element);
+
+            if (element.hasChildren()) {
+                List<Element> children = element.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    Element child = children.get(i);
+                    if (child.getTagName() != null) {
+                        elements.push(child);
+                        paths.push(path + "/" + child.getTagName());
+                    }
+                }
+            }
+        }
+    }
+
+    public Element getRoot() {
+        return this.root;
+    }
+
+    public List<Element> getByPath(String path) {
+        return Collections.unmodifiableList(this.byPath.getOrDefault(path, Collections.emptyList()));
+    }
+
+    public List<Element> getByName(String tagName) {
+        return Collections.unmodifiableList(this.byName.getOrDefault(tagName, Collections.emptyList()));
+    }
+}
@@ -0,0 +1,236 @@
+package com.markedline.xml_parser.util.query;
+
+import com.markedline.xml_parser.node.Element;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+// Compiled absolute path over an Element tree, a subset of XPath: child steps (/name), descendant steps (//name),
+// any element (*) and attribute predicates ([@attr='value'], several of them must all hold). The first step is
+// matched against the root element itself. Results are unmodifiable lists in document order without duplicates.
+public final class PathQuery {
+    // the step bits of a walk are kept in a long
+    private static final int MAX_STEPS = 64;
+    private static final String ANY = "*";
+
+    private final String expression;
+    private final List<Step> steps;
+
+    private PathQuery(String expression, List<Step> steps) {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    public static PathQuery compile(String expression) {
+        List<Step> steps = new ArrayList<>();
+        int pos = 0;
+        int length = expression.length();
+        while (pos < length) {
+            if (expression.charAt(pos) != '/') {
+                throw syntaxError(expression, pos);
+            }
+            boolean descendant = pos + 1 < length && expression.charAt(pos + 1) == '/';
+            pos += descendant ? 2 : 1;
+
+            int nameStart = pos;
+            while (pos < length && "/[]@='\"".indexOf(expression.charAt(pos)) < 0) {
+                pos++;
+            }
+            if (pos == nameStart) {
+                throw syntaxError(expression, pos);
+            }
+            Step step = new Step(descendant, expression.substring(nameStart, pos));
+
+            while (pos < length && expression.charAt(pos) == '[') {
+                pos = parsePredicate(expression, pos, step);
+            }
+            steps.add(step);
+        }
+        if (steps.isEmpty() || steps.size() > MAX_STEPS) {
+            throw syntaxError(expression, pos);
+        }
+        return new PathQuery(expression, steps);
+    }
+
+    // [@name='value'] or [@name="value"], returns the position after it
+    private static int parsePredicate(String expression, int pos, Step step) {
+        int length = expression.length();
+        if (pos + 1 >= length || expression.charAt(pos + 1) != '@') {
+            throw syntaxError(expression, pos);
+        }
+        int nameStart = pos + 2;
+        int eq = expression.indexOf('=', nameStart);
+        if (eq <= nameStart || eq + 1 >= length) {
+            throw syntaxError(expression, pos);
+        }
+        char quote = expression.charAt(eq + 1);
+        int valueEnd = quote == '\'' || quote == '"' ? expression.indexOf(quote, eq + 2) : -1;
+        if (valueEnd < 0 || valueEnd + 1 >= length || expression.charAt(valueEnd + 1) != ']') {
+            throw syntaxError(expression, pos);
+        }
+        step.attributeNames.add(expression.substring(nameStart, eq));
+        step.attributeValues.add(expression.substring(eq + 2, valueEnd));
+        return valueEnd + 2;
+    }
+
+    private static IllegalArgumentException syntaxError(String expression, int pos) {
+        return new IllegalArgumentException("invalid path at " + pos + ": " + expression);
+    }
+
+    // Walks the whole tree once. Every element carries the bits of the steps its children may match: the step after
+    // each step it matched, and every descendant step that was pending for it.
+    public List<Element> select(Element root) {
+        List<Element> result = new ArrayList<>();
+        int last = this.steps.size() - 1;
+        Deque<Element> elements = new ArrayDeque<>();
+        Deque<Long> pending = new ArrayDeque<>();
+        elements.push(root);
+        pending.push(1L);
+        while (!elements.isEmpty()) {
+            Element element = elements.pop();
+            long steps = pending.pop();
+
+            long next = 0;
+            for (int i = 0; i <= last; i++) {
+                if ((steps & 1L << i) == 0) {
+                    continue;
+                }
+                Step step = this.steps.get(i);
+                if (step.descendant) {
+                    next |= 1L << i;
+                }
+                if (step.matches(element)) {
+                    if (i == last) {
+                        result.add(element);
+                    } else {
+                        next |= 1L << (i + 1);
+                    }
+                }
+            }
+
+            if (next != 0 && element.hasChildren()) {
+                List<Element> children = element.getChildren();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    if (children.get(i).getTagName() != null) {
+                        elements.push(children.get(i));
+                        pending.push(next);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    // Takes the elements that can match the last step from the index and keeps those whose ancestors match the
+    // steps before; a path of child steps naming every element is looked up directly. Falls back to walking the
+    // tree when the last step is *.
+    public List<Element> select(PathIndex index) {
+        int last = this.steps.size() - 1;
+        Step lastStep = this.steps.get(last);
+        List<Element> candidates;
+        if (this.isPlainPath()) {
+            candidates = index.getByPath(this.plainPath());
+        } else if (!lastStep.name.equals(ANY)) {
+            candidates = index.getByName(lastStep.name);
+        } else {
+            return this.select(index.getRoot());
+        }
+
+        // the index alone answers /a/b/c and //c
+        if (!this.hasPredicates() && (this.isPlainPath() || last == 0)) {
+            return candidates;
+        }
+        List<Element> result = new ArrayList<>();
+        for (Element candidate : candidates) {
+            if (this.matchesUp(candidate, last, index.getRoot())) {
+                result.add(candidate);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    // element matches step i, and its ancestors up to the root match the steps before
+    private boolean matchesUp(Element element, int i, Element root) {
+        Step step = this.steps.get(i);
+        if (!step.matches(element)) {
+            return false;
+        }
+        if (i == 0) {
+            return step.descendant || element == root;
+        }
+        if (element == root) {
+            return false;
+        }
+        if (!step.descendant) {
+            return this.matchesUp(element.getParent(), i - 1, root);
+        }
+        for (Element ancestor = element.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (this.matchesUp(ancestor, i - 1, root)) {
+                return true;
+            }
+            if (ancestor == root) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private boolean isPlainPath() {
+        for (Step step : this.steps) {
+            if (step.descendant || step.name.equals(ANY)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String plainPath() {
+        StringBuilder path = new StringBuilder();
+        for (Step step : this.steps) {
+            path.append('/').append(step.name);
+        }
+        return path.toString();
+    }
+
+    private boolean hasPredicates() {
+        for (Step step : this.steps) {
+            if (!step.attributeNames.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return this.expression;
+    }
+
+    private static final class Step {
+        private final boolean descendant;
+        private final String name;
+        private final List<String> attributeNames = new ArrayList<>(1);
+        private final List<String> attributeValues = new ArrayList<>(1);
+
+        private Step(boolean descendant, String name) {
+            this.descendant = descendant;
+            this.name = name;
+        }
+
+        private boolean matches(Element element) {
+            if (element.getTagName() == null || !this.name.equals(ANY) && !this.name.equals(element.getTagName())) {
+                return false;
+            }
+            for (int i = 0; i < this.attributeNames.size(); i++) {
+                if (!element.hasAttributes() ||
+                        !this.attributeValues.get(i).equals(element.getAttributeValue(this.attributeNames.get(i)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import com.markedline.xml_parser.node.Attribute;
+import com.markedline.xml_parser.node.Element;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Same token contract as TokenizerImpl, but scans a reusable char[] window by index instead of pulling
+// the input char by char through BufferedReader.read()
+public final class BufferedTokenizerImpl implements TokenCursor {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    // pushed documents are many and mostly small, their window grows as needed
+    private static final int PUSH_BUFFER_SIZE = 1024;
+    private static final IOException INCOMPLETE_INPUT = new IncompleteInput();
+
+    private final Reader reader;
+    private final SymbolTable symbols;
+    private char[] buf;
+    // next char to scan
+    private int pos;
+    // end of valid data in buf
+    private int limit;
+    // start of the current token, everything before it may be dropped on refill;
+    // all token offsets below are relative to it
+    private int mark;
+    private boolean eof;
+    private TokenType tokenType = TokenType.BOF;
+    private int nameStart;
+    private int nameLength;
+    // materialized on first request
+    private String tagName;
+    private int textStart;
+    private int textLength;
+    // name start, name length, value start, value length for every attribute
+    private int[] attrs = new int[16];
+    private int attrCount;
+    private boolean hasEndTag;
+    // token before an INCOMPLETE one, scanning starts over from it
+    private TokenType resumeType;
+    // a run of text or of an attribute value that went past the chars fed so far: it starts at runStart and has
+    // no delimiter before runEnd, so scanning it again resumes at runEnd; -1 if there is none
+    private int runStart = -1;
+    private int runEnd;
+
+    public BufferedTokenizerImpl(InputStream reader) {
+        this(reader, new SymbolTable());
+    }
+
+    public BufferedTokenizerImpl(InputStream reader, SymbolTable symbols) {
+        this(new InputStreamReader(reader), DEFAULT_BUFFER_SIZE, symbols);
+    }
+
+    public BufferedTokenizerImpl(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedTokenizerImpl(Reader reader, SymbolTable symbols) {
+        this(reader, DEFAULT_BUFFER_SIZE, symbols);
+    }
+
+    public BufferedTokenizerImpl(Reader reader, int bufferSize) {
+        this(reader, bufferSize, new SymbolTable());
+    }
+
+    public BufferedTokenizerImpl(Reader reader, int bufferSize, SymbolTable symbols) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.reader = reader;
+        this.symbols = symbols;
+        this.buf = new char[bufferSize];
+    }
+
+    // tokenizes a document that is already in memory, the array is scanned in place and never modified
+    public BufferedTokenizerImpl(char[] buf, int offset, int length) {
+        this(buf, offset, length, new SymbolTable());
+    }
+
+    public BufferedTokenizerImpl(char[] buf, int offset, int length, SymbolTable symbols) {
+        this.reader = null;
+        this.symbols = symbols;
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.mark = offset;
+        this.eof = true;
+    }
+
+    // starts over on another document in memory, keeping the buffers of this tokenizer; only for tokenizers
+    // made for chars in memory
+    public void reset(char[] buf, int offset, int length) {
+        if (this.reader != null) {
+            throw new IllegalStateException();
+        }
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.mark = offset;
+        this.eof = true;
+        this.tokenType = TokenType.BOF;
+        this.hasEndTag = false;
+        this.resumeType = null;
+        this.runStart = -1;
+        this.resetState(true);
+    }
+
+    // tokenizes a slice of element content as if it followed a tag: leading text is reported instead of skipped
+    public static BufferedTokenizerImpl fragment(char[] buf, int offset, int length) {
+        BufferedTokenizerImpl tokenizer = new BufferedTokenizerImpl(buf, offset, length);
+        tokenizer.tokenType = TokenType.END_TAG;
+        return tokenizer;
+    }
+
+    // Tokenizes input that is handed over with feed() as it arrives. A token that runs past the chars fed so far
+    // is reported as INCOMPLETE and scanned again from its start on the next call, its long text or attribute value
+    // run resuming where the last scan stopped; endOfInput() makes the rest of the input scan like the end of a
+    // stream.
+    public static BufferedTokenizerImpl push() {
+        return push(new SymbolTable());
+    }
+
+    public static BufferedTokenizerImpl push(SymbolTable symbols) {
+        BufferedTokenizerImpl tokenizer = new BufferedTokenizerImpl(new char[PUSH_BUFFER_SIZE], 0, 0, symbols);
+        tokenizer.eof = false;
+        return tokenizer;
+    }
+
+    public void feed(char[] chars, int offset, int length) {
+        if (this.reader != null || this.eof) {
+            throw new IllegalStateException();
+        }
+        // the current token, or the one to be scanned again, stays in the window
+        int keep = this.tokenType == TokenType.INCOMPLETE ? this.pos : this.mark;
+        if (keep > 0) {
+            System.arraycopy(this.buf, keep, this.buf, 0, this.limit - keep);
+            this.limit -= keep;
+            this.pos -= keep;
+            this.mark = Math.max(this.mark - keep, 0);
+            if (this.runStart >= 0) {
+                this.runStart -= keep;
+                this.runEnd -= keep;
+            }
+        }
+        if (this.limit + length > this.buf.length) {
+            this.buf = Arrays.copyOf(this.buf, Math.max(this.buf.length * 2, this.limit + length));
+        }
+        System.arraycopy(chars, offset, this.buf, this.limit, length);
+        this.limit += length;
+    }
+
+    public void endOfInput() {
+        if (this.reader != null) {
+            throw new IllegalStateException();
+        }
+        this.eof = true;
+    }
+
+    @Override
+    public TokenType nextToken() throws IOException, XMLException {
+        if (this.tokenType == TokenType.INCOMPLETE) {
+            this.tokenType = this.resumeType;
+        }
+        if (this.reader != null || this.eof) {
+            return this.scanToken();
+        }
+
+        int resumePos = this.pos;
+        boolean hasEndTag = this.hasEndTag;
+        this.resumeType = this.tokenType;
+        try {
+            TokenType tokenType = this.scanToken();
+            this.runStart = -1;
+            return tokenType;
+        } catch (IncompleteInput e) {
+            this.pos = resumePos;
+            this.hasEndTag = hasEndTag;
+            this.tokenType = TokenType.INCOMPLETE;
+            return this.tokenType;
+        }
+    }
+
+    private TokenType scanToken() throws IOException, XMLException {
+        // skip leading whitespaces and newline characters
+        if (this.tokenType == TokenType.BOF) {
+            this.parseText();
+        }
+
+        switch (this.tokenType) {
+            case START_TAG, END_TAG:
+                // if symbol '/' is present in tag
+                if (this.hasEndTag) {
+                    this.resetState(false);
+                    this.tokenType = TokenType.END_TAG;
+                    this.hasEndTag = false;
+                } else {
+                    this.resetState(true);
+                    this.parseText();
+                    // tags going in a row produce no text token: <people><person /></people>
+                    if (this.tokenType == TokenType.TEXT && this.textLength == 0) {
+                        this.resetState(true);
+                        this.parseTag();
+                    }
+                }
+                break;
+            case TEXT:
+                this.resetState(true);
+                this.parseTag();
+                break;
+            case EOF:
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+
+        return this.tokenType;
+    }
+
+    @Override
+    public Element getCurrentToken() {
+        return switch (this.tokenType) {
+            case START_TAG -> {
+                List<Attribute> attributes = new ArrayList<>(this.attrCount);
+                for (int i = 0; i < this.attrCount; i++) {
+                    attributes.add(new Attribute(this.getAttributeName(i), this.getAttributeValue(i)));
+                }
+                yield new Element.Builder().
+                        withTagName(this.getLocalName()).
+                        withAttributes(attributes).build();
+            }
+            case END_TAG -> new Element.Builder().withTagName(this.getLocalName()).build();
+            case TEXT -> new Element.Builder().withText(this.getText()).build();
+            default -> null;
+        };
+    }
+
+    @Override
+    public TokenType getTokenType() {
+        return this.tokenType;
+    }
+
+    @Override
+    public String getLocalName() {
+        if (this.tokenType != TokenType.START_TAG && this.tokenType != TokenType.END_TAG) {
+            throw new IllegalStateException();
+        }
+        return this.tagName();
+    }
+
+    @Override
+    public int getAttributeCount() {
+        if (this.tokenType != TokenType.START_TAG) {
+            throw new IllegalStateException();
+        }
+        return this.attrCount;
+    }
+
+    @Override
+    public String getAttributeName(int i) {
+        int at = this.attrOffset(i);
+        return this.symbols.lookup(this.buf, this.mark + this.attrs[at], this.attrs[at + 1]);
+    }
+
+    @Override
+    public String getAttributeValue(int i) {
+        int at = this.attrOffset(i);
+        return new String(this.buf, this.mark + this.attrs[at + 2], this.attrs[at + 3]);
+    }
+
+    // index of the value in the array given to the in-memory constructor, only valid until the next token when the
+    // input is read from a Reader
+    public int getAttributeValueStart(int i) {
+        return this.mark + this.attrs[this.attrOffset(i) + 2];
+    }
+
+    public int getAttributeValueLength(int i) {
+        return this.attrs[this.attrOffset(i) + 3];
+    }
+
+    @Override
+    public String getText() {
+        return new String(this.getTextCharacters(), this.getTextStart(), this.textLength);
+    }
+
+    @Override
+    public char[] getTextCharacters() {
+        if (this.tokenType != TokenType.TEXT) {
+            throw new IllegalStateException();
+        }
+        return this.buf;
+    }
+
+    @Override
+    public int getTextStart() {
+        if (this.tokenType != TokenType.TEXT) {
+            throw new IllegalStateException();
+        }
+        return this.mark + this.textStart;
+    }
+
+    @Override
+    public int getTextLength() {
+        if (this.tokenType != TokenType.TEXT) {
+            throw new IllegalStateException();
+        }
+        return this.textLength;
+    }
+
+    private int attrOffset(int i) {
+        if (i >= 0 && i < this.getAttributeCount()) {
+            return i * 4;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private String tagName() {
+        if (this.tagName == null) {
+            this.tagName = this.symbols.lookup(this.buf, this.mark + this.nameStart, this.nameLength);
+        }
+        return this.tagName;
+    }
+
+    private void resetState(boolean resetTagName) {
+        if (resetTagName) {
+            this.tagName = null;
+            this.nameLength = 0;
+        }
+        this.attrCount = 0;
+        this.textLength = 0;
+    }
+
+    private void parseText() throws IOException {
+        this.mark = this.pos;
+        this.pos = this.resumeRun(this.pos);
+        while (true) {
+            char[] buf = this.buf;
+            int limit = this.limit;
+            int i = RunScanner.indexOf(buf, this.pos, limit, '<');
+            if (i >= 0) {
+                this.textStart = 0;
+                this.textLength = i - this.mark;
+                this.pos = i + 1;
+                this.tokenType = TokenType.TEXT;
+                return;
+            }
+            this.pos = limit;
+            this.suspendRun(this.mark);
+            if (!this.fill()) {
+                this.tokenType = TokenType.EOF;
+                return;
+            }
+        }
+    }
+
+    private void parseTag() throws IOException, XMLException {
+        boolean isStartTag = true;
+
+        // the whole tag stays in the window until the next token
+        this.mark = this.pos;
+        char c = this.readChar();
+        if (c == '/') {
+            isStartTag = false;
+            c = this.readChar();
+        }
+
+        // the name run starts at the char just read
+        this.nameStart = this.pos - 1 - this.mark;
+        while (RunScanner.isNameChar(c) || c == '-') {
+            c = this.readChar();
+        }
+        this.nameLength = this.pos - 1 - this.mark - this.nameStart;
+
+        if (this.nameLength == 0) {
+            throw new XMLException(invalidTag(isStartTag));
+        } else {
+            if (isStartTag) {
+                this.tokenType = TokenType.START_TAG;
+                switch (c) {
+                    // end parsing tag after reaching '>' symbol
+                    case '>':
+                        break;
+                    // in a single opening tag the next symbol after '/' must be '>': <person />
+                    case '/':
+                        this.matchNextSymbol('>', false);
+                        this.hasEndTag = true;
+                    default:
+                        // presence of any character except whitespace after tag name is incorrect: <person@id="1">
+                        if (!RunScanner.isWhitespace(c)) {
+                            throw new XMLException(invalidTag(isStartTag));
+                        }
+                        // parse attributes if tag is correct: <person id="1"> or <person    id="1">
+                        this.hasEndTag = this.parseAttrs();
+                }
+            } else {
+                this.tokenType = TokenType.END_TAG;
+                switch (c) {
+                    // end parsing tag after reaching '>' symbol
+                    case '>':
+                        break;
+                    default:
+                        // presence of any character except whitespace after tag name is incorrect: </person@>
+                        if (!RunScanner.isWhitespace(c)) {
+                            throw new XMLException(invalidTag(isStartTag));
+                        }
+                        // this checks if '>' is going after possible multiple whitespaces in a closing tag: </person       >
+                        this.matchNextSymbol('>', true);
+                }
+            }
+        }
+    }
+
+    private String invalidTag(boolean isStartTag) {
+        return "invalid tag: <" + (isStartTag ? "" : "/") + this.tagName() + ">";
+    }
+
+    private boolean parseAttrs() throws IOException, XMLException {
+        // skip whitespaces and read the first symbol of the name of the first attribute: <person   id="1"> -> 'i'
+        char c = this.readChar(true);
+
+        while (c != '>') {
+            if (c == '/') {
+                // in a single opening tag the next symbol after '/' must be '>': <person id="1" />
+                this.matchNextSymbol('>', false);
+                return true;
+            }
+
+            // read attribute name
+            int attrNameStart = this.pos - 1 - this.mark;
+            while (RunScanner.isNameChar(c)) {
+                c = this.readChar();
+            }
+            int attrNameLength = this.pos - 1 - this.mark - attrNameStart;
+
+            if (attrNameLength == 0) {
+                throw new XMLException("empty attribute name in tag: <" + this.tagName() + ">");
+            }
+
+            // there may be only whitespaces after tag name, we read and skip them:
+            // <person id   ="1"> - ok, <person id@="1"> - not ok
+            if (RunScanner.isWhitespace(c)) {
+                c = this.readChar(true);
+            }
+
+            if (c != '=') {
+                throw new XMLException("invalid attribute");
+            }
+
+            // read the delimiter symbol: ' or "
+            c = this.readChar(true);
+            if (c != '\'' && c != '"') {
+                throw new XMLException("invalid attribute");
+            }
+
+            int attrValueStart = this.pos - this.mark;
+            int attrValueLength = this.skipUntil(c);
+
+            // skip whitespaces and read the first symbol of the name of the next attribute or '/' if it is a single tag
+            // or just '>' symbol and exit the loop
+            c = this.readChar(true);
+            this.addAttribute(attrNameStart, attrNameLength, attrValueStart, attrValueLength);
+        }
+
+        return false;
+    }
+
+    private void addAttribute(int nameStart, int nameLength, int valueStart, int valueLength) {
+        int at = this.attrCount * 4;
+        if (at == this.attrs.length) {
+            this.attrs = Arrays.copyOf(this.attrs, at * 2);
+        }
+        this.attrs[at] = nameStart;
+        this.attrs[at + 1] = nameLength;
+        this.attrs[at + 2] = valueStart;
+        this.attrs[at + 3] = valueLength;
+        this.attrCount++;
+    }
+
+    // consumes the run up to and including the delimiter, returns the length of the run
+    private int skipUntil(char delimiter) throws IOException, XMLException {
+        int start = this.pos - this.mark;
+        this.pos = this.resumeRun(this.pos);
+        while (true) {
+            char[] buf = this.buf;
+            int limit = this.limit;
+            int i = RunScanner.indexOf(buf, this.pos, limit, delimiter);
+            if (i >= 0) {
+                this.pos = i + 1;
+                return i - this.mark - start;
+            }
+            this.pos = limit;
+            this.suspendRun(this.mark + start);
+            if (!this.fill()) {
+                throw new XMLException("unexpected end of document");
+            }
+        }
+    }
+
+    // where scanning the run starting at start goes on, past what the scan before an INCOMPLETE token covered
+    private int resumeRun(int start) {
+        return start == this.runStart ? this.runEnd : start;
+    }
+
+    // the run starting at start has no delimiter up to the limit, in case fill() ends the fed chars
+    private void suspendRun(int start) {
+        if (this.reader == null) {
+            this.runStart = start;
+            this.runEnd = this.limit;
+        }
+    }
+
+    private char readChar(boolean skipWS) throws IOException, XMLException {
+        while (true) {
+            if (this.pos == this.limit && !this.fill()) {
+                throw new XMLException("unexpected end of document");
+            }
+            char c = this.buf[this.pos++];
+            if (!skipWS || !RunScanner.isWhitespace(c)) {
+                return c;
+            }
+        }
+    }
+
+    private char readChar() throws IOException, XMLException {
+        return this.readChar(false);
+    }
+
+    private void matchNextSymbol(char expected, boolean skipWS) throws IOException, XMLException {
+        char c = this.readChar(skipWS);
+        if (c != expected) {
+            throw new XMLException("unexpected character: expected [" + expected + "], got [" + c + "]");
+        }
+    }
+
+    // shifts the current token to the start of the window, grows the window if the token fills it
+    // and reads more input behind it; returns false at the end of input
+    private boolean fill() throws IOException {
+        if (this.eof) {
+            return false;
+        }
+        if (this.reader == null) {
+            throw INCOMPLETE_INPUT;
+        }
+        if (this.mark > 0) {
+            int keep = this.limit - this.mark;
+            System.arraycopy(this.buf, this.mark, this.buf, 0, keep);
+            this.pos -= this.mark;
+            this.limit = keep;
+            this.mark = 0;
+        }
+        if (this.limit == this.buf.length) {
+            this.buf = Arrays.copyOf(this.buf, this.buf.length * 2);
+        }
+
+        int n;
+        do {
+            n = this.reader.read(this.buf, this.limit, this.buf.length - this.limit);
+        } while (n == 0);
+
+        if (n < 0) {
+            this.eof = true;
+            return false;
+        }
+        this.limit += n;
+        return true;
+    }
+
+    // thrown by fill() in push mode when the chars fed so far are used up, never leaves nextToken()
+    private static final class IncompleteInput extends IOException {
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
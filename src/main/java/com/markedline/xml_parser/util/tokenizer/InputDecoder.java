@@ -0,0 +1,364 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+
+// Finds the encoding of a document the way the XML spec does: from a byte order mark, else from the encoding of
+// the XML declaration, else UTF-8. The byte order mark and the XML declaration are dropped, the tokenizers do not
+// take them. UTF-8 and ISO-8859-1 input in memory is decoded by a plain loop over the bytes; malformed input
+// becomes U+FFFD, as InputStreamReader does it.
+public final class InputDecoder {
+    // the XML declaration has to fit in here to be seen
+    private static final int PROLOG_LENGTH = 512;
+
+    private InputDecoder() {
+    }
+
+    public static Charset detect(byte[] bytes, int offset, int length) throws UnsupportedEncodingException {
+        int b0 = length > 0 ? bytes[offset] & 0xFF : -1;
+        int b1 = length > 1 ? bytes[offset + 1] & 0xFF : -1;
+        int b2 = length > 2 ? bytes[offset + 2] & 0xFF : -1;
+        int b3 = length > 3 ? bytes[offset + 3] & 0xFF : -1;
+
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (b0 == 0 && b1 == 0 && b2 == 0xFE && b3 == 0xFF) {
+            return charset("UTF-32BE");
+        }
+        if (b0 == 0xFF && b1 == 0xFE && b2 == 0 && b3 == 0) {
+            return charset("UTF-32LE");
+        }
+        // without a byte order mark UTF-16 shows in the '<' the document starts with
+        if (b0 == 0xFE && b1 == 0xFF || b0 == 0 && b1 == '<') {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (b0 == 0xFF && b1 == 0xFE || b0 == '<' && b1 == 0) {
+            return StandardCharsets.UTF_16LE;
+        }
+
+        String encoding = declaredEncoding(bytes, offset, length);
+        return encoding != null ? charset(encoding) : StandardCharsets.UTF_8;
+    }
+
+    // the encoding pseudo-attribute of <?xml ... ?> at the very start, read as ASCII
+    private static String declaredEncoding(byte[] bytes, int offset, int length) {
+        int end = offset + Math.min(length, PROLOG_LENGTH);
+        if (!startsWith(bytes, offset, end, "<?xml")) {
+            return null;
+        }
+        for (int i = offset + 5; i < end && bytes[i] != '>'; i++) {
+            if (startsWith(bytes, i, end, "encoding")) {
+                int pos = i + 8;
+                while (pos < end && isSpace(bytes[pos])) {
+                    pos++;
+                }
+                if (pos == end || bytes[pos++] != '=') {
+                    return null;
+                }
+                while (pos < end && isSpace(bytes[pos])) {
+                    pos++;
+                }
+                if (pos == end || bytes[pos] != '"' && bytes[pos] != '\'') {
+                    return null;
+                }
+                byte quote = bytes[pos++];
+                int start = pos;
+                while (pos < end && bytes[pos] != quote) {
+                    pos++;
+                }
+                return pos < end ? new String(bytes, start, pos - start, StandardCharsets.US_ASCII) : null;
+            }
+        }
+        return null;
+    }
+
+    // bytes taken by the byte order mark and the XML declaration
+    private static int prologLength(byte[] bytes, int offset, int length, Charset charset) {
+        int bom = bomLength(bytes, offset, length);
+        String prolog = new String(bytes, offset + bom, Math.min(length - bom, PROLOG_LENGTH), charset);
+        int end = prolog.startsWith("<?xml") && prolog.length() > 5 && isSpace((byte) prolog.charAt(5))
+                ? prolog.indexOf("?>") : -1;
+        // the declaration is all ASCII, which takes the same bytes per char as '<' in the encodings used for XML
+        return end < 0 ? bom : bom + (end + 2) * "<".getBytes(charset).length;
+    }
+
+    private static int bomLength(byte[] bytes, int offset, int length) {
+        int b0 = length > 0 ? bytes[offset] & 0xFF : -1;
+        int b1 = length > 1 ? bytes[offset + 1] & 0xFF : -1;
+        int b2 = length > 2 ? bytes[offset + 2] & 0xFF : -1;
+        int b3 = length > 3 ? bytes[offset + 3] & 0xFF : -1;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            return 3;
+        }
+        if (b0 == 0 && b1 == 0 && b2 == 0xFE && b3 == 0xFF || b0 == 0xFF && b1 == 0xFE && b2 == 0 && b3 == 0) {
+            return 4;
+        }
+        return b0 == 0xFE && b1 == 0xFF || b0 == 0xFF && b1 == 0xFE ? 2 : 0;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int end, String prefix) {
+        if (end - offset < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+    }
+
+    private static Charset charset(String name) throws UnsupportedEncodingException {
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            throw new UnsupportedEncodingException(name);
+        }
+    }
+
+    // Moves the position of a UTF-8 file past its byte order mark and XML declaration and returns true,
+    // or leaves the position of a file in another encoding and returns false
+    public static boolean skipUtf8Prolog(FileChannel channel) throws IOException {
+        ByteBuffer prolog = ByteBuffer.allocate(PROLOG_LENGTH);
+        long position = channel.position();
+        int n = 0;
+        while (prolog.hasRemaining() && n >= 0) {
+            n = channel.read(prolog, position + prolog.position());
+        }
+        byte[] bytes = prolog.array();
+        if (detect(bytes, 0, prolog.position()) != StandardCharsets.UTF_8) {
+            return false;
+        }
+        channel.position(position + prologLength(bytes, 0, prolog.position(), StandardCharsets.UTF_8));
+        return true;
+    }
+
+    // Reader over the rest of the document in its encoding. Only the bytes needed to decide are read ahead:
+    // four, or up to the first '>' when the document may start with a byte order mark or an XML declaration.
+    public static Reader reader(InputStream input) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(input, PROLOG_LENGTH);
+        byte[] prolog = new byte[PROLOG_LENGTH];
+        int length = readPrefix(pushback, prolog, 0, 4);
+        boolean plainTag = length > 1 && prolog[0] == '<' && prolog[1] != '?' && prolog[1] != 0;
+        // no more than is available is read, the stream may be waiting on its source
+        while (!plainTag && length < PROLOG_LENGTH && !contains(prolog, length, '>')) {
+            int n = pushback.read(prolog, length, PROLOG_LENGTH - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+
+        Charset charset = detect(prolog, 0, length);
+        int skip = prologLength(prolog, 0, length, charset);
+        pushback.unread(prolog, skip, length - skip);
+        return new InputStreamReader(pushback, charset);
+    }
+
+    // Reader over the rest of a document already in chars, past the byte order mark and XML declaration it may
+    // start with; as above only the chars needed to decide are read ahead
+    public static Reader reader(Reader input) throws IOException {
+        PushbackReader pushback = new PushbackReader(input, PROLOG_LENGTH);
+        char[] prolog = new char[PROLOG_LENGTH];
+        int length = readPrefix(pushback, prolog, 0, 2);
+        boolean plainTag = length > 1 && prolog[0] == '<' && prolog[1] != '?';
+        while (!plainTag && length < PROLOG_LENGTH && !contains(prolog, length, '>')) {
+            int n = pushback.read(prolog, length, PROLOG_LENGTH - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+
+        int skip = prologLength(prolog, 0, length);
+        pushback.unread(prolog, skip, length - skip);
+        return pushback;
+    }
+
+    // chars taken by the byte order mark and the XML declaration of a document already in chars
+    public static int prologLength(char[] chars, int offset, int length) {
+        int bom = length > 0 && chars[offset] == '\uFEFF' ? 1 : 0;
+        int start = offset + bom;
+        int end = offset + Math.min(length, bom + PROLOG_LENGTH);
+        if (end - start <= 5 || !"<?xml".contentEquals(CharBuffer.wrap(chars, start, 5)) || !isSpace(chars[start + 5])) {
+            return bom;
+        }
+        for (int i = start + 6; i + 1 < end; i++) {
+            if (chars[i] == '?' && chars[i + 1] == '>') {
+                return i + 2 - offset;
+            }
+        }
+        return bom;
+    }
+
+    private static boolean contains(char[] chars, int length, char c) {
+        for (int i = 0; i < length; i++) {
+            if (chars[i] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(byte[] bytes, int length, char c) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // reads until the array holds the given count of bytes or the input ends, returns the count it holds
+    private static int readPrefix(InputStream input, byte[] bytes, int length, int count) throws IOException {
+        while (length < count) {
+            int n = input.read(bytes, length, count - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        return length;
+    }
+
+    private static int readPrefix(Reader input, char[] chars, int length, int count) throws IOException {
+        while (length < count) {
+            int n = input.read(chars, length, count - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        return length;
+    }
+
+    // chars of the document from index 0 of the array of the returned buffer up to its limit
+    public static CharBuffer decode(byte[] bytes, int offset, int length) throws UnsupportedEncodingException {
+        return decode(bytes, offset, length, null);
+    }
+
+    // same, into the given array if the document fits in it for sure
+    public static CharBuffer decode(byte[] bytes, int offset, int length, char[] chars)
+            throws UnsupportedEncodingException {
+        Charset charset = detect(bytes, offset, length);
+        int skip = prologLength(bytes, offset, length, charset);
+        offset += skip;
+        length -= skip;
+        if (charset == StandardCharsets.UTF_8) {
+            return decodeUtf8(bytes, offset, length, chars != null && chars.length >= length ? chars : new char[length]);
+        }
+        if (charset == StandardCharsets.ISO_8859_1) {
+            chars = chars != null && chars.length >= length ? chars : new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (bytes[offset + i] & 0xFF);
+            }
+            return CharBuffer.wrap(chars, 0, length);
+        }
+        CharsetDecoder decoder = decoder(charset);
+        int capacity = (int) Math.ceil(length * (double) decoder.maxCharsPerByte());
+        CharBuffer out = CharBuffer.wrap(chars != null && chars.length >= capacity ? chars : new char[capacity]);
+        decoder.decode(ByteBuffer.wrap(bytes, offset, length), out, true);
+        decoder.flush(out);
+        return out.flip();
+    }
+
+    // consumes the remaining bytes of the buffer
+    public static CharBuffer decode(ByteBuffer input) throws UnsupportedEncodingException {
+        int length = input.remaining();
+        if (input.hasArray()) {
+            CharBuffer chars = decode(input.array(), input.arrayOffset() + input.position(), length);
+            input.position(input.limit());
+            return chars;
+        }
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return decode(bytes, 0, length);
+    }
+
+    // a UTF-8 document never has more chars than bytes
+    private static CharBuffer decodeUtf8(byte[] bytes, int offset, int length, char[] chars) {
+        int end = offset + length;
+        int i = offset;
+        int n = 0;
+        while (i < end) {
+            // markup and most text is ASCII, found a word at a time and widened in a loop the JIT vectorizes
+            int run = RunScanner.skipAscii(bytes, i, end) - i;
+            for (int j = 0; j < run; j++) {
+                chars[n + j] = (char) bytes[i + j];
+            }
+            n += run;
+            i += run;
+            if (i == end) {
+                break;
+            }
+
+            int b0 = bytes[i];
+            if ((b0 & 0xE0) == 0xC0 && i + 1 < end && isContinuation(bytes[i + 1])) {
+                int c = (b0 & 0x1F) << 6 | bytes[i + 1] & 0x3F;
+                if (c >= 0x80) {
+                    chars[n++] = (char) c;
+                    i += 2;
+                    continue;
+                }
+            } else if ((b0 & 0xF0) == 0xE0 && i + 2 < end && isContinuation(bytes[i + 1]) &&
+                    isContinuation(bytes[i + 2])) {
+                int c = (b0 & 0x0F) << 12 | (bytes[i + 1] & 0x3F) << 6 | bytes[i + 2] & 0x3F;
+                if (c >= 0x800 && !Character.isSurrogate((char) c)) {
+                    chars[n++] = (char) c;
+                    i += 3;
+                    continue;
+                }
+            } else if ((b0 & 0xF8) == 0xF0 && i + 3 < end && isContinuation(bytes[i + 1]) &&
+                    isContinuation(bytes[i + 2]) && isContinuation(bytes[i + 3])) {
+                int c = (b0 & 0x07) << 18 | (bytes[i + 1] & 0x3F) << 12 | (bytes[i + 2] & 0x3F) << 6 |
+                        bytes[i + 3] & 0x3F;
+                if (c >= Character.MIN_SUPPLEMENTARY_CODE_POINT && c <= Character.MAX_CODE_POINT) {
+                    chars[n++] = Character.highSurrogate(c);
+                    chars[n++] = Character.lowSurrogate(c);
+                    i += 4;
+                    continue;
+                }
+            }
+
+            // malformed input, the JDK decoder takes over to replace it the way it always does
+            CharBuffer rest = CharBuffer.wrap(chars, n, length - (i - offset));
+            decoder(StandardCharsets.UTF_8).decode(ByteBuffer.wrap(bytes, i, end - i), rest, true);
+            n = rest.position();
+            break;
+        }
+        return CharBuffer.wrap(chars, 0, n);
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    private static CharsetDecoder decoder(Charset charset) {
+        return charset.newDecoder().
+                onMalformedInput(CodingErrorAction.REPLACE).
+                onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
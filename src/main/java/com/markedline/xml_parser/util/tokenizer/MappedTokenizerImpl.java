@@ -0,0 +1,521 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import com.markedline.xml_parser.node.Attribute;
+import com.markedline.xml_parser.node.Element;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Same token contract as TokenizerImpl for UTF-8 files. The file is memory-mapped window by window and scanned
+// as raw bytes: markup is ASCII, so bytes are only decoded when a tag name, text or attribute value is requested
+public final class MappedTokenizerImpl implements TokenCursor {
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int REPLACEMENT_CHAR = 0xFFFD;
+
+    private final FileChannel channel;
+    private final long end;
+    private final SymbolTable symbols;
+    private int windowSize;
+    private MappedByteBuffer window;
+    // file offset of the first byte of the window
+    private long windowStart;
+    // next byte to scan
+    private int pos;
+    // end of mapped data in the window
+    private int limit;
+    // start of the current token, the next window is mapped from here; all token offsets below are relative to it
+    private int mark;
+    // first byte of the char returned by the last readChar
+    private int charStart;
+    private byte[] scratch = new byte[256];
+    private char[] chars = new char[256];
+    private TokenType tokenType = TokenType.BOF;
+    private int nameStart;
+    private int nameLength;
+    // materialized on first request
+    private String tagName;
+    private int textStart;
+    private int textLength;
+    // number of chars decoded into chars for the current text token, -1 if not decoded yet
+    private int decodedLength = -1;
+    // name start, name length, value start, value length in bytes for every attribute
+    private int[] attrs = new int[16];
+    private int attrCount;
+    private boolean hasEndTag;
+
+    public MappedTokenizerImpl(FileInputStream input) throws IOException {
+        this(input, new SymbolTable());
+    }
+
+    public MappedTokenizerImpl(FileInputStream input, SymbolTable symbols) throws IOException {
+        this(input.getChannel(), DEFAULT_WINDOW_SIZE, symbols);
+    }
+
+    public MappedTokenizerImpl(FileChannel channel, int windowSize) throws IOException {
+        this(channel, windowSize, new SymbolTable());
+    }
+
+    public MappedTokenizerImpl(FileChannel channel, int windowSize, SymbolTable symbols) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.channel = channel;
+        this.symbols = symbols;
+        this.windowSize = windowSize;
+        this.windowStart = channel.position();
+        this.end = channel.size();
+    }
+
+    @Override
+    public TokenType nextToken() throws IOException, XMLException {
+        // skip leading whitespaces and newline characters
+        if (this.tokenType == TokenType.BOF) {
+            this.parseText();
+        }
+
+        switch (this.tokenType) {
+            case START_TAG, END_TAG:
+                // if symbol '/' is present in tag
+                if (this.hasEndTag) {
+                    this.resetState(false);
+                    this.tokenType = TokenType.END_TAG;
+                    this.hasEndTag = false;
+                } else {
+                    this.resetState(true);
+                    this.parseText();
+                    // tags going in a row produce no text token: <people><person /></people>
+                    if (this.tokenType == TokenType.TEXT && this.textLength == 0) {
+                        this.resetState(true);
+                        this.parseTag();
+                    }
+                }
+                break;
+            case TEXT:
+                this.resetState(true);
+                this.parseTag();
+                break;
+            case EOF:
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+
+        return this.tokenType;
+    }
+
+    @Override
+    public Element getCurrentToken() {
+        return switch (this.tokenType) {
+            case START_TAG -> {
+                List<Attribute> attributes = new ArrayList<>(this.attrCount);
+                for (int i = 0; i < this.attrCount; i++) {
+                    attributes.add(new Attribute(this.getAttributeName(i), this.getAttributeValue(i)));
+                }
+                yield new Element.Builder().
+                        withTagName(this.getLocalName()).
+                        withAttributes(attributes).build();
+            }
+            case END_TAG -> new Element.Builder().withTagName(this.getLocalName()).build();
+            case TEXT -> new Element.Builder().withText(this.getText()).build();
+            default -> null;
+        };
+    }
+
+    @Override
+    public TokenType getTokenType() {
+        return this.tokenType;
+    }
+
+    @Override
+    public String getLocalName() {
+        if (this.tokenType != TokenType.START_TAG && this.tokenType != TokenType.END_TAG) {
+            throw new IllegalStateException();
+        }
+        return this.tagName();
+    }
+
+    @Override
+    public int getAttributeCount() {
+        if (this.tokenType != TokenType.START_TAG) {
+            throw new IllegalStateException();
+        }
+        return this.attrCount;
+    }
+
+    @Override
+    public String getAttributeName(int i) {
+        int at = this.attrOffset(i);
+        return this.symbol(this.attrs[at], this.attrs[at + 1]);
+    }
+
+    @Override
+    public String getAttributeValue(int i) {
+        int at = this.attrOffset(i);
+        return this.decode(this.attrs[at + 2], this.attrs[at + 3]);
+    }
+
+    @Override
+    public String getText() {
+        if (this.tokenType != TokenType.TEXT) {
+            throw new IllegalStateException();
+        }
+        return this.decode(this.textStart, this.textLength);
+    }
+
+    @Override
+    public char[] getTextCharacters() {
+        this.decodeText();
+        return this.chars;
+    }
+
+    @Override
+    public int getTextStart() {
+        if (this.tokenType != TokenType.TEXT) {
+            throw new IllegalStateException();
+        }
+        return 0;
+    }
+
+    @Override
+    public int getTextLength() {
+        this.decodeText();
+        return this.decodedLength;
+    }
+
+    private int attrOffset(int i) {
+        if (i >= 0 && i < this.getAttributeCount()) {
+            return i * 4;
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private String tagName() {
+        if (this.tagName == null) {
+            this.tagName = this.symbol(this.nameStart, this.nameLength);
+        }
+        return this.tagName;
+    }
+
+    // decodes the current text run into the reusable chars buffer, ASCII runs are widened in place
+    private void decodeText() {
+        if (this.tokenType != TokenType.TEXT) {
+            throw new IllegalStateException();
+        }
+        if (this.decodedLength >= 0) {
+            return;
+        }
+        int length = this.textLength;
+        if (this.chars.length < length) {
+            this.chars = new char[Math.max(length, this.chars.length * 2)];
+        }
+        byte[] bytes = this.copy(this.textStart, length);
+        int i = 0;
+        while (i < length && bytes[i] >= 0) {
+            this.chars[i] = (char) bytes[i];
+            i++;
+        }
+        if (i < length) {
+            String text = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            text.getChars(0, text.length(), this.chars, 0);
+            i = text.length();
+        }
+        this.decodedLength = i;
+    }
+
+    private void resetState(boolean resetTagName) {
+        if (resetTagName) {
+            this.tagName = null;
+            this.nameLength = 0;
+        }
+        this.attrCount = 0;
+        this.textLength = 0;
+        this.decodedLength = -1;
+    }
+
+    private void parseText() throws IOException {
+        this.mark = this.pos;
+        while (true) {
+            MappedByteBuffer window = this.window;
+            int limit = this.limit;
+            int i = RunScanner.indexOf(window, this.pos, limit, (byte) '<');
+            if (i >= 0) {
+                this.textStart = 0;
+                this.textLength = i - this.mark;
+                this.pos = i + 1;
+                this.tokenType = TokenType.TEXT;
+                return;
+            }
+            this.pos = limit;
+            if (!this.fill()) {
+                this.tokenType = TokenType.EOF;
+                return;
+            }
+        }
+    }
+
+    private void parseTag() throws IOException, XMLException {
+        boolean isStartTag = true;
+
+        // the whole tag stays in the window until the next token
+        this.mark = this.pos;
+        int c = this.readChar();
+        if (c == '/') {
+            isStartTag = false;
+            c = this.readChar();
+        }
+
+        // the name run starts at the char just read and ends right before the char that stopped it
+        this.nameStart = this.charStart - this.mark;
+        while (RunScanner.isNameChar(c) || c == '-') {
+            c = this.readChar();
+        }
+        this.nameLength = this.charStart - this.mark - this.nameStart;
+
+        if (this.nameLength == 0) {
+            throw new XMLException(invalidTag(isStartTag));
+        } else {
+            if (isStartTag) {
+                this.tokenType = TokenType.START_TAG;
+                switch (c) {
+                    // end parsing tag after reaching '>' symbol
+                    case '>':
+                        break;
+                    // in a single opening tag the next symbol after '/' must be '>': <person />
+                    case '/':
+                        this.matchNextSymbol('>', false);
+                        this.hasEndTag = true;
+                    default:
+                        // presence of any character except whitespace after tag name is incorrect: <person@id="1">
+                        if (!RunScanner.isWhitespace(c)) {
+                            throw new XMLException(invalidTag(isStartTag));
+                        }
+                        // parse attributes if tag is correct: <person id="1"> or <person    id="1">
+                        this.hasEndTag = this.parseAttrs();
+                }
+            } else {
+                this.tokenType = TokenType.END_TAG;
+                switch (c) {
+                    // end parsing tag after reaching '>' symbol
+                    case '>':
+                        break;
+                    default:
+                        // presence of any character except whitespace after tag name is incorrect: </person@>
+                        if (!RunScanner.isWhitespace(c)) {
+                            throw new XMLException(invalidTag(isStartTag));
+                        }
+                        // this checks if '>' is going after possible multiple whitespaces in a closing tag: </person       >
+                        this.matchNextSymbol('>', true);
+                }
+            }
+        }
+    }
+
+    private String invalidTag(boolean isStartTag) {
+        return "invalid tag: <" + (isStartTag ? "" : "/") + this.tagName() + ">";
+    }
+
+    private boolean parseAttrs() throws IOException, XMLException {
+        // skip whitespaces and read the first symbol of the name of the first attribute: <person   id="1"> -> 'i'
+        int c = this.readChar(true);
+
+        while (c != '>') {
+            if (c == '/') {
+                // in a single opening tag the next symbol after '/' must be '>': <person id="1" />
+                this.matchNextSymbol('>', false);
+                return true;
+            }
+
+            // read attribute name
+            int attrNameStart = this.charStart - this.mark;
+            while (RunScanner.isNameChar(c)) {
+                c = this.readChar();
+            }
+            int attrNameLength = this.charStart - this.mark - attrNameStart;
+
+            if (attrNameLength == 0) {
+                throw new XMLException("empty attribute name in tag: <" + this.tagName() + ">");
+            }
+
+            // there may be only whitespaces after tag name, we read and skip them:
+            // <person id   ="1"> - ok, <person id@="1"> - not ok
+            if (RunScanner.isWhitespace(c)) {
+                c = this.readChar(true);
+            }
+
+            if (c != '=') {
+                throw new XMLException("invalid attribute");
+            }
+
+            // read the delimiter symbol: ' or "
+            c = this.readChar(true);
+            if (c != '\'' && c != '"') {
+                throw new XMLException("invalid attribute");
+            }
+
+            int attrValueStart = this.pos - this.mark;
+            int attrValueLength = this.skipUntil((byte) c);
+
+            // skip whitespaces and read the first symbol of the name of the next attribute or '/' if it is a single tag
+            // or just '>' symbol and exit the loop
+            c = this.readChar(true);
+            this.addAttribute(attrNameStart, attrNameLength, attrValueStart, attrValueLength);
+        }
+
+        return false;
+    }
+
+    private void addAttribute(int nameStart, int nameLength, int valueStart, int valueLength) {
+        int at = this.attrCount * 4;
+        if (at == this.attrs.length) {
+            this.attrs = Arrays.copyOf(this.attrs, at * 2);
+        }
+        this.attrs[at] = nameStart;
+        this.attrs[at + 1] = nameLength;
+        this.attrs[at + 2] = valueStart;
+        this.attrs[at + 3] = valueLength;
+        this.attrCount++;
+    }
+
+    // consumes the run up to and including the delimiter, returns the length of the run
+    private int skipUntil(byte delimiter) throws IOException, XMLException {
+        int start = this.pos - this.mark;
+        while (true) {
+            MappedByteBuffer window = this.window;
+            int limit = this.limit;
+            int i = RunScanner.indexOf(window, this.pos, limit, delimiter);
+            if (i >= 0) {
+                this.pos = i + 1;
+                return i - this.mark - start;
+            }
+            this.pos = limit;
+            if (!this.fill()) {
+                throw new XMLException("unexpected end of document");
+            }
+        }
+    }
+
+    // reads the next char as a code point; chars outside the BMP stand for their high surrogate,
+    // exactly what a char-based tokenizer would see first
+    private int readChar(boolean skipWS) throws IOException, XMLException {
+        while (true) {
+            if (this.pos == this.limit && !this.fill()) {
+                throw new XMLException("unexpected end of document");
+            }
+            this.charStart = this.pos;
+            int b = this.window.get(this.pos++) & 0xFF;
+            int c = b < 0x80 ? b : this.decodeSequence(b);
+            if (!skipWS || !RunScanner.isWhitespace(c)) {
+                return c;
+            }
+        }
+    }
+
+    private int readChar() throws IOException, XMLException {
+        return this.readChar(false);
+    }
+
+    private void matchNextSymbol(char expected, boolean skipWS) throws IOException, XMLException {
+        int c = this.readChar(skipWS);
+        if (c != expected) {
+            char got = Character.isBmpCodePoint(c) ? (char) c : Character.highSurrogate(c);
+            throw new XMLException("unexpected character: expected [" + expected + "], got [" + got + "]");
+        }
+    }
+
+    // decodes the continuation bytes of a multi-byte UTF-8 sequence, malformed input reads as U+FFFD
+    private int decodeSequence(int lead) throws IOException {
+        int count;
+        int cp;
+        int min;
+        if (lead >= 0xC2 && lead < 0xE0) {
+            count = 1;
+            cp = lead & 0x1F;
+            min = 0x80;
+        } else if (lead >= 0xE0 && lead < 0xF0) {
+            count = 2;
+            cp = lead & 0x0F;
+            min = 0x800;
+        } else if (lead >= 0xF0 && lead < 0xF5) {
+            count = 3;
+            cp = lead & 0x07;
+            min = 0x10000;
+        } else {
+            return REPLACEMENT_CHAR;
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (this.pos == this.limit && !this.fill()) {
+                return REPLACEMENT_CHAR;
+            }
+            int b = this.window.get(this.pos) & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                return REPLACEMENT_CHAR;
+            }
+            this.pos++;
+            cp = (cp << 6) | (b & 0x3F);
+        }
+
+        if (cp < min || cp > Character.MAX_CODE_POINT || (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+            return REPLACEMENT_CHAR;
+        }
+        return cp;
+    }
+
+    // offsets are relative to the token start
+    private String symbol(int start, int length) {
+        String symbol = this.symbols.lookupAscii(this.window, this.mark + start, length);
+        return symbol != null ? symbol : this.symbols.lookup(this.decode(start, length));
+    }
+
+    private String decode(int start, int length) {
+        if (length == 0) {
+            return "";
+        }
+        return new String(this.copy(start, length), 0, length, StandardCharsets.UTF_8);
+    }
+
+    private byte[] copy(int start, int length) {
+        if (this.scratch.length < length) {
+            this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+        }
+        this.window.get(this.mark + start, this.scratch, 0, length);
+        return this.scratch;
+    }
+
+    // maps the next window starting at the current token, grows the window if the token fills it;
+    // returns false at the end of the file
+    private boolean fill() throws IOException {
+        long mapped = this.windowStart + this.limit;
+        if (mapped >= this.end) {
+            return false;
+        }
+
+        long from = this.windowStart + this.mark;
+        long length = Math.min(this.windowSize, this.end - from);
+        while (from + length <= mapped) {
+            if (this.windowSize == Integer.MAX_VALUE) {
+                throw new IOException("token does not fit into a mapped window");
+            }
+            this.windowSize = (int) Math.min(Integer.MAX_VALUE, this.windowSize * 2L);
+            length = Math.min(this.windowSize, this.end - from);
+        }
+
+        // runs are scanned a word at a time, in the order of the machine
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        this.window.order(ByteOrder.nativeOrder());
+        this.pos -= this.mark;
+        this.charStart -= this.mark;
+        this.limit = (int) length;
+        this.windowStart = from;
+        this.mark = 0;
+        return true;
+    }
+}
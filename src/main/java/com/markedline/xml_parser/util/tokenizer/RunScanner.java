@@ -0,0 +1,115 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Kernels of the loops that see most of the input: the end of a text or attribute value run, and the character
+// classes of names and whitespace. Bytes are scanned eight at a time (SWAR): XORed with the delimiter repeated,
+// a word has a zero byte where the delimiter is, and its zero bytes are found without a branch per byte. Chars are
+// scanned one at a time: a char array cannot be read as longs, and a word put together from four char loads made
+// the scan two to three times slower than the loop the JIT unrolls, for one delimiter as for three.
+// Each tokenizer run ends at one delimiter: text at '<', as references are not expanded and '>' may appear in it,
+// and an attribute value at its quote. Scans that look for several delimiters at once use indexOfAny.
+// The ASCII class table is filled from Character, so it answers exactly what Character answers.
+public final class RunScanner {
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long ONES = 0x0101010101010101L;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final byte NAME = 1;
+    private static final byte WHITESPACE = 2;
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = 0; c < CLASSES.length; c++) {
+            CLASSES[c] = (byte) ((Character.isLetterOrDigit(c) ? NAME : 0) | (Character.isWhitespace(c) ? WHITESPACE : 0));
+        }
+    }
+
+    private RunScanner() {
+    }
+
+    // same as Character.isLetterOrDigit, false for code points outside the BMP
+    public static boolean isNameChar(int c) {
+        if (c < 128) {
+            return c >= 0 && (CLASSES[c] & NAME) != 0;
+        }
+        return Character.isBmpCodePoint(c) && Character.isLetterOrDigit((char) c);
+    }
+
+    // same as Character.isWhitespace
+    public static boolean isWhitespace(int c) {
+        if (c < 128) {
+            return c >= 0 && (CLASSES[c] & WHITESPACE) != 0;
+        }
+        return Character.isWhitespace(c);
+    }
+
+    // index of the first delimiter in [from, to), or -1
+    public static int indexOf(char[] chars, int from, int to, char delimiter) {
+        for (int i = from; i < to; i++) {
+            if (chars[i] == delimiter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // index of the first of the three delimiters in [from, to), or -1; a delimiter may be repeated to look for fewer
+    public static int indexOfAny(char[] chars, int from, int to, char a, char b, char c) {
+        for (int i = from; i < to; i++) {
+            char ch = chars[i];
+            if (ch == a || ch == b || ch == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // index of the first delimiter in [from, to) of the buffer, or -1; fastest in native byte order
+    public static int indexOf(ByteBuffer buffer, int from, int to, byte delimiter) {
+        if (from >= to) {
+            return -1;
+        }
+        long pattern = ONES * (delimiter & 0xFF);
+        boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long found = zeroBytes(buffer.getLong(i) ^ pattern);
+            if (found != 0) {
+                return i + (littleEndian ? Long.numberOfTrailingZeros(found) : Long.numberOfLeadingZeros(found)) / 8;
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer.get(i) == delimiter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // index of the first byte in [from, to) that is not ASCII, or to
+    public static int skipAscii(byte[] bytes, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long high = (long) LONGS.get(bytes, i) & HIGH_BITS;
+            if (high != 0) {
+                return i + Long.numberOfTrailingZeros(high) / 8;
+            }
+        }
+        while (i < to && bytes[i] >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    // The high bit of each byte of the result is set where the word has a zero byte, and nowhere else. Adding 0x7F
+    // to the low seven bits of a byte carries into its high bit unless they are all zero, and no carry crosses
+    // bytes, so unlike (word - ONES) & ~word there are no false hits next to a real one in either byte order.
+    private static long zeroBytes(long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+}
@@ -0,0 +1,135 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Resolves tag and attribute names to canonical Strings straight from the tokenizer buffer, a String is only built
+// the first time a name is seen. Symbols are interned, so names from any table, parse or thread compare by identity.
+// A table may be shared by consecutive parses, it is not thread-safe.
+public final class SymbolTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] symbols = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public String lookup(char[] buf, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buf[i];
+        }
+
+        int mask = this.symbols.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String symbol = this.symbols[slot];
+            if (symbol == null) {
+                return this.add(slot, hash, new String(buf, offset, length));
+            }
+            if (this.hashes[slot] == hash && equals(symbol, buf, offset, length)) {
+                return symbol;
+            }
+        }
+    }
+
+    // names of ASCII bytes only, returns null for anything else so the caller can decode it and use lookup(String)
+    public String lookupAscii(ByteBuffer buf, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = buf.get(i);
+            if (b < 0) {
+                return null;
+            }
+            hash = 31 * hash + b;
+        }
+
+        int mask = this.symbols.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String symbol = this.symbols[slot];
+            if (symbol == null) {
+                byte[] bytes = new byte[length];
+                buf.get(offset, bytes);
+                return this.add(slot, hash, new String(bytes, 0, length, StandardCharsets.US_ASCII));
+            }
+            if (this.hashes[slot] == hash && equals(symbol, buf, offset, length)) {
+                return symbol;
+            }
+        }
+    }
+
+    public String lookup(String name) {
+        // String.hashCode is the same polynomial as above
+        int hash = name.hashCode();
+        int mask = this.symbols.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String symbol = this.symbols[slot];
+            if (symbol == null) {
+                return this.add(slot, hash, name);
+            }
+            if (this.hashes[slot] == hash && symbol.equals(name)) {
+                return symbol;
+            }
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private String add(int slot, int hash, String name) {
+        String symbol = name.intern();
+        this.symbols[slot] = symbol;
+        this.hashes[slot] = hash;
+        // keep the table at most half full
+        if (++this.size * 2 > this.symbols.length) {
+            this.rehash();
+        }
+        return symbol;
+    }
+
+    private void rehash() {
+        String[] oldSymbols = this.symbols;
+        int[] oldHashes = this.hashes;
+        this.symbols = new String[oldSymbols.length * 2];
+        this.hashes = new int[oldHashes.length * 2];
+        int mask = this.symbols.length - 1;
+        for (int i = 0; i < oldSymbols.length; i++) {
+            if (oldSymbols[i] != null) {
+                int slot = spread(oldHashes[i]) & mask;
+                while (this.symbols[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.symbols[slot] = oldSymbols[i];
+                this.hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    // short names differ mostly in the low bits of the hash, mix the high bits in before masking
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(String symbol, char[] buf, int offset, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != buf[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(String symbol, ByteBuffer buf, int offset, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != buf.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
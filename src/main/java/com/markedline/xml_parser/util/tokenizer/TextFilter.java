@@ -0,0 +1,114 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import com.markedline.xml_parser.node.Element;
+
+import java.io.IOException;
+
+// Cursor over another cursor that skips whitespace-only text and/or trims text, working on the text characters
+// so that no String is built for dropped text. Text left empty by trimming is skipped too, like the empty text
+// between two tags.
+public final class TextFilter implements TokenCursor {
+    private final TokenCursor cursor;
+    private final boolean dropWhitespace;
+    private final boolean trim;
+    private int textStart;
+    private int textLength;
+
+    public TextFilter(TokenCursor cursor, boolean dropWhitespace, boolean trim) {
+        this.cursor = cursor;
+        this.dropWhitespace = dropWhitespace;
+        this.trim = trim;
+    }
+
+    @Override
+    public TokenType nextToken() throws IOException, XMLException {
+        TokenType tokenType;
+        while ((tokenType = this.cursor.nextToken()) == TokenType.TEXT) {
+            char[] chars = this.cursor.getTextCharacters();
+            int start = this.cursor.getTextStart();
+            int end = start + this.cursor.getTextLength();
+
+            int first = start;
+            while (first < end && isWhitespace(chars[first])) {
+                first++;
+            }
+            if (first == end && (this.dropWhitespace || this.trim)) {
+                continue;
+            }
+            if (this.trim) {
+                while (isWhitespace(chars[end - 1])) {
+                    end--;
+                }
+                start = first;
+            }
+            this.textStart = start;
+            this.textLength = end - start;
+            break;
+        }
+        return tokenType;
+    }
+
+    @Override
+    public Element getCurrentToken() {
+        if (this.cursor.getTokenType() == TokenType.TEXT) {
+            return new Element.Builder().withText(this.getText()).build();
+        }
+        return this.cursor.getCurrentToken();
+    }
+
+    @Override
+    public TokenType getTokenType() {
+        return this.cursor.getTokenType();
+    }
+
+    @Override
+    public String getLocalName() {
+        return this.cursor.getLocalName();
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return this.cursor.getAttributeCount();
+    }
+
+    @Override
+    public String getAttributeName(int i) {
+        return this.cursor.getAttributeName(i);
+    }
+
+    @Override
+    public String getAttributeValue(int i) {
+        return this.cursor.getAttributeValue(i);
+    }
+
+    @Override
+    public String getText() {
+        return new String(this.getTextCharacters(), this.textStart, this.textLength);
+    }
+
+    @Override
+    public char[] getTextCharacters() {
+        return this.cursor.getTextCharacters();
+    }
+
+    @Override
+    public int getTextStart() {
+        if (this.cursor.getTokenType() != TokenType.TEXT) {
+            throw new IllegalStateException();
+        }
+        return this.textStart;
+    }
+
+    @Override
+    public int getTextLength() {
+        if (this.cursor.getTokenType() != TokenType.TEXT) {
+            throw new IllegalStateException();
+        }
+        return this.textLength;
+    }
+
+    // whitespace as XML defines it
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+    }
+}
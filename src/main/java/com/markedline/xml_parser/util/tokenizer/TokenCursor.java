@@ -0,0 +1,26 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+// Pull access to the current token without building an Element for it. Values read through the cursor are only
+// valid until the next call of nextToken(); text characters may point straight into the tokenizer buffer
+// and must not be modified.
+public interface TokenCursor extends Tokenizer {
+
+    // name of the current START_TAG or END_TAG token
+    String getLocalName();
+
+    // attributes of the current START_TAG token
+    int getAttributeCount();
+
+    String getAttributeName(int i);
+
+    String getAttributeValue(int i);
+
+    // text of the current TEXT token
+    String getText();
+
+    char[] getTextCharacters();
+
+    int getTextStart();
+
+    int getTextLength();
+}
@@ -1,9 +1,11 @@
-package com.markedline.xml_parser.util.tokenizer;
-
-public enum TokenType {
-    BOF,
-    START_TAG,
-    END_TAG,
-    TEXT,
-    EOF
-}
+package com.markedline.xml_parser.util.tokenizer;
+
+public enum TokenType {
+    BOF,
+    START_TAG,
+    END_TAG,
+    TEXT,
+    EOF,
+    // the input pushed so far ends inside a token, see BufferedTokenizerImpl.push()
+    INCOMPLETE
+}
@@ -0,0 +1,32 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+public class TokenizerFactory {
+
+    public static TokenCursor createTokenizer(InputStream input, TokenizerMode mode) throws IOException {
+        return createTokenizer(input, mode, new SymbolTable());
+    }
+
+    // the input is decoded in the encoding InputDecoder finds for it
+    public static TokenCursor createTokenizer(InputStream input, TokenizerMode mode, SymbolTable symbols) throws IOException {
+        return switch (mode) {
+            case READER -> new TokenizerImpl(InputDecoder.reader(input), symbols);
+            case BUFFERED -> new BufferedTokenizerImpl(InputDecoder.reader(input), symbols);
+            // only UTF-8 files can be mapped, other input is scanned through the char window
+            case MAPPED -> input instanceof FileInputStream &&
+                    InputDecoder.skipUtf8Prolog(((FileInputStream) input).getChannel())
+                    ? new MappedTokenizerImpl((FileInputStream) input, symbols)
+                    : new BufferedTokenizerImpl(InputDecoder.reader(input), symbols);
+        };
+    }
+
+    public static TokenCursor createTokenizer(Reader input, TokenizerMode mode, SymbolTable symbols) {
+        return mode == TokenizerMode.READER
+                ? new TokenizerImpl(input, symbols)
+                : new BufferedTokenizerImpl(input, symbols);
+    }
+}
@@ -0,0 +1,10 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+public enum TokenizerMode {
+    // TokenizerImpl: char by char through a BufferedReader
+    READER,
+    // BufferedTokenizerImpl: index scanning over a char[] window
+    BUFFERED,
+    // MappedTokenizerImpl: byte scanning over a memory-mapped UTF-8 file
+    MAPPED
+}
@@ -0,0 +1,14 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+// Carries an XMLException out of APIs that cannot throw checked exceptions, such as streams and iterators
+public class UncheckedXMLException extends RuntimeException {
+
+    public UncheckedXMLException(XMLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public XMLException getCause() {
+        return (XMLException) super.getCause();
+    }
+}
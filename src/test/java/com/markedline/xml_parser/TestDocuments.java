@@ -0,0 +1,118 @@
+package com.markedline.xml_parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.Parser;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+// Documents the tests compare parsers, tokenizers and printers on, and the helpers to load and parse them
+public final class TestDocuments {
+
+    public static final String[] RESOURCES = {
+            "doc.xml", "doc1.xml", "doc2.xml", "docc.xml", "document.xml", "emptyAttr.xml", "bigXML.xml"
+    };
+
+    // emptyAttr.xml is left out, it does not parse
+    public static final String[] WELL_FORMED_RESOURCES = {
+            "doc.xml", "doc1.xml", "doc2.xml", "docc.xml", "document.xml", "bigXML.xml"
+    };
+
+    // well-formed and broken input, cut off at any point when read in small windows or chunks
+    public static final String[] SNIPPETS = {
+            "",
+            "   \n  ",
+            "<a>text</a>",
+            "<a><b x='1' y=\"2\">t</b></a> tail",
+            "<a  id  =  \"1\"   ></a   >",
+            "<a><b /><c id='1'/></a>",
+            "<a><b/></a>",
+            "<a><b/x></a>",
+            "<a><b@></a>",
+            "<a></b@></a>",
+            "<a><></a>",
+            "</>",
+            "<a x></a>",
+            "<a x=1></a>",
+            "<a =\"1\"></a>",
+            "<a x=\"1\"@></a>",
+            "<a x=\"1></a>",
+            "<a><b",
+            "<a></b   x>",
+            "<?xml version=\"1.0\"?><a/>",
+            "<a>x</a>y<b>z</b>",
+            "<жук>été</жук>",
+            "<a x='<>\"'>1 &amp; 2 > 0</a>",
+            "<r>",
+            "<r></r>",
+            "<r><a x='>' y=\"'\">1</a> <b /> <c>2</c>\n</r>",
+            "<r><a x='>' y=\"\">1</a> <b /> <c>2</c>\n</r>",
+            "<r>lead<a>1</a>mid<b>2</b>tail</r>after<c/>",
+            "<r>lead<a>1</a>mid<b>2</b>tail</r>after<c />",
+            "<r><a>1</a></r> x <b>2</b>",
+            "<r><a><b>deep</b></a><c>3</c></r>",
+            "<r><a>1</a></r>",
+            "<r><a>1</a><b/></r>",
+            "<r><a>1</a><b>",
+            "<r><a>1</a><b x=1></b><c>3</c></r>",
+            "<r><a>1</a><b x='1></b><c>3</c></r>",
+            "<r><a>1</a><b></c@></b></r>",
+            "<r><a>1</a></r><",
+            "<?xml version=\"1.0\"?><r><a>1</a></r>",
+            "</r><a>1</a>",
+            "<r x=1><a>1</a></r>",
+            "<r a='ü'>ü</r>",
+            "<r a='€'>ü€</r>",
+    };
+
+    private TestDocuments() {
+    }
+
+    public static File resource(String name) {
+        return new File(TestDocuments.class.getClassLoader().getResource(name).getFile());
+    }
+
+    // a new file in the folder holding the content in UTF-8
+    public static File write(TemporaryFolder folder, String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    public static int count(Element element) {
+        int count = 1;
+        if (element.hasChildren()) {
+            for (Element child : element.getChildren()) {
+                count += count(child);
+            }
+        }
+        return count;
+    }
+
+    public static String parse(Parser parser, File file) throws IOException {
+        try (FileInputStream input = new FileInputStream(file)) {
+            return outcome(() -> parser.parse(input));
+        }
+    }
+
+    // the printed tree, or the error, so that trees and errors of two parsers compare in one assertion
+    public static String outcome(Parse parse) {
+        try {
+            return parse.parse().toString();
+        } catch (XMLException e) {
+            return "XMLException " + e.getMessage();
+        } catch (IOException | RuntimeException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    public interface Parse {
+
+        Element parse() throws IOException, XMLException;
+    }
+}
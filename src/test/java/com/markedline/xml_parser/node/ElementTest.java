@@ -0,0 +1,217 @@
+package com.markedline.xml_parser.node;
+
+import com.markedline.xml_parser.util.parser.ParserConfig;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ElementTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldFindManyAttributesByName() {
+        List<Attribute> attributes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            attributes.add(new Attribute("a" + i, "v" + i));
+        }
+        attributes.add(new Attribute("a7", "repeated"));
+        Element element = new Element.Builder().withTagName("e").withAttributes(attributes).build();
+
+        for (int i = 0; i < 40; i++) {
+            assertEquals("v" + i, element.getAttributeValue("a" + i));
+        }
+        assertNull(element.getAttributeValue("a40"));
+
+        element.setAttribute("a7", "changed");
+        assertEquals("changed", attributes.get(7).getValue());
+        assertEquals("changed", attributes.get(40).getValue());
+
+        attributes.add(new Attribute("late", "added"));
+        assertEquals("added", element.getAttributeValue("late"));
+    }
+
+    @Test
+    public void shouldKeepIdIndexOfParsedTree() throws Exception {
+        File file = this.folder.newFile("ids.xml");
+        Files.write(file.toPath(), ("<menu><food id=\"1\"><name>a</name></food>" +
+                "<food id=\"2\"><name id=\"n2\">b</name></food></menu>").getBytes(StandardCharsets.UTF_8));
+        Element root = new ParserImpl(new ParserConfig.Builder().withIdAttribute("id").build()).
+                parse(new FileInputStream(file));
+        Element first = root.getChildren().get(0);
+        Element second = root.getChildren().get(1);
+        Element name = second.getChildren().get(0);
+
+        assertSame(first, root.getById("1"));
+        assertSame(name, first.getById("n2"));
+
+        second.setAttribute("id", "42");
+        assertNull(root.getById("2"));
+        assertSame(second, root.getById("42"));
+
+        root.removeChild(second);
+        assertNull(root.getById("42"));
+        assertNull(root.getById("n2"));
+        assertNull(second.getParent());
+
+        Element added = new Element.Builder().withTagName("food").
+                withAttributes(new ArrayList<>(List.of(new Attribute("id", "7")))).build();
+        added.addChild(second);
+        root.addChild(added);
+        assertSame(added, root.getById("7"));
+        assertSame(second, root.getById("42"));
+        assertSame(root, added.getParent());
+
+        Element replacement = new Element.Builder().withTagName("food").
+                withAttributes(new ArrayList<>(List.of(new Attribute("id", "8")))).build();
+        root.replaceChild(replacement, first);
+        assertNull(root.getById("1"));
+        assertSame(replacement, root.getById("8"));
+    }
+
+    @Test
+    public void shouldIndexBuiltTree() {
+        Element root = new Element.Builder().withTagName("root").build();
+        Element child = new Element.Builder().withTagName("child").
+                withAttributes(new ArrayList<>(List.of(new Attribute("key", "k")))).build();
+        root.addChild(child);
+        IdIndex index = IdIndex.build(root, "key");
+
+        assertSame(index, child.getIdIndex());
+        assertSame(child, root.getById("k"));
+        assertEquals(1, index.getAll("k").size());
+    }
+
+    @Test
+    public void shouldKeepDuplicateIdsInDocumentOrder() throws Exception {
+        byte[] doc = "<r><a id=\"d\">1</a><b id=\"d\"><c id=\"d\">2</c></b><e id=\"d\">3</e></r>".
+                getBytes(StandardCharsets.UTF_8);
+        Element parsed = new ParserImpl(new ParserConfig.Builder().withIdAttribute("id").build()).parse(doc);
+        Element built = new ParserImpl().parse(doc);
+        IdIndex.build(built, "id");
+        for (Element root : List.of(parsed, built)) {
+            Element a = root.getChild(0);
+            Element b = root.getChild(1);
+            Element c = b.getChild(0);
+            Element e = root.getChild(2);
+            assertSame(a, root.getById("d"));
+            assertEquals(List.of(a, b, c, e), root.getIdIndex().getAll("d"));
+
+            a.setAttribute("id", "z");
+            assertSame(b, root.getById("d"));
+            a.setAttribute("id", "d");
+            assertSame(a, root.getById("d"));
+
+            Element x = new Element.Builder().withTagName("x").
+                    withAttributes(new ArrayList<>(List.of(new Attribute("id", "d")))).build();
+            b.addChild(x);
+            assertEquals(List.of(a, b, c, x, e), root.getIdIndex().getAll("d"));
+        }
+    }
+
+    @Test
+    public void shouldCompareTreesByContentAfterAnyEdit() throws Exception {
+        Attribute x = new Attribute("x", "1");
+        Element a = new ParserImpl().parse("<r><a x=\"1\">t</a><b></b></r>".getBytes(StandardCharsets.UTF_8));
+        Element b = new Element.Builder().withTagName("r").withAttributes(new ArrayList<>()).build();
+        b.addChild(new Element.Builder().withTagName("a").withAttributes(new ArrayList<>(List.of(x))).build());
+        b.getChild(0).addChild(new Element.Builder().withText("t").build());
+        b.addChild(new Element.Builder().withTagName("b").withAttributes(new ArrayList<>()).build());
+        assertEquals(a, b);
+        assertEquals(a.getSubtreeHash(), b.getSubtreeHash());
+
+        // none of these edits go through the mutators of the elements, the lists and attributes drop the hashes
+        a.getChildren().add(new Element.Builder().withText("u").build());
+        x.setValue("2");
+        assertNotEquals(a, b);
+        assertNotEquals(a.getSubtreeHash(), b.getSubtreeHash());
+        b.getChildren().add(new Element.Builder().withText("u").build());
+        a.getChild(0).setAttribute("x", "2");
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.getSubtreeHash(), b.getSubtreeHash());
+
+        b.getChildren().remove(2);
+        assertNotEquals(a.hashCode(), b.hashCode());
+        b.freeze();
+        try {
+            x.setValue("3");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertEquals("2", x.getValue());
+        }
+    }
+
+    // edits cost no walk to the top of the tree: a deep chain took minutes when they did
+    @Test(timeout = 10_000)
+    public void shouldBuildDeepTreesInLinearTime() {
+        Element plain = new Element.Builder().withTagName("root").build();
+        Element indexed = new Element.Builder().withTagName("root").build();
+        IdIndex.build(indexed, "id");
+        for (Element root : List.of(plain, indexed)) {
+            Element element = root;
+            for (int i = 0; i < 100_000; i++) {
+                Element child = new Element.Builder().withTagName("a").
+                        withAttributes(new ArrayList<>(List.of(new Attribute("id", "a" + i)))).build();
+                element.addChild(child);
+                child.setAttribute("id", "b" + i);
+                element = child;
+            }
+            Element leaf = new Element.Builder().withText("leaf").build();
+            element.addChild(leaf);
+            element.replaceChild(new Element.Builder().withText("other").build(), leaf);
+        }
+        assertNull(plain.getIdIndex());
+        assertSame(indexed.getIdIndex(), indexed.getById("b99999").getIdIndex());
+        assertNull(indexed.getById("a99999"));
+        assertEquals(plain.hashCode(), indexed.hashCode());
+        assertEquals(plain, indexed);
+    }
+
+    // a value repeated among many siblings, as in bigXML.xml, took seconds to index when siblings were scanned
+    @Test(timeout = 10_000)
+    public void shouldIndexWideTreesWithRepeatedIds() {
+        Element root = new Element.Builder().withTagName("root").build();
+        for (int i = 0; i < 100_000; i++) {
+            root.addChild(new Element.Builder().withTagName("a").
+                    withAttributes(new ArrayList<>(List.of(new Attribute("id", "a" + i % 10)))).build());
+        }
+        IdIndex index = IdIndex.build(root, "id");
+        assertEquals(10_000, index.getAll("a3").size());
+        assertSame(root.getChild(3), root.getById("a3"));
+
+        for (int i = 0; i < 100_000; i++) {
+            root.addChild(new Element.Builder().withTagName("b").
+                    withAttributes(new ArrayList<>(List.of(new Attribute("id", "b" + i % 10)))).build());
+            root.getChild(i).setAttribute("id", "b" + i % 10);
+        }
+        assertNull(root.getById("a3"));
+        List<Element> all = index.getAll("b3");
+        assertEquals(20_000, all.size());
+        assertSame(root.getChild(3), all.get(0));
+        assertSame(root.getChild(199_993), all.get(19_999));
+        for (int i = 1; i < all.size(); i++) {
+            assertEquals(i < 10_000 ? "a" : "b", all.get(i).getTagName());
+        }
+
+        root.removeChild(root.getChild(3));
+        root.replaceChild(new Element.Builder().withTagName("c").build(), root.getChild(199_992));
+        assertEquals(19_998, index.getAll("b3").size());
+        assertSame(root.getChild(12), root.getById("b3"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.markedline.xml_parser.node;
+
+import com.markedline.xml_parser.util.parser.LazyParserImpl;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.markedline.xml_parser.TestDocuments.WELL_FORMED_RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class SnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReloadEqualTrees() throws Exception {
+        for (String resource : WELL_FORMED_RESOURCES) {
+            Path file = resource(resource).toPath();
+            Element expected = new ParserImpl().parse(file);
+            Path snapshotFile = this.folder.newFile(resource + ".snapshot").toPath();
+            Snapshot.write(new LazyParserImpl().parse(file), snapshotFile);
+
+            Snapshot snapshot = Snapshot.open(snapshotFile);
+            assertEquals(resource, expected, snapshot.toElement());
+            assertEquals(resource, expected, snapshot.asElement());
+        }
+    }
+
+    @Test
+    public void shouldKeepNullListsAndAnyChars() throws Exception {
+        Element root = new Element.Builder().withTagName("r").withAttributes(new ArrayList<>()).build();
+        List<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("a", "😀 \uD800 é€ \u0000"));
+        root.addChild(new Element.Builder().withTagName("e").withAttributes(attributes).withText("both").build());
+        root.addChild(new Element.Builder().withText("x".repeat(100)).build());
+        root.addChild(new Element.Builder().withTagName("empty").withChildren(new ArrayList<>()).build());
+        root.addChild(new Element());
+
+        Element copy = Snapshot.wrap(ByteBuffer.wrap(bytes(root))).toElement();
+        assertEquals(root, copy);
+        assertNull(copy.getChild(1).getChildren());
+        assertEquals(0, copy.getChild(2).getChildren().size());
+    }
+
+    @Test
+    public void shouldNavigateWithoutElements() throws Exception {
+        Element root = new ParserImpl().parse(
+                "<menu><food id='1' kind='x'><name>a</name></food><food id='2'>b</food></menu>".
+                        getBytes(StandardCharsets.UTF_8));
+        Snapshot snapshot = Snapshot.wrap(ByteBuffer.wrap(bytes(root)));
+
+        int menu = snapshot.getRoot();
+        assertEquals(6, snapshot.getNodeCount());
+        assertEquals("menu", snapshot.getTagName(menu));
+        int[] foods = snapshot.getChildren(menu);
+        assertEquals(2, foods.length);
+        assertEquals(2, snapshot.getAttributeCount(foods[0]));
+        assertEquals("kind", snapshot.getAttributeName(foods[0], 1));
+        assertEquals("2", snapshot.getAttributeValue(foods[1], "id"));
+        int name = snapshot.getChildren(foods[0])[0];
+        assertEquals("a", snapshot.getText(snapshot.getChildren(name)[0]));
+        assertNull(snapshot.getText(name));
+        assertEquals("b", snapshot.getText(snapshot.getChildren(foods[1])[0]));
+        assertArrayEquals(new int[0], snapshot.getChildren(snapshot.getChildren(foods[1])[0]));
+    }
+
+    @Test
+    public void shouldRejectOtherFormatsAndVersions() throws Exception {
+        byte[] bytes = bytes(new ParserImpl().parse("<r>1</r>".getBytes(StandardCharsets.UTF_8)));
+        byte[] version = bytes.clone();
+        version[5] = 2;
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        byte[][] invalid = {"<r>1</r>".getBytes(StandardCharsets.UTF_8), version, truncated, new byte[0]};
+        for (byte[] input : invalid) {
+            try {
+                Snapshot.wrap(ByteBuffer.wrap(input));
+                fail();
+            } catch (SnapshotFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    private static byte[] bytes(Element root) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Snapshot.write(root, out);
+        return out.toByteArray();
+    }
+}
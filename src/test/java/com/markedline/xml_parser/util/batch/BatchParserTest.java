@@ -0,0 +1,99 @@
+package com.markedline.xml_parser.util.batch;
+
+import com.markedline.xml_parser.util.parser.GatedParser;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReportEveryFileAndGoOnAfterErrors() throws Exception {
+        Path dir = this.folder.newFolder("data").toPath();
+        Map<Path, String> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            String doc = "<r><a id='" + i + "'>" + i + "</a></r>";
+            Path file = Files.writeString(dir.resolve("f" + i + ".xml"), doc);
+            expected.put(file, new ParserImpl().parse(file).toString());
+        }
+        Files.writeString(dir.resolve("bad.xml"), "<r><></r>");
+        Files.writeString(dir.resolve("notes.txt"), "<r></r>");
+        List<Path> files = new ArrayList<>(FilePatterns.expand(List.of(dir.toString())));
+        files.add(dir.resolve("missing.xml"));
+
+        List<FileResult> results = new ArrayList<>();
+        BatchReport report = new BatchParser.Builder().withParallelism(4).build().parse(files, results::add);
+
+        assertEquals(102, results.size());
+        assertEquals(102, report.getFiles());
+        assertEquals(2, report.getFailed());
+        for (FileResult result : results) {
+            String name = result.getPath().getFileName().toString();
+            if (name.equals("bad.xml")) {
+                assertTrue(result.getError() instanceof XMLException);
+            } else if (name.equals("missing.xml")) {
+                assertTrue(result.getError() instanceof IOException);
+            } else {
+                assertEquals(expected.get(result.getPath()), result.getRoot().toString());
+            }
+        }
+    }
+
+    @Test
+    public void shouldExpandGlobs() throws Exception {
+        Path dir = this.folder.newFolder("glob").toPath();
+        Files.createDirectories(dir.resolve("x/y"));
+        Files.writeString(dir.resolve("a.xml"), "<r />");
+        Files.writeString(dir.resolve("x/b.xml"), "<r />");
+        Files.writeString(dir.resolve("x/y/c.xml"), "<r />");
+        Files.writeString(dir.resolve("x/y/d.txt"), "<r />");
+
+        assertEquals(List.of(dir.resolve("x/b.xml"), dir.resolve("x/y/c.xml")),
+                FilePatterns.expand(List.of(dir + "/x/**.xml")));
+        assertEquals(List.of(dir.resolve("x/b.xml")), FilePatterns.expand(List.of(dir + "/*/*.xml")));
+        assertEquals(List.of(dir.resolve("a.xml"), dir.resolve("x/b.xml"), dir.resolve("x/y/c.xml")),
+                FilePatterns.expand(List.of(dir.toString(), dir + "/x/b.xml")));
+    }
+
+    @Test
+    public void shouldTimeOutStalledFile() throws Exception {
+        Path dir = this.folder.newFolder("slow").toPath();
+        List<Path> files = new ArrayList<>();
+        for (String name : new String[]{"stall.xml", "a.xml", "b.xml", "c.xml"}) {
+            files.add(Files.writeString(dir.resolve(name), "<r />"));
+        }
+        CountDownLatch never = new CountDownLatch(1);
+
+        List<FileResult> results = new ArrayList<>();
+        BatchReport report = new BatchParser.Builder().
+                withParser(new GatedParser(never, path -> path.getFileName().toString().equals("stall.xml"))).
+                withParallelism(2).
+                withTimeout(Duration.ofMillis(200)).
+                build().parse(files, results::add);
+
+        assertEquals(4, report.getFiles());
+        assertEquals(1, report.getFailed());
+        FileResult stalled = results.get(results.size() - 1);
+        assertEquals(files.get(0), stalled.getPath());
+        assertTrue(stalled.getError() instanceof TimeoutException);
+    }
+}
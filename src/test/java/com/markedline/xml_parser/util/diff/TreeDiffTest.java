@@ -0,0 +1,84 @@
+package com.markedline.xml_parser.util.diff;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import com.markedline.xml_parser.util.parser.TreeBuilder;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TreeDiffTest {
+
+    private static final String FEED = "<menu>" +
+            "<food id=\"1\"><name>a</name><price>1</price></food>" +
+            "<food id=\"2\"><name>b</name><price>2</price></food>" +
+            "<food id=\"3\"><name>c</name><price>3</price></food>" +
+            "<food id=\"4\"><name>d</name><price>4</price></food>" +
+            "</menu>";
+
+    @Test
+    public void shouldFindNothingInEqualTrees() throws Exception {
+        Element first = parse(FEED);
+        Element second = parse(FEED);
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertTrue(TreeDiff.diff(first, second).isEmpty());
+    }
+
+    @Test
+    public void shouldFindChangedRecords() throws Exception {
+        Element oldFeed = parse(FEED);
+        Element newFeed = parse(FEED.
+                replace("<price>2</price>", "<price>20</price>").
+                replace("<food id=\"4\">", "<food id=\"5\"><name>e</name></food><food id=\"4\">").
+                replace("<food id=\"1\"><name>a</name><price>1</price></food>", ""));
+
+        List<String> differences = TreeDiff.diff(oldFeed, newFeed).stream().
+                map(Difference::toString).collect(Collectors.toList());
+        assertEquals(List.of("DELETED <food>", "UPDATED '20'", "INSERTED <food>"), differences);
+    }
+
+    @Test
+    public void shouldSeeChangesMadeAfterHashing() throws Exception {
+        Element oldFeed = parse(FEED);
+        Element newFeed = parse(FEED);
+        long hash = newFeed.getSubtreeHash();
+
+        newFeed.getChild(2).getChild(0).getChild(0).setText("z");
+        assertNotEquals(hash, newFeed.getSubtreeHash());
+        List<Difference> differences = TreeDiff.diff(oldFeed, newFeed);
+        assertEquals(1, differences.size());
+        assertEquals(Difference.Type.UPDATED, differences.get(0).getType());
+        assertEquals("z", differences.get(0).getNewElement().getText());
+    }
+
+    @Test
+    public void shouldFindMovedRecords() throws Exception {
+        Element oldFeed = parse(FEED);
+        Element newFeed = parse("<menu>" +
+                "<food id=\"1\"><name>a</name><price>1</price></food>" +
+                "<food id=\"3\"><name>c</name><price>3</price></food>" +
+                "<food id=\"2\"><name>b</name><price>2</price></food>" +
+                "<food id=\"4\"><name>d</name><price>4</price></food>" +
+                "</menu>");
+
+        List<Difference> differences = TreeDiff.diff(oldFeed, newFeed);
+        assertEquals(1, differences.size());
+        assertEquals(Difference.Type.MOVED, differences.get(0).getType());
+        assertEquals("2", differences.get(0).getNewElement().getAttributeValue("id"));
+    }
+
+    private static Element parse(String xml) throws Exception {
+        TreeBuilder builder = new TreeBuilder();
+        new ParserImpl().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), builder);
+        return builder.getRoot();
+    }
+}
@@ -0,0 +1,135 @@
+package com.markedline.xml_parser.util.metrics;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.Parser;
+import com.markedline.xml_parser.util.parser.ParserConfig;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import com.markedline.xml_parser.util.tokenizer.TokenType;
+import com.markedline.xml_parser.util.tokenizer.TokenizerMode;
+import com.markedline.xml_parser.util.tokenizer.UncheckedXMLException;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetricsRegistryTest {
+    private static final String DOC = "<r a='1'><b x='1' y='2'>héllo</b><c><d>x</d></c></r>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldMeasureEveryTokenizerMode() throws Exception {
+        Path file = this.folder.newFile("doc.xml").toPath();
+        Files.writeString(file, DOC);
+        for (TokenizerMode mode : TokenizerMode.values()) {
+            List<ParseMetrics> parsed = new ArrayList<>();
+            Parser parser = new ParserImpl(new ParserConfig.Builder().
+                    withTokenizerMode(mode).
+                    withListener(parsed::add).build());
+            parser.parse(file);
+
+            assertEquals(1, parsed.size());
+            ParseMetrics metrics = parsed.get(0);
+            assertEquals(mode.name(), DOC.getBytes(StandardCharsets.UTF_8).length, metrics.getBytes());
+            assertEquals(4, metrics.getElements());
+            assertEquals(4, metrics.getTokens(TokenType.END_TAG));
+            assertEquals(2, metrics.getTokens(TokenType.TEXT));
+            assertEquals(3, metrics.getAttributes());
+            assertEquals(3, metrics.getMaxDepth());
+            assertTrue(metrics.getTotalNanos() >= metrics.getScanNanos() + metrics.getBuildNanos());
+        }
+    }
+
+    @Test
+    public void shouldAddUpParsesAndFailures() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        Parser parser = new ParserImpl(new ParserConfig.Builder().withListener(registry).build());
+        parser.parse(new ByteArrayInputStream(DOC.getBytes(StandardCharsets.UTF_8)));
+        parser.parse(new ByteArrayInputStream("<r><s><t></t></s></r>".getBytes(StandardCharsets.UTF_8)));
+        try {
+            parser.parse(new ByteArrayInputStream("<r><></r>".getBytes(StandardCharsets.UTF_8)));
+            fail();
+        } catch (XMLException e) {
+            // counted as a failure
+        }
+
+        assertEquals(2, registry.getParses());
+        assertEquals(1, registry.getFailures());
+        assertEquals(3, registry.getMaxDepth());
+        // the failed parse got as far as its root
+        assertEquals(8, registry.getElements());
+        String text = registry.toText();
+        assertTrue(text, text.contains("xml_parser_parses_total 2\n"));
+        assertTrue(text, text.contains("xml_parser_tokens_total{type=\"start_tag\"} "));
+
+        registry.register();
+        try {
+            ObjectName name = new ObjectName(MetricsRegistry.OBJECT_NAME);
+            assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Parses"));
+        } finally {
+            registry.unregister();
+        }
+    }
+
+    @Test
+    public void shouldMeasureStreamsOnceRead() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        Parser parser = new ParserImpl(new ParserConfig.Builder().withListener(registry).build());
+        try (Stream<Element> records = parser.stream(new ByteArrayInputStream(DOC.getBytes(StandardCharsets.UTF_8)),
+                "b")) {
+            Iterator<Element> iterator = records.iterator();
+            assertTrue(iterator.hasNext());
+            iterator.next();
+            assertEquals(0, registry.getParses());
+            assertFalse(iterator.hasNext());
+            assertFalse(iterator.hasNext());
+        }
+        assertEquals(1, registry.getParses());
+        assertEquals(4, registry.getElements());
+
+        try {
+            parser.stream(new ByteArrayInputStream("<r><b/><></r>".getBytes(StandardCharsets.UTF_8)), "b").count();
+            fail();
+        } catch (UncheckedXMLException e) {
+            // counted as a failure
+        }
+        assertEquals(1, registry.getParses());
+        assertEquals(1, registry.getFailures());
+    }
+
+    @Test
+    public void shouldServeMetricsOnLoopback() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        new ParserImpl(new ParserConfig.Builder().withListener(registry).build()).
+                parse(new ByteArrayInputStream(DOC.getBytes(StandardCharsets.UTF_8)));
+        try (MetricsEndpoint endpoint = new MetricsEndpoint(registry, 0)) {
+            assertTrue(endpoint.getAddress().getAddress().isLoopbackAddress());
+            URL url = new URL("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" +
+                    endpoint.getPort() + "/metrics");
+            try (InputStream input = url.openStream()) {
+                String text = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(text, text.contains("xml_parser_parses_total 1\n"));
+            }
+        }
+    }
+}
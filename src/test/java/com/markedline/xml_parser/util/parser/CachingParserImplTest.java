@@ -0,0 +1,153 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CachingParserImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReloadChangedFiles() throws Exception {
+        Path file = this.folder.newFile("menu.xml").toPath();
+        Files.writeString(file, "<menu><food id='1'>a</food></menu>");
+        CachingParserImpl parser = new CachingParserImpl(1 << 20);
+
+        Element root = parser.parse(file);
+        assertSame(root, parser.parse(file.getParent().resolve("./menu.xml")));
+        assertEquals(new ParserImpl().parse(file), root);
+
+        Files.writeString(file, "<menu><food id='2'>b</food></menu>");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        Element changed = parser.parse(file);
+        assertNotSame(root, changed);
+        assertEquals("2", changed.getChild(0).getAttributeValue("id"));
+        assertEquals(1, parser.size());
+        assertEquals(1, parser.getHits());
+        assertEquals(2, parser.getMisses());
+    }
+
+    @Test
+    public void shouldHandOutReadOnlyTrees() throws Exception {
+        CachingParserImpl parser = new CachingParserImpl(1 << 20);
+        byte[] doc = "<r><a x='1'>text</a></r>".getBytes(StandardCharsets.UTF_8);
+        Element root = parser.parse(doc);
+        assertSame(root, parser.parse(new ByteArrayInputStream(doc)));
+        assertTrue(root.isFrozen());
+
+        Element a = root.getChild(0);
+        List<Runnable> changes = List.of(
+                () -> a.getChild(0).setText("x"),
+                () -> a.setAttribute("x", "2"),
+                () -> a.setTagName("b"),
+                () -> root.addChild(new Element.Builder().withTagName("c").build()),
+                () -> root.removeChild(a),
+                () -> root.getChildren().clear(),
+                () -> new Element.Builder().withTagName("c").build().addChild(a));
+        for (Runnable change : changes) {
+            try {
+                change.run();
+                fail();
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+        assertEquals("text", a.getChild(0).getText());
+        assertEquals("1", a.getAttributeValue("x"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTreesOverBudget() throws Exception {
+        Element sample = new ParserImpl().parse(document(0).getBytes(StandardCharsets.UTF_8));
+        long size = CachingParserImpl.estimateSize(sample);
+        CachingParserImpl parser = new CachingParserImpl(3 * size);
+
+        Element first = parser.parse(CharBuffer.wrap(document(0)));
+        parser.parse(CharBuffer.wrap(document(1)));
+        parser.parse(CharBuffer.wrap(document(2)));
+        // the first document becomes the most recently used, the second is evicted for the fourth
+        assertSame(first, parser.parse(CharBuffer.wrap(document(0))));
+        parser.parse(CharBuffer.wrap(document(3)));
+
+        assertEquals(3, parser.size());
+        assertTrue(parser.getBytes() <= 3 * size);
+        assertSame(first, parser.parse(CharBuffer.wrap(document(0))));
+        long misses = parser.getMisses();
+        parser.parse(CharBuffer.wrap(document(1)));
+        assertEquals(misses + 1, parser.getMisses());
+    }
+
+    @Test
+    public void shouldParseOnceForConcurrentCallers() throws Exception {
+        Path file = this.folder.newFile("catalog.xml").toPath();
+        Files.writeString(file, document(7));
+        CountDownLatch release = new CountDownLatch(1);
+        GatedParser gated = new GatedParser(release, path -> true);
+        CachingParserImpl parser = new CachingParserImpl(gated, 1 << 20);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Element>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> parser.parse(file)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            Element root = futures.get(0).get();
+            for (Future<Element> future : futures) {
+                assertSame(root, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, gated.getFileParses());
+        assertEquals(7, parser.getHits());
+    }
+
+    @Test
+    public void shouldNotKeepFailedParses() throws Exception {
+        CachingParserImpl parser = new CachingParserImpl(1 << 20);
+        byte[] doc = "<r><></r>".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 2; i++) {
+            try {
+                parser.parse(doc);
+                fail();
+            } catch (XMLException e) {
+                // parsed again each time
+            }
+        }
+        assertEquals(2, parser.getMisses());
+        assertEquals(0, parser.size());
+    }
+
+    private static String document(int n) {
+        StringBuilder doc = new StringBuilder("<catalog n='").append(n).append("'>");
+        for (int i = 0; i < 20; i++) {
+            doc.append("<item id='").append(i).append("'>item ").append(i).append("</item>");
+        }
+        return doc.append("</catalog>").toString();
+    }
+}
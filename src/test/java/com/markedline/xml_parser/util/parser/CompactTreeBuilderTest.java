@@ -0,0 +1,107 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.CompactDocument;
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.List;
+
+import static com.markedline.xml_parser.TestDocuments.RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.SNIPPETS;
+import static com.markedline.xml_parser.TestDocuments.count;
+import static com.markedline.xml_parser.TestDocuments.outcome;
+import static com.markedline.xml_parser.TestDocuments.parse;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static com.markedline.xml_parser.TestDocuments.write;
+import static org.junit.Assert.assertEquals;
+
+public class CompactTreeBuilderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldViewSameTreesAsParserImpl() throws IOException {
+        for (String resource : RESOURCES) {
+            File file = resource(resource);
+            assertEquals(resource, parse(new ParserImpl(), file), parseCompact(file));
+        }
+        for (String snippet : SNIPPETS) {
+            File file = write(this.folder, snippet);
+            assertEquals(snippet, parse(new ParserImpl(), file), parseCompact(file));
+        }
+    }
+
+    @Test
+    public void shouldParseCompactTreesThroughFactory() throws IOException {
+        CompactParserImpl parser = ParserFactory.createCompactParser();
+        for (String snippet : SNIPPETS) {
+            File file = write(this.folder, snippet);
+            String expected = parse(new ParserImpl(), file);
+            assertEquals(snippet, expected, parse(parser, file));
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            assertEquals(snippet, expected, outcome(() -> parser.parse(bytes)));
+            assertEquals(snippet, expected, outcome(() -> parser.parse(new StringReader(snippet))));
+        }
+    }
+
+    @Test
+    public void shouldNavigateLikeElementTree() throws IOException, XMLException {
+        File file = resource("bigXML.xml");
+        Element root;
+        CompactTreeBuilder builder = new CompactTreeBuilder();
+        try (FileInputStream input = new FileInputStream(file)) {
+            root = new ParserImpl().parse(input);
+        }
+        try (FileInputStream input = new FileInputStream(file)) {
+            new ParserImpl().parse(input, builder);
+        }
+        CompactDocument document = builder.getDocument();
+
+        assertEquals(CompactDocument.NONE, document.getParent(document.getRoot()));
+        assertEquals(CompactDocument.NONE, document.getNextSibling(document.getRoot()));
+        assertEquals(count(root), document.getNodeCount());
+        assertNavigation(document, document.getRoot(), root);
+    }
+
+    private static void assertNavigation(CompactDocument document, int node, Element element) {
+        assertEquals(element.getTagName(), document.getTagName(node));
+        assertEquals(element.getText(), document.getText(node));
+        if (element.getTagName() != null) {
+            assertEquals(element.getAttributeCount(), document.getAttributeCount(node));
+            for (int i = 0; i < element.getAttributeCount(); i++) {
+                assertEquals(element.getAttributeValue(i),
+                        document.getAttributeValue(node, element.getAttributeName(i)));
+            }
+        }
+
+        int child = document.getFirstChild(node);
+        List<Element> children = element.getChildren();
+        if (children != null) {
+            for (Element childElement : children) {
+                assertEquals(node, document.getParent(child));
+                assertNavigation(document, child, childElement);
+                child = document.getNextSibling(child);
+            }
+        }
+        assertEquals(CompactDocument.NONE, child);
+    }
+
+    private static String parseCompact(File file) throws IOException {
+        CompactTreeBuilder builder = new CompactTreeBuilder();
+        try (FileInputStream input = new FileInputStream(file)) {
+            return outcome(() -> {
+                new ParserImpl().parse(input, builder);
+                return builder.getDocument().asElement();
+            });
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Parser for tests that need a parse to hang: files the predicate picks wait for the gate to open. Everything is
+// then parsed by ParserImpl, and the files asked for are counted.
+public final class GatedParser implements Parser {
+    private final Parser parser = new ParserImpl();
+    private final CountDownLatch gate;
+    private final Predicate<Path> gated;
+    private final AtomicInteger fileParses = new AtomicInteger();
+
+    public GatedParser(CountDownLatch gate, Predicate<Path> gated) {
+        this.gate = gate;
+        this.gated = gated;
+    }
+
+    public int getFileParses() {
+        return this.fileParses.get();
+    }
+
+    @Override
+    public Element parse(Path path) throws IOException, XMLException {
+        this.fileParses.incrementAndGet();
+        if (this.gated.test(path)) {
+            try {
+                this.gate.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+        return this.parser.parse(path);
+    }
+
+    @Override
+    public Element parse(FileInputStream input) throws IOException, XMLException {
+        return this.parser.parse(input);
+    }
+
+    @Override
+    public Element parse(InputStream input) throws IOException, XMLException {
+        return this.parser.parse(input);
+    }
+
+    @Override
+    public Element parse(Reader input) throws IOException, XMLException {
+        return this.parser.parse(input);
+    }
+
+    @Override
+    public Element parse(CharBuffer input) throws IOException, XMLException {
+        return this.parser.parse(input);
+    }
+
+    @Override
+    public void parse(InputStream input, ContentHandler handler) throws IOException, XMLException {
+        this.parser.parse(input, handler);
+    }
+
+    @Override
+    public Stream<Element> stream(InputStream input, String tagName) throws IOException {
+        return this.parser.stream(input, tagName);
+    }
+}
@@ -0,0 +1,50 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import static com.markedline.xml_parser.TestDocuments.RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.SNIPPETS;
+import static com.markedline.xml_parser.TestDocuments.parse;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static com.markedline.xml_parser.TestDocuments.write;
+import static org.junit.Assert.assertEquals;
+
+public class LazyParserImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldBuildSameTreesAsParserImpl() throws IOException {
+        for (String resource : RESOURCES) {
+            File file = resource(resource);
+            assertEquals(resource, parse(new ParserImpl(), file), parse(new LazyParserImpl(), file));
+        }
+        for (String snippet : SNIPPETS) {
+            File file = write(this.folder, snippet);
+            assertEquals(snippet, parse(new ParserImpl(), file), parse(new LazyParserImpl(), file));
+        }
+    }
+
+    @Test
+    public void shouldReplaceLazyValues() throws IOException, XMLException {
+        File file = write(this.folder, "<r><a x='1'>text</a></r>");
+        Element a;
+        try (FileInputStream input = new FileInputStream(file)) {
+            a = new LazyParserImpl().parse(input).getChild(0);
+        }
+
+        a.setAttribute("x", "2");
+        a.getChild(0).setText("other");
+        assertEquals("2", a.getAttributeValue("x"));
+        assertEquals("other", a.getChild(0).getText());
+    }
+}
@@ -0,0 +1,68 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.markedline.xml_parser.TestDocuments.RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.SNIPPETS;
+import static com.markedline.xml_parser.TestDocuments.parse;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static com.markedline.xml_parser.TestDocuments.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ParallelParserImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @Test
+    public void shouldBuildSameTreesAsParserImplOnResources() throws IOException {
+        for (String resource : RESOURCES) {
+            File file = resource(resource);
+            assertEquals(resource, parse(new ParserImpl(), file), parse(new ParallelParserImpl(this.pool, 1024), file));
+        }
+    }
+
+    @Test
+    public void shouldBuildSameTreesAndErrorsAsParserImplForEveryChunkSize() throws IOException {
+        for (String snippet : SNIPPETS) {
+            File file = write(this.folder, snippet);
+            String expected = parse(new ParserImpl(), file);
+            for (int chunkSize = 1; chunkSize <= 8; chunkSize++) {
+                assertEquals(snippet, expected, parse(new ParallelParserImpl(this.pool, chunkSize), file));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReportFirstErrorOfBigDocument() throws IOException {
+        File source = resource("bigXML.xml");
+        String doc = new String(Files.readAllBytes(source.toPath()));
+        int middle = doc.indexOf("<food", doc.length() / 2);
+        File file = write(this.folder, doc.substring(0, middle) + "<food id=2>" + doc.substring(middle).replace("<price>", "<price@>"));
+
+        assertEquals("XMLException invalid attribute", parse(new ParallelParserImpl(this.pool, 1024), file));
+    }
+
+    @Test
+    public void shouldAttachChunksToRoot() throws Exception {
+        File file = resource("bigXML.xml");
+        try (FileInputStream input = new FileInputStream(file)) {
+            Element root = new ParallelParserImpl(this.pool, 1024).parse(input);
+            for (Element child : root.getChildren()) {
+                assertSame(root, child.getParent());
+            }
+        }
+    }
+}
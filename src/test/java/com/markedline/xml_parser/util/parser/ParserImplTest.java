@@ -0,0 +1,338 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.metrics.ParseMetrics;
+import com.markedline.xml_parser.util.tokenizer.TokenType;
+import com.markedline.xml_parser.util.tokenizer.TokenizerMode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static com.markedline.xml_parser.TestDocuments.count;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ParserImplTest {
+
+    private static final long STREAM_SIZE = 1L << 30;
+    private static final int CHECKPOINTS = 8;
+    private static final long ALLOWED_GROWTH = 16L << 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldStreamSameRecordsAsTree() throws Exception {
+        File file = resource("bigXML.xml");
+        List<String> expected = new ArrayList<>();
+        for (Element child : new ParserImpl().parse(new FileInputStream(file)).getChildren()) {
+            if ("food".equals(child.getTagName())) {
+                child.setParent(null);
+                expected.add(child.toString());
+            }
+        }
+
+        try (FileInputStream input = new FileInputStream(file)) {
+            List<String> records = new ParserImpl().stream(input, "food").map(Element::toString).collect(Collectors.toList());
+            assertEquals(expected, records);
+        }
+    }
+
+    @Test
+    public void shouldStopReadingWhenStreamIsShortCircuited() throws Exception {
+        File file = resource("bigXML.xml");
+        try (CountingInputStream input = new CountingInputStream(new FileInputStream(file))) {
+            List<Element> cheap = new ParserImpl().stream(input, "food").
+                    filter(food -> "2".equals(food.getAttributeValue("id"))).
+                    limit(3).collect(Collectors.toList());
+
+            assertEquals(3, cheap.size());
+            assertTrue(input.count < file.length() / 4);
+        }
+    }
+
+    @Test
+    public void shouldDropWhitespaceTextInEveryMode() throws Exception {
+        for (String name : new String[]{"docc.xml", "bigXML.xml"}) {
+            File file = resource(name);
+            Element full = new ParserImpl().parse(new FileInputStream(file));
+            int fullCount = count(full);
+            dropWhitespace(full);
+
+            for (TokenizerMode mode : TokenizerMode.values()) {
+                ParserConfig config = new ParserConfig.Builder().
+                        withTokenizerMode(mode).
+                        withWhitespaceDropped(true).build();
+                try (FileInputStream input = new FileInputStream(file)) {
+                    Element dropped = new ParserImpl(config).parse(input);
+                    assertEquals(name + " " + mode, full.toString(), dropped.toString());
+                    assertTrue(name, count(dropped) * 3 < fullCount * 2);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldTrimText() throws Exception {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), "<r><b> \t </b>\n  a  <c> 1 </c></r>".getBytes());
+        ParserConfig config = new ParserConfig.Builder().
+                withTextTrimmed(true).build();
+
+        Element root = new ParserImpl(config).parse(new FileInputStream(file));
+
+        assertEquals(3, root.getChildren().size());
+        assertEquals(null, root.getChild(0).getChildren());
+        assertEquals("a", root.getChild(1).getText());
+        assertEquals("1", root.getChild(2).getChild(0).getText());
+    }
+
+    @Test
+    public void shouldApplyConfigInEveryParser() throws Exception {
+        byte[] bytes = Files.readAllBytes(resource("bigXML.xml").toPath());
+        List<ParseMetrics> measured = new ArrayList<>();
+        ParserConfig config = new ParserConfig.Builder().
+                withWhitespaceDropped(true).
+                withTextTrimmed(true).
+                withIdAttribute("id").
+                withListener(measured::add).build();
+        Element expected = new ParserImpl(config).parse(bytes);
+        ParseMetrics expectedMetrics = measured.get(0);
+
+        Parser[] parsers = {
+                new LazyParserImpl(config),
+                new ParallelParserImpl(ForkJoinPool.commonPool(), 1024, config),
+                new SessionParserImpl(config)
+        };
+        for (Parser parser : parsers) {
+            String message = parser.getClass().getSimpleName();
+            Element root = parser.parse(bytes);
+            assertEquals(message, expected, root);
+            assertSame(message, root.getChild(0), root.getById("1"));
+            assertEquals(message, expected.getIdIndex().getAll("2").size(), root.getIdIndex().getAll("2").size());
+
+            ParseMetrics metrics = measured.get(measured.size() - 1);
+            assertEquals(message, expectedMetrics.getElements(), metrics.getElements());
+            assertEquals(message, expectedMetrics.getTokens(TokenType.TEXT), metrics.getTokens(TokenType.TEXT));
+            assertEquals(message, expectedMetrics.getMaxDepth(), metrics.getMaxDepth());
+        }
+        assertEquals(1 + parsers.length, measured.size());
+    }
+
+    private static void dropWhitespace(Element element) {
+        if (element.hasChildren()) {
+            element.getChildren().removeIf(child -> child.getText() != null && child.getText().isBlank());
+            for (Element child : element.getChildren()) {
+                dropWhitespace(child);
+            }
+        }
+    }
+
+    @Test
+    public void shouldParseEveryKindOfInput() throws Exception {
+        for (Parser parser : new Parser[]{new ParserImpl(), new LazyParserImpl(), new ParallelParserImpl()}) {
+            for (String name : new String[]{"docc.xml", "bigXML.xml"}) {
+                File file = resource(name);
+                Element expected = parser.parse(new FileInputStream(file));
+                byte[] bytes = Files.readAllBytes(file.toPath());
+                ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+                String message = parser.getClass().getSimpleName() + " " + name;
+
+                assertEquals(message, expected, parser.parse(file.toPath()));
+                assertEquals(message, expected, parser.parse(bytes));
+                assertEquals(message, expected, parser.parse(direct));
+                assertEquals(message, expected, parser.parse(new ByteArrayInputStream(bytes)));
+                assertEquals(message, expected, parser.parse(new StringReader(new String(bytes, StandardCharsets.UTF_8))));
+                assertEquals(message, expected, parser.parse(CharBuffer.wrap(new String(bytes, StandardCharsets.UTF_8))));
+            }
+        }
+    }
+
+    @Test
+    public void shouldParseInDeclaredEncoding() throws Exception {
+        String xml = "<menu><food id=\"ç\">crème brûlée €</food></menu>";
+        Element expected = new ParserImpl().parse(xml.getBytes(StandardCharsets.UTF_8));
+        byte[][] encoded = {
+                ("\uFEFF" + xml).getBytes(StandardCharsets.UTF_8),
+                ("\uFEFF" + xml).getBytes(StandardCharsets.UTF_16LE),
+                xml.getBytes(StandardCharsets.UTF_16BE),
+                ("<?xml version=\"1.0\" encoding=\"windows-1252\"?>" + xml).getBytes("windows-1252")
+        };
+        for (byte[] bytes : encoded) {
+            File file = this.folder.newFile();
+            Files.write(file.toPath(), bytes);
+            for (TokenizerMode mode : TokenizerMode.values()) {
+                assertEquals(mode.toString(), expected, new ParserImpl(mode).parse(new FileInputStream(file)));
+            }
+            assertEquals(expected, new ParserImpl().parse(bytes));
+            assertEquals(expected, new LazyParserImpl().parse(new ByteArrayInputStream(bytes)));
+        }
+
+        // chars are not decoded, the byte order mark and the declaration are dropped all the same
+        String[] decoded = {
+                "\uFEFF" + xml,
+                "<?xml version=\"1.0\"?>" + xml,
+                "\uFEFF<?xml version='1.0' encoding='UTF-8'?>\n" + xml
+        };
+        Parser[] parsers = {
+                new ParserImpl(TokenizerMode.READER), new ParserImpl(TokenizerMode.BUFFERED), new LazyParserImpl(),
+                new ParallelParserImpl(), new ParserSession()
+        };
+        for (String doc : decoded) {
+            for (Parser parser : parsers) {
+                String message = parser.getClass().getSimpleName() + " " + doc;
+                assertEquals(message, expected, parser.parse(new StringReader(doc)));
+                assertEquals(message, expected, parser.parse(CharBuffer.wrap(doc)));
+                assertEquals(message, expected, parser.parse(CharBuffer.wrap(doc.toCharArray())));
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepHeapFlatWhenPushingToHandler() throws Exception {
+        byte[] head = "<feed>\n".getBytes(StandardCharsets.UTF_8);
+        byte[] record = ("    <record id=\"42\" type=\"food\">\n" +
+                "        <name>Strawberry Belgian Waffles</name>\n" +
+                "        <price>$7.95</price>\n" +
+                "    </record>\n").getBytes(StandardCharsets.UTF_8);
+        byte[] tail = "</feed>\n".getBytes(StandardCharsets.UTF_8);
+        long records = STREAM_SIZE / record.length;
+        // a tree of this stream would take several times its size in Elements and Strings
+        HeapSamplingHandler handler = new HeapSamplingHandler(records / CHECKPOINTS);
+
+        new ParserImpl().parse(new RepeatingInputStream(head, record, records, tail), handler);
+
+        assertEquals(records, handler.records);
+        assertEquals(CHECKPOINTS, handler.samples);
+        assertTrue("heap grew by " + (handler.maxUsed - handler.minUsed) + " bytes",
+                handler.maxUsed - handler.minUsed < ALLOWED_GROWTH);
+    }
+
+    private static final class HeapSamplingHandler implements ContentHandler {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long recordsPerSample;
+        private long records;
+        private int samples;
+        private long minUsed = Long.MAX_VALUE;
+        private long maxUsed;
+
+        private HeapSamplingHandler(long recordsPerSample) {
+            this.recordsPerSample = recordsPerSample;
+        }
+
+        @Override
+        public void startDocument() {
+        }
+
+        @Override
+        public void startElement(String tagName, Attributes attributes) {
+            if (tagName.equals("record")) {
+                assertEquals("42", attributes.getAttributeValue(0));
+            }
+        }
+
+        @Override
+        public void endElement(String tagName) {
+            if (tagName.equals("record") && ++this.records % this.recordsPerSample == 0) {
+                System.gc();
+                long used = this.memory.getHeapMemoryUsage().getUsed();
+                this.minUsed = Math.min(this.minUsed, used);
+                this.maxUsed = Math.max(this.maxUsed, used);
+                this.samples++;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+        }
+
+        @Override
+        public void endDocument() {
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                this.count += n;
+            }
+            return n;
+        }
+    }
+
+    // head, then the record repeated the given number of times, then tail, generated on the fly
+    private static final class RepeatingInputStream extends InputStream {
+        private final byte[] head;
+        private final byte[] record;
+        private final byte[] tail;
+        private long remaining;
+        private byte[] current;
+        private int pos;
+
+        private RepeatingInputStream(byte[] head, byte[] record, long times, byte[] tail) {
+            this.head = head;
+            this.record = record;
+            this.tail = tail;
+            this.remaining = times;
+            this.current = head;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return this.read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            int n = 0;
+            while (n < len) {
+                if (this.pos == this.current.length) {
+                    if (this.current == this.tail) {
+                        break;
+                    } else if (this.remaining > 0) {
+                        this.remaining--;
+                        this.current = this.record;
+                    } else {
+                        this.current = this.tail;
+                    }
+                    this.pos = 0;
+                    continue;
+                }
+                int chunk = Math.min(len - n, this.current.length - this.pos);
+                System.arraycopy(this.current, this.pos, b, off + n, chunk);
+                this.pos += chunk;
+                n += chunk;
+            }
+            return n == 0 && len > 0 ? -1 : n;
+        }
+    }
+}
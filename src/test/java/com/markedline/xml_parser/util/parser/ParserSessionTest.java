@@ -0,0 +1,171 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.tokenizer.XMLException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.markedline.xml_parser.TestDocuments.RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.SNIPPETS;
+import static com.markedline.xml_parser.TestDocuments.outcome;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParserSessionTest {
+
+    @Test
+    public void shouldBuildSameTreesAsParserImpl() throws IOException {
+        ParserSession session = new ParserSession();
+        // the second round parses every document in buffers left over from the big one
+        for (int round = 0; round < 2; round++) {
+            for (String resource : RESOURCES) {
+                byte[] bytes = Files.readAllBytes(resource(resource).toPath());
+                assertEquals(resource, parse(new ParserImpl(), bytes), parse(session, bytes));
+            }
+        }
+        for (String snippet : SNIPPETS) {
+            byte[] bytes = snippet.getBytes(StandardCharsets.UTF_8);
+            String expected = parse(new ParserImpl(), bytes);
+            assertEquals(snippet, expected, parse(session, bytes));
+            assertEquals(snippet, expected, outcome(() -> session.parse(bytes)));
+            assertEquals(snippet, expected, outcome(() -> session.parse(ByteBuffer.wrap(bytes))));
+            assertEquals(snippet, expected, outcome(() -> session.parse(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip())));
+            assertEquals(snippet, expected, outcome(() -> session.parse(new StringReader(snippet))));
+            assertEquals(snippet, expected, outcome(() -> session.parse(CharBuffer.wrap(snippet))));
+        }
+    }
+
+    @Test
+    public void shouldKeepTreesOfEarlierParses() throws IOException, XMLException {
+        ParserSession session = new ParserSession(new ParserConfig.Builder().withIdAttribute("id").build());
+        Element first = session.parse("<r><a id='1'>one</a></r>".getBytes());
+        Element second = session.parse("<r><b id='2'>two</b></r>".getBytes());
+
+        assertEquals("one", first.getById("1").getChild(0).getText());
+        assertEquals(null, first.getById("2"));
+        assertEquals("two", second.getById("2").getChild(0).getText());
+    }
+
+    @Test
+    public void shouldPushToHandler() throws IOException, XMLException {
+        byte[] bytes = Files.readAllBytes(resource("doc.xml").toPath());
+        TreeBuilder expected = new TreeBuilder();
+        new ParserImpl().parse(new ByteArrayInputStream(bytes), expected);
+        TreeBuilder actual = new TreeBuilder();
+        new ParserSession().parse(new ByteArrayInputStream(bytes), actual);
+        assertEquals(expected.getRoot(), actual.getRoot());
+    }
+
+    @Test
+    public void shouldParseInNewSessionFromHandler() throws IOException, XMLException {
+        Parser parser = new SessionParserImpl();
+        List<Element> inner = new ArrayList<>();
+        TreeBuilder tree = new TreeBuilder();
+        ContentHandler outer = new ContentHandler() {
+            @Override
+            public void startDocument() {
+                tree.startDocument();
+            }
+
+            @Override
+            public void startElement(String tagName, Attributes attributes) {
+                tree.startElement(tagName, attributes);
+            }
+
+            @Override
+            public void endElement(String tagName) {
+                tree.endElement(tagName);
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) throws IOException, XMLException {
+                inner.add(parser.parse(("<in>" + new String(ch, start, length) + "</in>").getBytes()));
+                tree.characters(ch, start, length);
+            }
+
+            @Override
+            public void endDocument() {
+                tree.endDocument();
+            }
+        };
+        parser.parse(new ByteArrayInputStream("<r>a<x><y>1</y></x></r>".getBytes()), outer);
+        assertEquals("1", tree.getRoot().getChild(1).getChild(0).getChild(0).getText());
+        assertEquals(2, inner.size());
+        assertEquals("a", inner.get(0).getChild(0).getText());
+        assertEquals("1", inner.get(1).getChild(0).getText());
+    }
+
+    @Test
+    public void shouldParseOnManyThreads() throws Exception {
+        byte[] bytes = Files.readAllBytes(resource("doc.xml").toPath());
+        Element expected = new ParserImpl().parse(new ByteArrayInputStream(bytes));
+        Parser parser = ParserFactory.createSessionParser(ParserConfig.DEFAULT);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Element>> trees = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                trees.add(executor.submit(() -> parser.parse(new ByteArrayInputStream(bytes))));
+            }
+            for (Future<Element> tree : trees) {
+                assertEquals(expected, tree.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // a thread per file, as virtual threads are, still finds the session the files before it used
+    @Test
+    public void shouldReuseSessionsAcrossThreads() throws Exception {
+        byte[] bytes = Files.readAllBytes(resource("doc.xml").toPath());
+        Element expected = new ParserImpl().parse(bytes);
+        SessionParserImpl parser = new SessionParserImpl(ParserConfig.DEFAULT, 2);
+        List<Element> trees = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    trees.add(parser.parse(bytes));
+                } catch (IOException | XMLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            thread.start();
+            thread.join();
+            assertEquals(1, parser.getIdleSessions());
+        }
+        for (Element tree : trees) {
+            assertEquals(expected, tree);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Element>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(() -> parser.parse(bytes)));
+            }
+            for (Future<Element> future : futures) {
+                assertEquals(expected, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(parser.getIdleSessions() <= 2);
+    }
+
+    private static String parse(Parser parser, byte[] bytes) {
+        return outcome(() -> parser.parse(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,189 @@
+package com.markedline.xml_parser.util.parser;
+
+import com.markedline.xml_parser.node.Element;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.markedline.xml_parser.TestDocuments.WELL_FORMED_RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PushParserTest {
+
+    private static final int CONNECTIONS = 200;
+    private static final int RECORDS = 20;
+
+    @Test
+    public void shouldBuildSameTreeFromAnyChunks() throws Exception {
+        Random random = new Random(17);
+        for (String name : WELL_FORMED_RESOURCES) {
+            File file = resource(name);
+            Element expected = new ParserImpl().parse(new FileInputStream(file));
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            int maxChunk = bytes.length > 1 << 20 ? 8192 : 8;
+
+            TreeBuilder builder = new TreeBuilder();
+            PushParser parser = new PushParser(builder);
+            for (int offset = 0; offset < bytes.length; ) {
+                int length = Math.min(1 + random.nextInt(maxChunk), bytes.length - offset);
+                parser.feed(ByteBuffer.wrap(bytes, offset, length));
+                offset += length;
+            }
+            parser.end();
+            assertEquals(name, expected, builder.getRoot());
+        }
+    }
+
+    @Test
+    public void shouldDecodeCharsSplitBetweenChunks() throws Exception {
+        byte[] bytes = "<a b=\"é€\"><c>𝄞 ünï</c></a>".getBytes(StandardCharsets.UTF_8);
+        TreeBuilder builder = new TreeBuilder();
+        PushParser parser = new PushParser(builder);
+        for (byte b : bytes) {
+            parser.feed(ByteBuffer.wrap(new byte[]{b}));
+        }
+        parser.end();
+
+        Element root = builder.getRoot();
+        assertEquals("é€", root.getAttributeValue("b"));
+        assertEquals("𝄞 ünï", root.getChild(0).getChild(0).getText());
+    }
+
+    // a run split over many chunks is scanned once, not again from its start after every chunk
+    @Test(timeout = 10_000)
+    public void shouldParseLongRunsFedInSmallChunks() throws Exception {
+        int length = 8 << 20;
+        String text = "x".repeat(length);
+        byte[] bytes = ("<a v=\"" + text + "\">" + text + "</a>").getBytes(StandardCharsets.UTF_8);
+        TreeBuilder builder = new TreeBuilder();
+        PushParser parser = new PushParser(builder);
+        for (int offset = 0; offset < bytes.length; offset += 1024) {
+            parser.feed(ByteBuffer.wrap(bytes, offset, Math.min(1024, bytes.length - offset)));
+        }
+        parser.end();
+
+        Element root = builder.getRoot();
+        assertEquals(length, root.getAttributeValue("v").length());
+        assertEquals(length, root.getChild(0).getText().length());
+    }
+
+    @Test(timeout = 30_000)
+    public void shouldParseManySocketsOnOneThread() throws Exception {
+        try (Selector selector = Selector.open();
+             ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), CONNECTIONS);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+
+            AtomicReference<Exception> writerError = new AtomicReference<>();
+            Thread writer = new Thread(() -> {
+                try {
+                    writeDocuments((InetSocketAddress) server.getLocalAddress());
+                } catch (Exception e) {
+                    writerError.set(e);
+                }
+            });
+            writer.start();
+
+            List<List<Element>> records = new ArrayList<>();
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            int open = 0;
+            int accepted = 0;
+            // a writer that failed may leave connections unopened, they would be waited for forever
+            while (writerError.get() == null && (accepted < CONNECTIONS || open > 0)) {
+                selector.select(1000);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (key.isAcceptable()) {
+                        SocketChannel channel = server.accept();
+                        if (channel == null) {
+                            continue;
+                        }
+                        channel.configureBlocking(false);
+                        List<Element> received = new ArrayList<>();
+                        records.add(received);
+                        channel.register(selector, SelectionKey.OP_READ,
+                                new PushParser(new RecordHandler("food", received::add)));
+                        accepted++;
+                        open++;
+                    } else if (key.isReadable()) {
+                        PushParser parser = (PushParser) key.attachment();
+                        buffer.clear();
+                        if (((SocketChannel) key.channel()).read(buffer) < 0) {
+                            parser.end();
+                            key.channel().close();
+                            open--;
+                        } else {
+                            parser.feed(buffer.flip());
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+            writer.join();
+            assertNull(writerError.get());
+
+            assertEquals(CONNECTIONS, records.size());
+            for (List<Element> received : records) {
+                assertEquals(RECORDS, received.size());
+                String connection = received.get(0).getAttributeValue("from");
+                for (int i = 0; i < RECORDS; i++) {
+                    Element food = received.get(i);
+                    assertEquals(connection, food.getAttributeValue("from"));
+                    assertEquals(Integer.toString(i), food.getAttributeValue("id"));
+                    assertEquals("crème brûlée " + i, food.getChild(0).getChild(0).getText());
+                }
+            }
+        }
+    }
+
+    // writes to all connections in turns, a few bytes at a time
+    private static void writeDocuments(InetSocketAddress address) throws IOException {
+        Random random = new Random(42);
+        List<SocketChannel> channels = new ArrayList<>();
+        List<ByteBuffer> documents = new ArrayList<>();
+        try {
+            for (int c = 0; c < CONNECTIONS; c++) {
+                channels.add(SocketChannel.open(address));
+                StringBuilder document = new StringBuilder("<menu>\n");
+                for (int i = 0; i < RECORDS; i++) {
+                    document.append("  <food from=\"").append(c).append("\" id=\"").append(i).
+                            append("\"><name>crème brûlée ").append(i).append("</name></food>\n");
+                }
+                documents.add(ByteBuffer.wrap(document.append("</menu>").toString().getBytes(StandardCharsets.UTF_8)));
+            }
+            for (boolean written = false; !written; ) {
+                written = true;
+                for (int c = 0; c < CONNECTIONS; c++) {
+                    ByteBuffer document = documents.get(c);
+                    if (document.hasRemaining()) {
+                        int length = Math.min(1 + random.nextInt(40), document.remaining());
+                        channels.get(c).write(document.slice().limit(length));
+                        document.position(document.position() + length);
+                        written = false;
+                    }
+                }
+            }
+        } finally {
+            for (SocketChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.markedline.xml_parser.util.printer;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+
+import static com.markedline.xml_parser.TestDocuments.WELL_FORMED_RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static org.junit.Assert.assertEquals;
+
+public class BufferedPrinterImplTest {
+
+    @Test
+    public void shouldPrintSameOutputAsPrinterImpl() throws Exception {
+        for (String resource : WELL_FORMED_RESOURCES) {
+            File file = resource(resource);
+            Element root = new ParserImpl().parse(new FileInputStream(file));
+
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            PrintStream out = System.out;
+            System.setOut(new PrintStream(expected));
+            try {
+                new PrinterImpl().print(root);
+            } finally {
+                System.setOut(out);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            new BufferedPrinterImpl(bytes).print(root);
+            StringWriter chars = new StringWriter();
+            new BufferedPrinterImpl(chars).print(root);
+            StringBuilder appendable = new StringBuilder();
+            new BufferedPrinterImpl(appendable).print(root);
+
+            assertEquals(resource, expected.toString(), bytes.toString());
+            assertEquals(resource, expected.toString(), chars.toString());
+            assertEquals(resource, expected.toString(), appendable.toString());
+        }
+    }
+
+    @Test
+    public void shouldPrintDeepTree() {
+        Element root = new Element.Builder().withTagName("root").build();
+        Element element = root;
+        for (int i = 0; i < 100_000; i++) {
+            Element child = new Element.Builder().withTagName("a").withParent(element).build();
+            element.addChild(child);
+            element = child;
+        }
+        element.addChild(new Element.Builder().withText("leaf").withParent(element).build());
+
+        StringBuilder out = new StringBuilder();
+        new BufferedPrinterImpl(out).print(root);
+
+        assertEquals("1. leaf-" + System.lineSeparator(), out.toString());
+    }
+}
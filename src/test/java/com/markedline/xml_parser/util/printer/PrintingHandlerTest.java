@@ -0,0 +1,69 @@
+package com.markedline.xml_parser.util.printer;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.markedline.xml_parser.TestDocuments.WELL_FORMED_RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrintingHandlerTest {
+
+    @Test
+    public void shouldPrintSameOutputAsTree() throws Exception {
+        for (String resource : WELL_FORMED_RESOURCES) {
+            File file = resource(resource);
+            Element root = new ParserImpl().parse(new FileInputStream(file));
+            StringBuilder expected = new StringBuilder();
+            new BufferedPrinterImpl(expected).print(root);
+
+            StringBuilder out = new StringBuilder();
+            new ParserImpl().parse(new FileInputStream(file), new PrintingHandler(out));
+
+            assertEquals(resource, expected.toString(), out.toString());
+        }
+    }
+
+    @Test
+    public void shouldPrintBeforeInputEnds() throws Exception {
+        StringBuilder out = new StringBuilder();
+        byte[] record = "<food><name>Waffles</name></food>\n".getBytes(StandardCharsets.UTF_8);
+        int[] printedAtEnd = new int[1];
+        // records after the root start tag, the stream ends after 4 MiB of them
+        long size = 6 + (4 << 20) / record.length * record.length;
+        InputStream input = new InputStream() {
+            private long served;
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (this.served == size) {
+                    printedAtEnd[0] = out.length();
+                    return -1;
+                }
+                len = (int) Math.min(len, size - this.served);
+                for (int i = 0; i < len; i++, this.served++) {
+                    b[off + i] = this.served < 6 ? (byte) "<feed>".charAt((int) this.served) :
+                            record[(int) ((this.served - 6) % record.length)];
+                }
+                return len;
+            }
+        };
+
+        new ParserImpl().parse(input, new PrintingHandler(out));
+
+        assertTrue(printedAtEnd[0] > 0);
+        assertTrue(out.toString().startsWith("1. Waffles-" + System.lineSeparator()));
+    }
+}
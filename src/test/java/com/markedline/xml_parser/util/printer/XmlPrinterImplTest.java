@@ -0,0 +1,97 @@
+package com.markedline.xml_parser.util.printer;
+
+import com.markedline.xml_parser.node.Attribute;
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.markedline.xml_parser.TestDocuments.WELL_FORMED_RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static org.junit.Assert.assertEquals;
+
+public class XmlPrinterImplTest {
+
+    // nothing in these is lost by parsing but the whitespace around the root
+    private static final String[] VERBATIM = {
+            "doc.xml", "doc2.xml", "docc.xml", "document.xml"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldParseOutputToSameTree() throws Exception {
+        for (String resource : WELL_FORMED_RESOURCES) {
+            Element root = new ParserImpl().parse(new FileInputStream(resource(resource)));
+            String xml = print(root);
+
+            File file = this.folder.newFile();
+            Files.write(file.toPath(), xml.getBytes());
+            Element reparsed = new ParserImpl().parse(new FileInputStream(file));
+
+            assertEquals(resource, root.toString(), reparsed.toString());
+            assertEquals(resource, xml, print(reparsed));
+        }
+    }
+
+    @Test
+    public void shouldPrintResourcesVerbatim() throws Exception {
+        for (String resource : VERBATIM) {
+            File file = resource(resource);
+            String expected = new String(Files.readAllBytes(file.toPath())).strip();
+            assertEquals(resource, expected, print(new ParserImpl().parse(new FileInputStream(file))));
+        }
+    }
+
+    @Test
+    public void shouldEscapeTextAndAttributes() throws Exception {
+        StringBuilder out = new StringBuilder();
+        XmlWriter writer = new XmlWriter(out);
+        writer.writeStartElement("a");
+        writer.writeAttribute("x", "1 < 2 & 'q' \"q\" >");
+        writer.writeCharacters("plain a<b>&c");
+        writer.writeStartElement("e");
+        writer.writeEndElement();
+        writer.writeCharacters("x&y<z".toCharArray(), 1, 3);
+        writer.writeEndElement();
+        writer.flush();
+
+        assertEquals("<a x=\"1 &lt; 2 &amp; 'q' &quot;q&quot; >\">plain a&lt;b&gt;&amp;c<e />&amp;y&lt;</a>",
+                out.toString());
+    }
+
+    @Test
+    public void shouldRoundTripEntityReferences() throws Exception {
+        String[] documents = {
+                "<a x=\"p&amp;q\">1 &amp; 2 > 0</a>",
+                "<a x='say \"&#x26;\"' y=\"&lt;&apos;\">&lt;b&gt; &#38; &custom;</a>"
+        };
+        for (String document : documents) {
+            Element root = new ParserImpl().parse(document.getBytes(StandardCharsets.UTF_8));
+            String xml = print(root);
+            assertEquals(document, xml);
+            assertEquals(root, new ParserImpl().parse(xml.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        // edited values are kept well-formed, what parses as a reference is left as one
+        Element root = new Element.Builder().withTagName("a").
+                withAttributes(new ArrayList<>(List.of(new Attribute("x", "'1' < \"2\"")))).build();
+        root.addChild(new Element.Builder().withText("AT&T <b> &amp; & ;").build());
+        assertEquals("<a x=\"'1' &lt; &quot;2&quot;\">AT&amp;T &lt;b> &amp; &amp; ;</a>", print(root));
+    }
+
+    private static String print(Element element) {
+        StringBuilder out = new StringBuilder();
+        new XmlPrinterImpl(out).print(element);
+        return out.toString();
+    }
+}
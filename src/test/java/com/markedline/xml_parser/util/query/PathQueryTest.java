@@ -0,0 +1,88 @@
+package com.markedline.xml_parser.util.query;
+
+import com.markedline.xml_parser.node.Element;
+import com.markedline.xml_parser.util.parser.ParserImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static org.junit.Assert.assertEquals;
+
+public class PathQueryTest {
+
+    private static final String NESTED = "<r id='0'><a id='1'><b>1</b><a id='2'><b>2</b><c><b>3</b></c></a></a>" +
+            "<b>4</b><c id='1'><a><b>5</b></a></c></r>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldSelectInDocumentOrder() throws Exception {
+        Element root = parse(NESTED);
+        PathIndex index = new PathIndex(root);
+
+        assertSelects("r", root, index, "/r");
+        assertSelects("", root, index, "/a");
+        assertSelects("1 2 3 4 5", root, index, "//b");
+        assertSelects("1 2 3 5", root, index, "//a//b");
+        assertSelects("1 2 5", root, index, "//a/b");
+        assertSelects("4", root, index, "/r/b");
+        assertSelects("1 2 3 5", root, index, "/r/*//b");
+        assertSelects("3", root, index, "//a[@id='2']/*/b");
+        assertSelects("1 2 3", root, index, "/r/a[@id='1']//b");
+        assertSelects("2 5", root, index, "//*[@id=\"1\"]/a/b");
+        assertSelects("", root, index, "//a[@id='1'][@x='1']");
+        assertSelects("c c", root, index, "/r//c");
+    }
+
+    @Test
+    public void shouldSelectSameRecordsWithIndex() throws Exception {
+        File file = resource("bigXML.xml");
+        Element root = new ParserImpl().parse(new FileInputStream(file));
+        PathIndex index = new PathIndex(root);
+
+        for (String path : new String[]{"/breakfast-menu/food/price", "//food[@id='2']/name", "//name", "/*/*/price"}) {
+            PathQuery query = PathQuery.compile(path);
+            List<Element> expected = query.select(root);
+            assertEquals(path, expected, query.select(index));
+            // both are unmodifiable lists
+            assertEquals(path, expected.getClass(), query.select(index).getClass());
+        }
+        assertEquals(root.getChildren().stream().filter(child -> "food".equals(child.getTagName())).count(),
+                PathQuery.compile("/breakfast-menu/food/price").select(index).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRelativePath() {
+        PathQuery.compile("food/price");
+    }
+
+    private static void assertSelects(String expected, Element root, PathIndex index, String path) {
+        PathQuery query = PathQuery.compile(path);
+        assertEquals(path, expected, describe(query.select(root)));
+        assertEquals(path + " indexed", expected, describe(query.select(index)));
+    }
+
+    // text of every selected element, or its tag name if it has no text child
+    private static String describe(List<Element> elements) {
+        List<String> parts = new ArrayList<>();
+        for (Element element : elements) {
+            Element first = element.hasChildren() ? element.getChild(0) : null;
+            parts.add(first != null && first.getText() != null ? first.getText() : element.getTagName());
+        }
+        return String.join(" ", parts);
+    }
+
+    private Element parse(String xml) throws Exception {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), xml.getBytes());
+        return new ParserImpl().parse(new FileInputStream(file));
+    }
+}
@@ -0,0 +1,94 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.markedline.xml_parser.TestDocuments.RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.SNIPPETS;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static com.markedline.xml_parser.TestDocuments.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class BufferedTokenizerImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldProduceSameTokensAsTokenizerImplOnResources() throws IOException {
+        for (String resource : RESOURCES) {
+            File file = resource(resource);
+            assertEquals(resource, trace(new TokenizerImpl(new FileInputStream(file))),
+                    trace(new BufferedTokenizerImpl(new FileInputStream(file))));
+        }
+    }
+
+    @Test
+    public void shouldProduceSameTokensAsTokenizerImplAcrossWindowBoundaries() throws IOException {
+        for (String snippet : SNIPPETS) {
+            File file = write(this.folder, snippet);
+            List<String> expected = trace(new TokenizerImpl(new FileInputStream(file)));
+            for (int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+                assertEquals(snippet, expected, trace(new BufferedTokenizerImpl(
+                        new InputStreamReader(new FileInputStream(file)), bufferSize)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldResolveNamesToCanonicalInstances() throws IOException, XMLException {
+        BufferedTokenizerImpl first = new BufferedTokenizerImpl(new StringReader("<food id='1'><food id='2'>"));
+        BufferedTokenizerImpl second = new BufferedTokenizerImpl(new StringReader("<food id='3'>"));
+        first.nextToken();
+        second.nextToken();
+        String name = first.getLocalName();
+        String attribute = first.getAttributeName(0);
+        first.nextToken();
+
+        assertSame(name, first.getLocalName());
+        assertSame(attribute, first.getAttributeName(0));
+        assertSame(name, second.getLocalName());
+        assertSame(attribute, second.getAttributeName(0));
+    }
+
+    static List<String> trace(Tokenizer tokenizer) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try {
+            while (tokenizer.nextToken() != TokenType.EOF) {
+                tokens.add(tokenizer.getTokenType() + " " + tokenizer.getCurrentToken());
+                if (tokenizer instanceof TokenCursor) {
+                    tokens.add(cursorView((TokenCursor) tokenizer));
+                }
+            }
+            tokens.add(tokenizer.nextToken().toString());
+        } catch (XMLException e) {
+            tokens.add("XMLException " + e.getMessage());
+        }
+        return tokens;
+    }
+
+    private static String cursorView(TokenCursor cursor) {
+        StringBuilder view = new StringBuilder();
+        switch (cursor.getTokenType()) {
+            case START_TAG -> {
+                view.append(cursor.getLocalName());
+                for (int i = 0; i < cursor.getAttributeCount(); i++) {
+                    view.append(' ').append(cursor.getAttributeName(i)).append('=').append(cursor.getAttributeValue(i));
+                }
+            }
+            case END_TAG -> view.append('/').append(cursor.getLocalName());
+            case TEXT -> view.append(cursor.getTextCharacters(), cursor.getTextStart(), cursor.getTextLength());
+        }
+        return view.toString();
+    }
+}
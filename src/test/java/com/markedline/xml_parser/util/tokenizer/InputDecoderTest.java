@@ -0,0 +1,97 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class InputDecoderTest {
+
+    @Test
+    public void shouldDetectEncoding() throws IOException {
+        assertEquals(StandardCharsets.UTF_8, detect(new byte[0]));
+        assertEquals(StandardCharsets.UTF_8, detect("<a>é</a>".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(StandardCharsets.UTF_8, detect(bytes("\uFEFF<a/>", StandardCharsets.UTF_8)));
+        assertEquals(StandardCharsets.UTF_16LE, detect(bytes("\uFEFF<a/>", StandardCharsets.UTF_16LE)));
+        assertEquals(StandardCharsets.UTF_16BE, detect(bytes("\uFEFF<a/>", StandardCharsets.UTF_16BE)));
+        assertEquals(StandardCharsets.UTF_16LE, detect(bytes("<a/>", StandardCharsets.UTF_16LE)));
+        assertEquals(StandardCharsets.UTF_16BE, detect(bytes("<a/>", StandardCharsets.UTF_16BE)));
+        assertEquals(StandardCharsets.ISO_8859_1,
+                detect(bytes("<?xml version='1.0' encoding = 'ISO-8859-1'?><a/>", StandardCharsets.ISO_8859_1)));
+        assertEquals(Charset.forName("windows-1251"),
+                detect(bytes("<?xml version=\"1.0\" encoding=\"windows-1251\"?><a/>", StandardCharsets.US_ASCII)));
+        assertEquals(StandardCharsets.UTF_8, detect(bytes("<?xml version=\"1.0\"?><a encoding='x'/>",
+                StandardCharsets.US_ASCII)));
+    }
+
+    @Test(expected = UnsupportedEncodingException.class)
+    public void shouldRejectUnknownEncoding() throws IOException {
+        detect(bytes("<?xml version=\"1.0\" encoding=\"no-such-charset\"?><a/>", StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void shouldDecodeUtf8LikeJdk() throws IOException {
+        String text = "<a b='ж'>€𝄞 plain ascii ünï</a>";
+        byte[] utf8 = bytes(text, StandardCharsets.UTF_8);
+        assertEquals(text, InputDecoder.decode(utf8, 0, utf8.length).toString());
+
+        // random bytes are mostly malformed, around valid sequences
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            byte[] bytes = new byte[2 + random.nextInt(40)];
+            random.nextBytes(bytes);
+            if (i % 2 == 0) {
+                bytes = (new String(bytes, StandardCharsets.UTF_8) + "x€").getBytes(StandardCharsets.UTF_8);
+            }
+            // a start tag, which is read as UTF-8
+            bytes[0] = '<';
+            bytes[1] = 'a';
+            assertEquals(new String(bytes, StandardCharsets.UTF_8),
+                    InputDecoder.decode(ByteBuffer.wrap(bytes)).toString());
+        }
+    }
+
+    @Test
+    public void shouldDecodeInDetectedEncoding() throws IOException {
+        String text = "<?xml version='1.0' encoding='ISO-8859-1'?><a>çà</a>";
+        assertEquals("<a>çà</a>", InputDecoder.decode(ByteBuffer.wrap(bytes(text, StandardCharsets.ISO_8859_1))).
+                toString());
+        assertEquals("<a/>", InputDecoder.decode(ByteBuffer.wrap(bytes("\uFEFF<?xml version=\"1.0\"?><a/>",
+                StandardCharsets.UTF_16BE))).toString());
+        assertEquals("<a>ç</a>", InputDecoder.decode(ByteBuffer.wrap(bytes("\uFEFF<a>ç</a>", StandardCharsets.UTF_8))).
+                toString());
+        assertEquals("<a>𝄞</a>", read(bytes("\uFEFF<a>𝄞</a>", StandardCharsets.UTF_16LE)));
+        assertEquals("<a>ç</a>", read(bytes("\uFEFF<a>ç</a>", StandardCharsets.UTF_8)));
+        assertEquals("<a>çà</a>", read(bytes(text, StandardCharsets.ISO_8859_1)));
+        assertEquals("<?xml-stylesheet href='a'?><a/>", read(bytes("<?xml-stylesheet href='a'?><a/>",
+                StandardCharsets.UTF_8)));
+        assertEquals("<", read(new byte[]{'<'}));
+    }
+
+    private static Charset detect(byte[] bytes) throws UnsupportedEncodingException {
+        return InputDecoder.detect(bytes, 0, bytes.length);
+    }
+
+    private static byte[] bytes(String text, Charset charset) {
+        return text.getBytes(charset);
+    }
+
+    private static String read(byte[] bytes) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (Reader reader = InputDecoder.reader(new ByteArrayInputStream(bytes))) {
+            int c;
+            while ((c = reader.read()) >= 0) {
+                text.append((char) c);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static com.markedline.xml_parser.TestDocuments.RESOURCES;
+import static com.markedline.xml_parser.TestDocuments.SNIPPETS;
+import static com.markedline.xml_parser.TestDocuments.resource;
+import static org.junit.Assert.assertEquals;
+
+public class MappedTokenizerImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldProduceSameTokensAsBufferedTokenizerOnResources() throws IOException {
+        for (String resource : RESOURCES) {
+            File file = resource(resource);
+            assertEquals(resource, reference(file), BufferedTokenizerImplTest.trace(new MappedTokenizerImpl(new FileInputStream(file))));
+        }
+    }
+
+    @Test
+    public void shouldProduceSameTokensAcrossWindowBoundaries() throws IOException {
+        String[] utf8 = {"<a b='ж'>€𝄞x</a>", "<a> </a    >", "<a x='1'></a>", "<a𝄞></a>", "<a><b/𝄞></a>"};
+        for (String[] snippets : new String[][]{SNIPPETS, utf8}) {
+            for (String snippet : snippets) {
+                File file = folder.newFile();
+                Files.write(file.toPath(), snippet.getBytes(StandardCharsets.UTF_8));
+                List<String> expected = reference(file);
+                for (int windowSize = 1; windowSize <= 8; windowSize++) {
+                    try (FileInputStream input = new FileInputStream(file)) {
+                        assertEquals(snippet, expected, BufferedTokenizerImplTest.trace(new MappedTokenizerImpl(input.getChannel(), windowSize)));
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String> reference(File file) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return BufferedTokenizerImplTest.trace(new BufferedTokenizerImpl(reader));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.markedline.xml_parser.util.tokenizer;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class RunScannerTest {
+
+    @Test
+    public void shouldClassifyCharsLikeCharacter() {
+        for (int c = -1; c <= Character.MAX_VALUE; c++) {
+            assertEquals(Integer.toHexString(c), c >= 0 && Character.isLetterOrDigit((char) c), RunScanner.isNameChar(c));
+            assertEquals(Integer.toHexString(c), c >= 0 && Character.isWhitespace(c), RunScanner.isWhitespace(c));
+        }
+        assertEquals(false, RunScanner.isNameChar(0x1D400));
+        assertEquals(false, RunScanner.isWhitespace(0x1D400));
+    }
+
+    @Test
+    public void shouldFindSameDelimitersAsScalarScan() {
+        Random random = new Random(21);
+        for (int round = 0; round < 2000; round++) {
+            int length = random.nextInt(40);
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                // few distinct values, so delimiters and bytes with the high bit set are common
+                bytes[i] = (byte) "ab<\"'éÿ\u0000".charAt(random.nextInt(8));
+            }
+            int from = length > 0 ? random.nextInt(length + 1) : 0;
+            int to = from + random.nextInt(length - from + 1);
+
+            for (byte delimiter : new byte[]{'<', '"', '\'', (byte) 0xE9, (byte) 0xFF, 0}) {
+                int expected = -1;
+                for (int i = from; i < to && expected < 0; i++) {
+                    if (bytes[i] == delimiter) {
+                        expected = i;
+                    }
+                }
+                assertEquals(expected, RunScanner.indexOf(ByteBuffer.wrap(bytes), from, to, delimiter));
+                assertEquals(expected, RunScanner.indexOf(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN),
+                        from, to, delimiter));
+                ByteBuffer direct = ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
+                direct.put(bytes).clear();
+                assertEquals(expected, RunScanner.indexOf(direct, from, to, delimiter));
+
+                char[] chars = new char[length];
+                for (int i = 0; i < length; i++) {
+                    chars[i] = (char) (bytes[i] & 0xFF);
+                }
+                assertEquals(expected, RunScanner.indexOf(chars, from, to, (char) (delimiter & 0xFF)));
+            }
+
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (bytes[i] & 0xFF);
+            }
+            int expected = -1;
+            for (int i = from; i < to && expected < 0; i++) {
+                if (chars[i] == '"' || chars[i] == '\'' || chars[i] == 'é') {
+                    expected = i;
+                }
+            }
+            assertEquals(expected, RunScanner.indexOfAny(chars, from, to, '"', '\'', 'é'));
+
+            int ascii = from;
+            while (ascii < to && bytes[ascii] >= 0) {
+                ascii++;
+            }
+            assertEquals(ascii, RunScanner.skipAscii(bytes, from, to));
+        }
+    }
+}